@@ -0,0 +1,85 @@
+package com.finance.tracker.transactions.benchmark;
+
+import com.finance.tracker.transactions.domain.BankTemplate;
+import com.finance.tracker.transactions.domain.BankTemplateSet;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.TemplateSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sender resolution and the compiled bank templates: raw regex cost of every template,
+ * the same with the literal prefilter, and the time to compile a template snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BankTemplateBenchmark {
+
+    private SmsParsingFixture fixture;
+    private List<SmsRequest> corpus;
+    private TemplateSnapshot snapshot;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        fixture = new SmsParsingFixture();
+        corpus = SmsCorpus.load();
+        snapshot = fixture.templateLoader.current();
+    }
+
+    @Benchmark
+    public Optional<String> resolveBank() {
+        return fixture.senderRegistry.resolveBank(corpus.get(next++ % corpus.size()).getSender());
+    }
+
+    @Benchmark
+    public void matchEveryTemplate(Blackhole blackhole) {
+        String body = corpus.get(next++ % corpus.size()).getBody();
+        for (BankTemplateSet set : snapshot.banks().values()) {
+            for (BankTemplate template : set.templates()) {
+                blackhole.consume(template.getCompiledPattern().matcher(body).find());
+            }
+        }
+    }
+
+    @Benchmark
+    public void matchPrefilteredTemplates(Blackhole blackhole) {
+        String body = corpus.get(next++ % corpus.size()).getBody();
+        for (BankTemplateSet set : snapshot.banks().values()) {
+            boolean[] candidates = set.candidates(body);
+            for (int i = 0; i < candidates.length; i++) {
+                if (candidates[i]) {
+                    blackhole.consume(set.templates().get(i).getCompiledPattern().matcher(body).find());
+                }
+            }
+        }
+    }
+
+    // Startup / hot reload cost: read and compile all template files into a new snapshot
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public TemplateSnapshot reloadSnapshot() {
+        fixture.templateLoader.refreshCache();
+        return fixture.templateLoader.current();
+    }
+}
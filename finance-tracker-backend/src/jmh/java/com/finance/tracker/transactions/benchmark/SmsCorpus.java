@@ -0,0 +1,41 @@
+package com.finance.tracker.transactions.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.tracker.transactions.domain.SmsRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Synthetic but realistic alerts (Axis, HDFC, SBI, ICICI, UPI apps) mixed with
+ * OTPs, promotions and personal messages, as a phone inbox would hold them.
+ */
+final class SmsCorpus {
+
+    private static final long BASE_TIMESTAMP = 1_768_000_000_000L;
+
+    private SmsCorpus() {}
+
+    static List<SmsRequest> load() {
+        try (InputStream is = SmsCorpus.class.getResourceAsStream("/sms_corpus.json")) {
+            if (is == null) {
+                throw new IllegalStateException("sms_corpus.json not found on the classpath");
+            }
+            List<Map<String, String>> entries = new ObjectMapper().readValue(is, new TypeReference<>() {});
+
+            List<SmsRequest> corpus = new ArrayList<>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                Map<String, String> entry = entries.get(i);
+                corpus.add(new SmsRequest(null, entry.get("sender"), entry.get("body"), BASE_TIMESTAMP + i * 60_000L));
+            }
+            return corpus;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
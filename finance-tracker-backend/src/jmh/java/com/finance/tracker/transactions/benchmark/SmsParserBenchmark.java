@@ -0,0 +1,56 @@
+package com.finance.tracker.transactions.benchmark;
+
+import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.service.SmsParserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each SmsParserService bean on its own over the whole corpus, without routing,
+ * so a parser change shows up in its own row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmsParserBenchmark {
+
+    @Param({"upiSmsParser", "bankSmsParser", "genericSmsParser"})
+    String parserName;
+
+    private SmsParserService parser;
+    private List<SmsRequest> corpus;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        parser = new SmsParsingFixture().parsers.get(parserName);
+        corpus = SmsCorpus.load();
+    }
+
+    @Benchmark
+    public Optional<ParsedTransaction> parse() {
+        return parser.parse(corpus.get(next++ % corpus.size()));
+    }
+
+    @Benchmark
+    public List<Optional<ParsedTransaction>> parseAllCorpus() {
+        return parser.parseAll(corpus);
+    }
+}
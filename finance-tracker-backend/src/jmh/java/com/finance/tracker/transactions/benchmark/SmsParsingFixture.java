@@ -0,0 +1,51 @@
+package com.finance.tracker.transactions.benchmark;
+
+import com.finance.tracker.transactions.service.MessageProducer;
+import com.finance.tracker.transactions.service.SmsParserService;
+import com.finance.tracker.transactions.service.impl.BankSmsParserServiceImpl;
+import com.finance.tracker.transactions.service.impl.GenericBankSmsParserServiceImpl;
+import com.finance.tracker.transactions.service.impl.TransactionSmsServiceImpl;
+import com.finance.tracker.transactions.service.impl.UpiSmsParserServiceImpl;
+import com.finance.tracker.transactions.utilities.BankSenderRegistry;
+import com.finance.tracker.transactions.utilities.SmsClassifier;
+import com.finance.tracker.transactions.utilities.SmsParseScheduler;
+import com.finance.tracker.transactions.utilities.SmsShapeCache;
+import com.finance.tracker.transactions.utilities.TemplateLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+/**
+ * The parsing beans wired by hand, with the same defaults as application.properties,
+ * so benchmarks measure the parsers and not the Spring context.
+ */
+final class SmsParsingFixture {
+
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final BankSenderRegistry senderRegistry = new BankSenderRegistry("/bank_senders.json");
+    final TemplateLoader templateLoader = new TemplateLoader("/bank_templates/", "", false, 500, event -> {});
+    final SmsShapeCache shapeCache = new SmsShapeCache(20_000, meterRegistry);
+    final Map<String, SmsParserService> parsers;
+    final TransactionSmsServiceImpl smsService;
+
+    SmsParsingFixture() {
+        ReflectionTestUtils.invokeMethod(templateLoader, "init");
+
+        BankSmsParserServiceImpl bankParser =
+                new BankSmsParserServiceImpl(senderRegistry, templateLoader, meterRegistry, event -> {});
+        ReflectionTestUtils.setField(bankParser, "matchBudget", 1_000_000L);
+        ReflectionTestUtils.setField(bankParser, "quarantineAfter", 3);
+
+        parsers = Map.of(
+                "upiSmsParser", new UpiSmsParserServiceImpl(),
+                "bankSmsParser", bankParser,
+                "genericSmsParser", new GenericBankSmsParserServiceImpl());
+
+        smsService = new TransactionSmsServiceImpl(parsers, new MessageProducer(),
+                new SmsClassifier(senderRegistry, templateLoader), shapeCache,
+                new SmsParseScheduler(Runtime.getRuntime().availableProcessors(), 4, meterRegistry));
+        ReflectionTestUtils.setField(smsService, "minChunkSize", 64);
+        ReflectionTestUtils.setField(smsService, "maxChunkSize", 512);
+    }
+}
@@ -0,0 +1,63 @@
+package com.finance.tracker.transactions.benchmark;
+
+import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end: classification, shape cache and parser fallbacks, one message at a
+ * time (the /parse endpoint) and as a whole batch (batch-upload).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmsPipelineBenchmark {
+
+    // false clears the shape cache before every call, measuring the first sync of a new inbox
+    @Param({"true", "false"})
+    boolean warmShapeCache;
+
+    private SmsParsingFixture fixture;
+    private List<SmsRequest> corpus;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        fixture = new SmsParsingFixture();
+        corpus = SmsCorpus.load();
+    }
+
+    @Benchmark
+    public Optional<ParsedTransaction> parseTransactionFromSms() {
+        if (!warmShapeCache) {
+            fixture.shapeCache.invalidateAll();
+        }
+        SmsRequest sms = corpus.get(next++ % corpus.size());
+        return fixture.smsService.parseTransactionFromSms(sms);
+    }
+
+    @Benchmark
+    public List<Optional<ParsedTransaction>> parseAllCorpus() {
+        if (!warmShapeCache) {
+            fixture.shapeCache.invalidateAll();
+        }
+        return fixture.smsService.parseAll(corpus);
+    }
+}
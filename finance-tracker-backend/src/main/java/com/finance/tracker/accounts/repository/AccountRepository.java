@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +19,8 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
 
     Optional<Account> findByIdAndUserId(UUID id, UUID userId);
 
+    List<Account> findAllByUserIdAndIdIn(UUID userId, Collection<UUID> ids);
+
     List<Account> findByUserIdAndActiveTrue(UUID userId);
 
     Optional<Account> findByLastFourAndUserIdAndAccountType(String lastFour, UUID userId, AccountType accountType);
@@ -5,15 +5,29 @@ import com.finance.tracker.accounts.domain.BalanceUpdateRequest;
 import com.finance.tracker.accounts.domain.NetworthSummary;
 import com.finance.tracker.accounts.domain.dto.AccountResponse;
 import com.finance.tracker.accounts.domain.entities.Account;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface AccountService {
 
     Account getAccountByIdAndUser(UUID accountId, UUID userId);
 
+    /**
+     * The user's accounts by ID, loaded with one query. Fails if any ID is not one of the user's accounts.
+     */
+    Map<UUID, Account> getAccountsByIdsAndUser(Collection<UUID> accountIds, UUID userId);
+
     void updateBalanceForTransaction(BalanceUpdateRequest request, UUID userId);
 
+    /**
+     * Same as {@link #updateBalanceForTransaction} for many transactions, with one balance
+     * update per account for their combined amount and a snapshot per transaction. The
+     * accounts are the ones the caller resolved with {@link #getAccountsByIdsAndUser}.
+     */
+    void updateBalancesForTransactions(List<BalanceUpdateRequest> requests, Map<UUID, Account> accounts, UUID userId);
+
     Account create(UUID userId, AccountCreateUpdateRequest req);
 
     Account update(UUID userId, UUID id, AccountCreateUpdateRequest req);
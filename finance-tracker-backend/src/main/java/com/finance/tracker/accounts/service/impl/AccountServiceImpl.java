@@ -16,8 +16,15 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -33,28 +40,28 @@ public class AccountServiceImpl implements AccountService {
                 .orElseThrow(() -> new AccountNotFoundException("Account not found or access denied"));
     }
 
+    @Override
+    public Map<UUID, Account> getAccountsByIdsAndUser(Collection<UUID> accountIds, UUID userId) {
+        Set<UUID> ids = new HashSet<>(accountIds);
+        if (ids.remove(null)) {
+            throw new AccountNotFoundException("Account not found or access denied");
+        }
+        Map<UUID, Account> accounts = accountRepository.findAllByUserIdAndIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(Account::getId, account -> account));
+        if (accounts.size() != ids.size()) {
+            throw new AccountNotFoundException("Account not found or access denied");
+        }
+        return accounts;
+    }
+
     @Override
     @Transactional
     public void updateBalanceForTransaction(BalanceUpdateRequest request, UUID userId) {
         // 1. Pre-fetch to identify Category and initial state
         Account account = getAccountByIdAndUser(request.getAccountId(), userId);
 
-        BigDecimal delta;
-        int rowsUpdated;
-
-        if (account.isAsset()) {
-            delta = (request.getTransactionType() == TransactionType.EXPENSE)
-                    ? request.getAmount().negate() : request.getAmount();
-            rowsUpdated = accountRepository.updateAssetBalance(account.getId(), userId, delta);
-        } else {
-            delta = (request.getTransactionType() == TransactionType.EXPENSE)
-                    ? request.getAmount() : request.getAmount().negate();
-            rowsUpdated = accountRepository.updateLiabilityBalance(account.getId(), userId, delta);
-        }
-
-        if (rowsUpdated == 0) {
-            throw new AccountUpdateFailedException("Update failed: Insufficient funds or credit limit reached.");
-        }
+        BigDecimal delta = balanceDelta(account, request);
+        applyDelta(account, userId, delta);
 
         // 2. Audit Snapshot
         BigDecimal oldBalance = getEffectiveBalance(account);
@@ -64,6 +71,45 @@ public class AccountServiceImpl implements AccountService {
         ));
     }
 
+    @Override
+    @Transactional
+    public void updateBalancesForTransactions(List<BalanceUpdateRequest> requests, Map<UUID, Account> accounts, UUID userId) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        Map<UUID, List<BalanceUpdateRequest>> byAccount = requests.stream()
+                .collect(Collectors.groupingBy(BalanceUpdateRequest::getAccountId, LinkedHashMap::new, Collectors.toList()));
+
+        byAccount.forEach((accountId, accountRequests) -> {
+            Account account = accounts.get(accountId);
+            if (account == null) {
+                throw new AccountNotFoundException("Account not found or access denied");
+            }
+            List<BigDecimal> deltas = accountRequests.stream().map(request -> balanceDelta(account, request)).toList();
+
+            // The UPDATE only checks the net change, so each balance on the way must pass the same
+            // limit; snapshots chain through the transactions in request order
+            List<BigDecimal> balances = new ArrayList<>(deltas.size() + 1);
+            balances.add(getEffectiveBalance(account));
+            for (BigDecimal delta : deltas) {
+                BigDecimal balance = balances.getLast().add(delta);
+                if (balance.signum() < 0) {
+                    throw new AccountUpdateFailedException("Update failed: Insufficient funds or credit limit reached.");
+                }
+                balances.add(balance);
+            }
+            applyDelta(account, userId, balances.getLast().subtract(balances.getFirst()));
+
+            for (int i = 0; i < accountRequests.size(); i++) {
+                BalanceUpdateRequest request = accountRequests.get(i);
+                eventPublisher.publishEvent(new ATSnapshotCreateEvent(
+                        this, account.getId(), request.getTransactionId(),
+                        balances.get(i), balances.get(i + 1), request.getAmount()
+                ));
+            }
+        });
+    }
+
     @Override
     @Transactional
     public Account create(UUID userId, AccountCreateUpdateRequest req) {
@@ -153,6 +199,25 @@ public class AccountServiceImpl implements AccountService {
                 });
     }
 
+    // Expenses lower an asset's balance and raise a liability's outstanding
+    private static BigDecimal balanceDelta(Account account, BalanceUpdateRequest request) {
+        boolean expense = request.getTransactionType() == TransactionType.EXPENSE;
+        if (account.isAsset()) {
+            return expense ? request.getAmount().negate() : request.getAmount();
+        }
+        return expense ? request.getAmount() : request.getAmount().negate();
+    }
+
+    private void applyDelta(Account account, UUID userId, BigDecimal delta) {
+        int rowsUpdated = account.isAsset()
+                ? accountRepository.updateAssetBalance(account.getId(), userId, delta)
+                : accountRepository.updateLiabilityBalance(account.getId(), userId, delta);
+
+        if (rowsUpdated == 0) {
+            throw new AccountUpdateFailedException("Update failed: Insufficient funds or credit limit reached.");
+        }
+    }
+
     private BigDecimal getEffectiveBalance(Account account) {
         if (account.isLiability()) {
             return account.getCurrentOutstanding() != null ? account.getCurrentOutstanding() : BigDecimal.ZERO;
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +22,9 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     // Finds a category only if it matches ID, User, AND Type
     Optional<Category> findByIdAndUserIdAndType(UUID id, UUID userId, CategoryType type);
 
+    // Finds the user's categories among the IDs, in one query
+    List<Category> findAllByUserIdAndIdIn(UUID userId, Collection<UUID> ids);
+
     // Finds a category only if it matches ID, User
     Optional<Category> findByIdAndUserId(UUID id, UUID userId);
 
@@ -7,13 +7,20 @@ import com.finance.tracker.category.domain.dtos.CategoryUpdateDto;
 import com.finance.tracker.category.domain.entities.Category;
 import com.finance.tracker.transactions.domain.TransactionType;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public interface CategoryService {
 
     Category validateAndGet(UUID userId, UUID categoryId, CategoryType type);
 
+    /**
+     * The user's categories by ID, loaded with one query. Fails if any ID is not one of the user's categories.
+     */
+    Map<UUID, Category> validateAndGetAll(UUID userId, Collection<UUID> categoryIds);
+
     CategoryResponseDto save(CategoryRequestDto dto, UUID userId);
 
     List<CategoryResponseDto> getAllTree(UUID userId);
@@ -13,8 +13,11 @@ import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -148,6 +151,20 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new CategoryNotFoundException("Category not found or access denied"));
     }
 
+    @Override
+    public Map<UUID, Category> validateAndGetAll(UUID userId, Collection<UUID> categoryIds) {
+        Set<UUID> ids = new HashSet<>(categoryIds);
+        if (ids.remove(null)) {
+            throw new CategoryNotFoundException("Category not found or access denied");
+        }
+        Map<UUID, Category> categories = repository.findAllByUserIdAndIdIn(userId, ids).stream()
+                .collect(Collectors.toMap(Category::getId, category -> category));
+        if (categories.size() != ids.size()) {
+            throw new CategoryNotFoundException("Category not found or access denied");
+        }
+        return categories;
+    }
+
     private CategoryResponseDto mapToResponseDto(Category entity) {
         return CategoryResponseDto.builder()
                 .id(entity.getId())
@@ -0,0 +1,256 @@
+package com.finance.tracker.sync.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
+import com.finance.tracker.sync.exceptions.UploadTooLargeException;
+import com.finance.tracker.transactions.domain.dtos.ErrorDto;
+import com.github.luben.zstd.ZstdIOException;
+import com.github.luben.zstd.ZstdInputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Accepts gzip and zstd request bodies on /api/sync. The body is decompressed as the
+ * handler reads it, never as a whole, and reading past {@code app.sync.upload.max-decompressed-size}
+ * fails with 413 so a small compression bomb cannot exhaust memory or parse time. A zstd
+ * frame whose window is larger than 2^{@code app.sync.upload.zstd-window-log-max} bytes is
+ * rejected with 400 before the decoder allocates it; the zstd default would accept 128 MB.
+ * Other encodings are rejected with 415, and a body that does not decode with 400.
+ */
+@Component
+public class CompressedRequestFilter extends OncePerRequestFilter {
+
+    private static final String SUPPORTED_ENCODINGS = "gzip, zstd";
+
+    private final long maxDecompressedBytes;
+    private final int zstdWindowLogMax;
+    private final ObjectMapper objectMapper;
+
+    public CompressedRequestFilter(@Value("${app.sync.upload.max-decompressed-size:64MB}") DataSize maxDecompressedSize,
+                                   @Value("${app.sync.upload.zstd-window-log-max:23}") int zstdWindowLogMax,
+                                   ObjectMapper objectMapper) {
+        this.maxDecompressedBytes = maxDecompressedSize.toBytes();
+        this.zstdWindowLogMax = zstdWindowLogMax;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/sync/")
+                || request.getHeader(HttpHeaders.CONTENT_ENCODING) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase(Locale.ROOT);
+        InputStream decoded;
+        try {
+            switch (encoding) {
+                case "identity" -> {
+                    chain.doFilter(request, response);
+                    return;
+                }
+                case "gzip", "x-gzip" -> decoded = new GZIPInputStream(request.getInputStream(), 8192);
+                case "zstd" -> decoded = new ZstdInputStream(request.getInputStream()).setLongMax(zstdWindowLogMax);
+                default -> {
+                    response.setHeader("Accept-Encoding", SUPPORTED_ENCODINGS);
+                    writeError(response, HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + encoding);
+                    return;
+                }
+            }
+        } catch (ZipException | ZstdIOException e) {
+            // GZIPInputStream reads the header up front
+            writeError(response, HttpStatus.BAD_REQUEST, "Malformed " + encoding + " request body");
+            return;
+        }
+
+        try (InputStream body = new BoundedInputStream(decoded, maxDecompressedBytes)) {
+            chain.doFilter(new DecodedRequest(request, body), response);
+        }
+    }
+
+    // Filters run outside the handler, so ErrorController cannot shape these responses
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ErrorDto errorDto = ErrorDto.builder()
+                .statusCode(status.value())
+                .errorMessage(message)
+                .build();
+        objectMapper.writeValue(response.getOutputStream(), errorDto);
+    }
+
+    // Presents the decoded body as if it had been sent uncompressed, with no known length
+    private static final class DecodedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+
+        DecodedRequest(HttpServletRequest request, InputStream decoded) {
+            super(request);
+            this.body = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    return eof(decoded.read());
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return eof(decoded.read(b, off, len));
+                }
+
+                private int eof(int result) {
+                    if (result < 0) {
+                        finished = true;
+                    }
+                    return result;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The decoded body never waits on the network, so it is readable straight away
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(body, charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHidden(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> names = Collections.list(super.getHeaderNames());
+            names.removeIf(DecodedRequest::isHidden);
+            return Collections.enumeration(names);
+        }
+
+        private static boolean isHidden(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    // Fails the read once more than the limit has come out of the decoder, and reports corrupt input as a bad request
+    static final class BoundedInputStream extends InputStream {
+
+        private final InputStream in;
+        private final long limit;
+        private long count;
+
+        BoundedInputStream(InputStream in, long limit) {
+            this.in = in;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b;
+            try {
+                b = in.read();
+            } catch (ZipException | ZstdIOException e) {
+                throw new InvalidSyncRequestException("Malformed compressed request body");
+            }
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (ZipException | ZstdIOException e) {
+                throw new InvalidSyncRequestException("Malformed compressed request body");
+            }
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) {
+            count += n;
+            if (count > limit) {
+                throw new UploadTooLargeException("Decompressed upload exceeds " + limit + " bytes");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.finance.tracker.sync.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binary alternatives to JSON for sync uploads and responses: application/x-jackson-smile
+ * and application/cbor, chosen by Content-Type and Accept, built with the application's
+ * Jackson settings and mapped onto the same DTOs. They are appended after the JSON
+ * converter so a client that accepts anything keeps getting JSON.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class SyncWireFormatConfig implements WebMvcConfigurer {
+
+    // Boot's builder bean is prototype-scoped, so each converter gets a fresh one
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> builders;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                builders.getObject().factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                builders.getObject().factory(new CBORFactory()).build()));
+    }
+}
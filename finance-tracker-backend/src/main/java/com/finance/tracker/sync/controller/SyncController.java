@@ -1,18 +1,29 @@
 package com.finance.tracker.sync.controller;
 
 import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
 import com.finance.tracker.sync.domain.dtos.ScanResponse;
 import com.finance.tracker.sync.domain.dtos.ScanStartResponse;
+import com.finance.tracker.sync.domain.dtos.SyncDigestResponse;
 import com.finance.tracker.sync.domain.dtos.SyncMetadataResponse;
+import com.finance.tracker.sync.service.IngestAdmissionService;
+import com.finance.tracker.sync.service.ScanProgressService;
+import com.finance.tracker.sync.service.SyncDigestService;
 import com.finance.tracker.sync.service.SyncService;
 import com.finance.tracker.transactions.domain.BatchSyncRequest;
 import com.finance.tracker.transactions.domain.BatchSyncResponse;
+import com.finance.tracker.transactions.domain.ScanChunkRequest;
 import com.finance.tracker.transactions.service.TransactionBatchService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -22,6 +33,9 @@ public class SyncController {
 
     private final SyncService syncService;
     private final TransactionBatchService batchService;
+    private final ScanProgressService progressService;
+    private final SyncDigestService digestService;
+    private final IngestAdmissionService admissionService;
 
     @GetMapping("/latest-timestamp")
     public ResponseEntity<SyncMetadataResponse> getMetadata(
@@ -31,6 +45,17 @@ public class SyncController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/digest")
+    public ResponseEntity<SyncDigestResponse> getDigest(
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestParam(value = "from", defaultValue = "0") long from,
+            @RequestParam(value = "to", required = false) Long to,
+            @RequestParam(value = "bucketBits", required = false) Integer bucketBits) {
+
+        SyncDigestResponse response = digestService.digest(userId, from, to, bucketBits);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/start")
     public ResponseEntity<ScanStartResponse> startScan(
             @RequestHeader("X-User-Id") UUID userId) {
@@ -58,6 +83,56 @@ public class SyncController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/cancel")
+    public ResponseEntity<Void> cancelScan(
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestParam("scanId") UUID scanId) {
+
+        batchService.cancelScan(userId, scanId);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/scans/{scanId}")
+    public ResponseEntity<ScanResponse> getScan(
+            @RequestHeader("X-User-Id") UUID userId,
+            @PathVariable("scanId") UUID scanId) {
+
+        ScanResponse response = syncService.getScan(userId, scanId);
+        return ResponseEntity.ok(response);
+    }
+
+    // One numbered part of a chunked scan; re-sending a chunk already applied is a no-op
+    @PutMapping("/scans/{scanId}/chunks/{chunkIndex}")
+    public ResponseEntity<ScanChunkResponse> uploadChunk(
+            @RequestHeader("X-User-Id") UUID userId,
+            @PathVariable("scanId") UUID scanId,
+            @PathVariable("chunkIndex") int chunkIndex,
+            @RequestBody ScanChunkRequest request) {
+
+        try (IngestAdmissionService.Permit permit = admissionService.admit(userId, size(request.smsList()))) {
+            ScanChunkResponse response = batchService.uploadChunk(userId, scanId, chunkIndex, request);
+            return ResponseEntity.ok(response);
+        }
+    }
+
+    @PostMapping("/scans/{scanId}/commit")
+    public ResponseEntity<ScanResponse> commitChunkedScan(
+            @RequestHeader("X-User-Id") UUID userId,
+            @PathVariable("scanId") UUID scanId,
+            @RequestParam("chunkCount") int chunkCount) {
+
+        ScanResponse response = syncService.commitChunkedScan(userId, scanId, chunkCount);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping(value = "/scans/{scanId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamScanProgress(
+            @RequestHeader("X-User-Id") UUID userId,
+            @PathVariable("scanId") UUID scanId) {
+
+        return progressService.subscribe(userId, scanId);
+    }
+
     @PutMapping("/latest-timestamp")
     public ResponseEntity<SyncMetadataResponse> updateMetadata(
             @RequestHeader("X-User-Id") UUID userId, @RequestParam("timestamp") long timestamp) {
@@ -70,11 +145,50 @@ public class SyncController {
     // Parse SMS Messages in Batch
     // -----------------------------------------------------
 
+    // Admitted before the body is bound, so an upload that waits or is rejected never holds its
+    // messages in memory. X-Sms-Count bills it up front; any messages past it are billed once read
     @PostMapping("/batch-upload")
     public ResponseEntity<BatchSyncResponse> uploadBatch(
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestHeader(value = "X-Sms-Count", required = false) Integer smsCount,
+            InputStream body) {
+        int declared = smsCount == null ? 0 : Math.max(0, smsCount);
+        try (IngestAdmissionService.Permit permit = admissionService.admit(userId, declared)) {
+            BatchSyncRequest request = batchService.readBatch(body);
+            permit.charge(size(request.smsList()) - declared);
+            BatchSyncResponse response = batchService.processBatch(userId, request);
+            return ResponseEntity.ok(response);
+        }
+    }
+
+    // Same upload processed by a queue worker; poll /scans/{scanId} or stream /scans/{scanId}/events
+    @PostMapping("/batch-upload/async")
+    public ResponseEntity<ScanResponse> uploadBatchAsync(
             @RequestHeader("X-User-Id") UUID userId,
             @RequestBody BatchSyncRequest request) {
-        BatchSyncResponse response = batchService.processBatch(userId, request);
-        return ResponseEntity.ok(response);
+        // Processed by a worker, so only the rate applies here
+        admissionService.throttle(userId, size(request.smsList()));
+        ScanResponse response = batchService.enqueueBatch(userId, request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/sync/scans/" + response.id()))
+                .body(response);
+    }
+
+    // Same upload as one SmsRequest JSON object per line, for syncs too large to bind in memory
+    @PostMapping(value = "/batch-upload", consumes = "application/x-ndjson")
+    public ResponseEntity<BatchSyncResponse> uploadBatchStream(
+            @RequestHeader("X-User-Id") UUID userId,
+            @RequestParam("scanId") UUID scanId,
+            InputStream body) {
+        // The line count is only known once the stream is read, so it is billed afterwards
+        try (IngestAdmissionService.Permit permit = admissionService.admit(userId, 0)) {
+            BatchSyncResponse response = batchService.processStream(userId, scanId, body);
+            permit.charge(response.newCount() + response.duplicateCount() + response.failedToParse());
+            return ResponseEntity.ok(response);
+        }
+    }
+
+    private static int size(List<?> smsList) {
+        return smsList == null ? 0 : smsList.size();
     }
 }
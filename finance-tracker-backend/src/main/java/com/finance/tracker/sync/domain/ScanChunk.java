@@ -0,0 +1,14 @@
+package com.finance.tracker.sync.domain;
+
+/**
+ * Outcome of one numbered chunk of a scan, recorded once so a re-sent chunk is not processed again.
+ */
+public record ScanChunk(
+        int chunkIndex,
+        int totalSmsProcessed,
+        int transactionsCreated,
+        int duplicatesSkipped,
+        int failedToParse,
+        long latestTimestamp
+) {
+}
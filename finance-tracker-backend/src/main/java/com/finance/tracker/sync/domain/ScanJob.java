@@ -0,0 +1,15 @@
+package com.finance.tracker.sync.domain;
+
+import java.util.UUID;
+
+/**
+ * An upload waiting in, or claimed from, the scan_jobs queue. The payload is the
+ * JSON array of SmsRequest exactly as it was accepted.
+ */
+public record ScanJob(
+        UUID scanId,
+        UUID userId,
+        String payload,
+        int attempts
+) {
+}
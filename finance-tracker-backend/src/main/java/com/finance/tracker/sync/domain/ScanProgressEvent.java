@@ -0,0 +1,16 @@
+package com.finance.tracker.sync.domain;
+
+import com.finance.tracker.sync.domain.dtos.ScanResponse;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class ScanProgressEvent extends ApplicationEvent {
+
+    private final ScanResponse scan;
+
+    public ScanProgressEvent(Object source, ScanResponse scan) {
+        super(source);
+        this.scan = scan;
+    }
+}
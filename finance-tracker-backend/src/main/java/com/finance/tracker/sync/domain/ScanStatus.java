@@ -2,6 +2,14 @@ package com.finance.tracker.sync.domain;
 
 public enum ScanStatus {
     STARTED,
+    // Upload accepted into the scan_jobs queue, waiting for a worker
+    QUEUED,
+    // A worker is parsing the upload; counters in ScanHistory grow window by window
+    PROCESSING,
     COMPLETED,
-    FAILED
-}
\ No newline at end of file
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
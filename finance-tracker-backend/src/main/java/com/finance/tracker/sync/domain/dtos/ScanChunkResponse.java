@@ -0,0 +1,18 @@
+package com.finance.tracker.sync.domain.dtos;
+
+import java.util.UUID;
+
+public record ScanChunkResponse(
+        UUID scanId,
+        int chunkIndex,
+        // True when the chunk had already been applied and this upload was skipped
+        boolean replayed,
+        int totalSmsProcessed,
+        int transactionsCreated,
+        int duplicatesSkipped,
+        int failedToParse,
+        int chunksReceived,
+        // First chunk not yet received; a client resumes from here
+        int nextChunk
+) {
+}
@@ -1,6 +1,7 @@
 package com.finance.tracker.sync.domain.dtos;
 
 import com.finance.tracker.sync.domain.ScanStatus;
+import com.finance.tracker.sync.domain.entity.ScanHistory;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -10,9 +11,28 @@ public record ScanResponse(
         ScanStatus status,
         OffsetDateTime startTime,
         OffsetDateTime endTime,
+        int smsReceived,
         int totalSmsProcessed,
         int transactionsCreated,
         int duplicatesSkipped,
-        int failedToParse
+        int failedToParse,
+        int chunksReceived,
+        int nextChunk
 ) {
+
+    public static ScanResponse from(ScanHistory history) {
+        return new ScanResponse(
+                history.getId(),
+                history.getStatus(),
+                history.getStartTime(),
+                history.getEndTime(),
+                history.getSmsReceived(),
+                history.getTotalSmsProcessed(),
+                history.getTransactionsCreated(),
+                history.getDuplicatesSkipped(),
+                history.getFailedToParse(),
+                history.getChunksReceived(),
+                history.getNextChunk()
+        );
+    }
 }
@@ -0,0 +1,14 @@
+package com.finance.tracker.sync.domain.dtos;
+
+/**
+ * Known-SMS digest for the window [from, to) of SMS timestamps; see FingerprintRangeDigest.
+ * counts[i] and hashes[i] describe the fingerprints whose top bucketBits bits equal i.
+ */
+public record SyncDigestResponse(
+    long from,
+    Long to,
+    long knownSms,
+    int bucketBits,
+    int[] counts,
+    long[] hashes
+) {}
@@ -33,6 +33,17 @@ public class ScanHistory {
     @Column(name = "end_time")
     private OffsetDateTime endTime;
 
+    // Messages in an upload accepted for async processing; the counters below catch up to it
+    @Column(name = "sms_received")
+    private int smsReceived;
+
+    // Chunked uploads: chunks applied so far, and the first index not yet received (the resume point)
+    @Column(name = "chunks_received")
+    private int chunksReceived;
+
+    @Column(name = "next_chunk")
+    private int nextChunk;
+
     // Detailed stats for the developer dashboard
     private int totalSmsProcessed;
     private int transactionsCreated;
@@ -0,0 +1,15 @@
+package com.finance.tracker.sync.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class IngestThrottledException extends RuntimeException {
+
+    // Seconds the client should wait before retrying, sent as Retry-After
+    private final long retryAfterSeconds;
+
+    public IngestThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.finance.tracker.sync.exceptions;
+
+public class UploadTooLargeException extends RuntimeException {
+    public UploadTooLargeException(String message) {
+        super(message);
+    }
+}
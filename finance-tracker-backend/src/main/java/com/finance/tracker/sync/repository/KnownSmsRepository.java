@@ -0,0 +1,63 @@
+package com.finance.tracker.sync.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Fingerprint and timestamp of every SMS the server has turned into a transaction for a user,
+ * or found already stored. Messages that did not parse are left out so the client sends them
+ * again and a later parser can still pick them up.
+ */
+@Repository
+@RequiredArgsConstructor
+public class KnownSmsRepository {
+
+    private static final String RECORD_SQL = """
+        INSERT INTO sync_known_sms (user_id, fingerprint, sms_timestamp)
+        SELECT ?, k.fingerprint, k.sms_timestamp
+        FROM unnest(?, ?) AS k(fingerprint, sms_timestamp)
+        ON CONFLICT (user_id, fingerprint) DO NOTHING
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // One statement for the whole window: the two arrays are unnested side by side
+    public void recordAll(UUID userId, Map<UUID, Long> timestampsByFingerprint) {
+        if (timestampsByFingerprint.isEmpty()) {
+            return;
+        }
+        UUID[] fingerprints = new UUID[timestampsByFingerprint.size()];
+        Long[] timestamps = new Long[fingerprints.length];
+        int i = 0;
+        for (Map.Entry<UUID, Long> entry : timestampsByFingerprint.entrySet()) {
+            fingerprints[i] = entry.getKey();
+            timestamps[i++] = entry.getValue() == null ? 0L : entry.getValue();
+        }
+        jdbcTemplate.update(RECORD_SQL, ps -> {
+            ps.setObject(1, userId);
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", fingerprints));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", timestamps));
+        });
+    }
+
+    // SMS timestamps in [from, to)
+    public int count(UUID userId, long from, long to) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM sync_known_sms WHERE user_id = ? AND sms_timestamp >= ? AND sms_timestamp < ?",
+                Integer.class, userId, from, to);
+        return count == null ? 0 : count;
+    }
+
+    public void forEachInWindow(UUID userId, long from, long to, Consumer<UUID> action) {
+        jdbcTemplate.query(
+                "SELECT fingerprint FROM sync_known_sms WHERE user_id = ? AND sms_timestamp >= ? AND sms_timestamp < ?",
+                (RowCallbackHandler) rs -> action.accept(rs.getObject(1, UUID.class)),
+                userId, from, to);
+    }
+}
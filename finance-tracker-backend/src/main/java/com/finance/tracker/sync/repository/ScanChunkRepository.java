@@ -0,0 +1,88 @@
+package com.finance.tracker.sync.repository;
+
+import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Outcome of every chunk applied to a chunked scan, keyed by (scan_id, chunk_index).
+ * The primary key makes recording a chunk idempotent; rows are removed when the scan is committed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScanChunkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Returns false if the chunk was already recorded
+    public boolean insert(UUID scanId, ScanChunk chunk) {
+        String sql = """
+            INSERT INTO scan_chunks (scan_id, chunk_index, total_sms_processed, transactions_created,
+                                     duplicates_skipped, failed_to_parse, latest_timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (scan_id, chunk_index) DO NOTHING
+        """;
+        return jdbcTemplate.update(sql, scanId, chunk.chunkIndex(), chunk.totalSmsProcessed(),
+                chunk.transactionsCreated(), chunk.duplicatesSkipped(), chunk.failedToParse(),
+                chunk.latestTimestamp()) == 1;
+    }
+
+    public Optional<ScanChunk> find(UUID scanId, int chunkIndex) {
+        String sql = """
+            SELECT chunk_index, total_sms_processed, transactions_created, duplicates_skipped,
+                   failed_to_parse, latest_timestamp
+            FROM scan_chunks
+            WHERE scan_id = ? AND chunk_index = ?
+        """;
+        return jdbcTemplate.query(sql,
+                (rs, i) -> new ScanChunk(
+                        rs.getInt("chunk_index"),
+                        rs.getInt("total_sms_processed"),
+                        rs.getInt("transactions_created"),
+                        rs.getInt("duplicates_skipped"),
+                        rs.getInt("failed_to_parse"),
+                        rs.getLong("latest_timestamp")),
+                scanId, chunkIndex).stream().findFirst();
+    }
+
+    public List<Integer> findChunkIndexes(UUID scanId) {
+        return jdbcTemplate.queryForList(
+                "SELECT chunk_index FROM scan_chunks WHERE scan_id = ? ORDER BY chunk_index",
+                Integer.class, scanId);
+    }
+
+    // Totals of chunks 0..chunkCount-1; a chunk uploaded past the declared count is left out
+    public EndScanRequest sumChunks(UUID scanId, int chunkCount) {
+        String sql = """
+            SELECT COALESCE(SUM(total_sms_processed), 0), COALESCE(SUM(transactions_created), 0),
+                   COALESCE(SUM(duplicates_skipped), 0), COALESCE(SUM(failed_to_parse), 0)
+            FROM scan_chunks
+            WHERE scan_id = ? AND chunk_index < ?
+        """;
+        return jdbcTemplate.queryForObject(sql,
+                (rs, i) -> EndScanRequest.builder()
+                        .totalSmsProcessed(rs.getInt(1))
+                        .transactionsCreated(rs.getInt(2))
+                        .duplicatesSkipped(rs.getInt(3))
+                        .failedToParse(rs.getInt(4))
+                        .build(),
+                scanId, chunkCount);
+    }
+
+    public long findLatestTimestamp(UUID scanId, int chunkCount) {
+        Long latest = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(latest_timestamp), 0) FROM scan_chunks WHERE scan_id = ? AND chunk_index < ?",
+                Long.class, scanId, chunkCount);
+        return latest == null ? 0L : latest;
+    }
+
+    public void deleteAll(UUID scanId) {
+        jdbcTemplate.update("DELETE FROM scan_chunks WHERE scan_id = ?", scanId);
+    }
+}
@@ -1,10 +1,90 @@
 package com.finance.tracker.sync.repository;
 
+import com.finance.tracker.sync.domain.ScanStatus;
 import com.finance.tracker.sync.domain.entity.ScanHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 public interface ScanHistoryRepository extends JpaRepository<ScanHistory, UUID> {
     java.util.Optional<ScanHistory> findFirstByUserIdAndStatusOrderByStartTimeDesc(UUID userId, com.finance.tracker.sync.domain.ScanStatus status);
+
+    // Only one caller can move a scan out of the expected status; returns 0 if it already left it
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE ScanHistory h
+        SET h.status = com.finance.tracker.sync.domain.ScanStatus.COMPLETED, h.endTime = :endTime,
+            h.totalSmsProcessed = :totalSmsProcessed, h.transactionsCreated = :transactionsCreated,
+            h.duplicatesSkipped = :duplicatesSkipped, h.failedToParse = :failedToParse
+        WHERE h.id = :id AND h.status = :expected
+    """)
+    int completeIfInStatus(@Param("id") UUID id,
+                           @Param("expected") ScanStatus expected,
+                           @Param("endTime") OffsetDateTime endTime,
+                           @Param("totalSmsProcessed") int totalSmsProcessed,
+                           @Param("transactionsCreated") int transactionsCreated,
+                           @Param("duplicatesSkipped") int duplicatesSkipped,
+                           @Param("failedToParse") int failedToParse);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ScanHistory h SET h.status = :to WHERE h.id = :id AND h.status = :from")
+    int transition(@Param("id") UUID id, @Param("from") ScanStatus from, @Param("to") ScanStatus to);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE ScanHistory h
+        SET h.status = com.finance.tracker.sync.domain.ScanStatus.QUEUED, h.smsReceived = :smsReceived,
+            h.totalSmsProcessed = 0, h.transactionsCreated = 0, h.duplicatesSkipped = 0, h.failedToParse = 0
+        WHERE h.id = :id AND h.status = com.finance.tracker.sync.domain.ScanStatus.STARTED
+    """)
+    int queueIfStarted(@Param("id") UUID id, @Param("smsReceived") int smsReceived);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE ScanHistory h
+        SET h.totalSmsProcessed = :totalSmsProcessed, h.transactionsCreated = :transactionsCreated,
+            h.duplicatesSkipped = :duplicatesSkipped, h.failedToParse = :failedToParse
+        WHERE h.id = :id AND h.status = com.finance.tracker.sync.domain.ScanStatus.PROCESSING
+    """)
+    int recordProgress(@Param("id") UUID id,
+                       @Param("totalSmsProcessed") int totalSmsProcessed,
+                       @Param("transactionsCreated") int transactionsCreated,
+                       @Param("duplicatesSkipped") int duplicatesSkipped,
+                       @Param("failedToParse") int failedToParse);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE ScanHistory h
+        SET h.status = com.finance.tracker.sync.domain.ScanStatus.FAILED, h.endTime = :endTime
+        WHERE h.id = :id AND h.status IN (com.finance.tracker.sync.domain.ScanStatus.QUEUED,
+                                          com.finance.tracker.sync.domain.ScanStatus.PROCESSING)
+    """)
+    int failIfQueued(@Param("id") UUID id, @Param("endTime") OffsetDateTime endTime);
+
+    // Adds one chunk's counts; 0 if the scan is no longer STARTED. Locks the scan row until commit,
+    // which serializes chunk records of the same scan
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE ScanHistory h
+        SET h.totalSmsProcessed = h.totalSmsProcessed + :totalSmsProcessed,
+            h.transactionsCreated = h.transactionsCreated + :transactionsCreated,
+            h.duplicatesSkipped = h.duplicatesSkipped + :duplicatesSkipped,
+            h.failedToParse = h.failedToParse + :failedToParse,
+            h.chunksReceived = h.chunksReceived + 1
+        WHERE h.id = :id AND h.status = com.finance.tracker.sync.domain.ScanStatus.STARTED
+    """)
+    int addChunk(@Param("id") UUID id,
+                 @Param("totalSmsProcessed") int totalSmsProcessed,
+                 @Param("transactionsCreated") int transactionsCreated,
+                 @Param("duplicatesSkipped") int duplicatesSkipped,
+                 @Param("failedToParse") int failedToParse);
+
+    // Moves the resume point; call after addChunk in the same transaction, under its row lock
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ScanHistory h SET h.nextChunk = :nextChunk WHERE h.id = :id")
+    int updateNextChunk(@Param("id") UUID id, @Param("nextChunk") int nextChunk);
 }
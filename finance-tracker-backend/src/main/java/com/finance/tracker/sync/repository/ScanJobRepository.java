@@ -0,0 +1,115 @@
+package com.finance.tracker.sync.repository;
+
+import com.finance.tracker.sync.domain.ScanJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable queue of uploads accepted for asynchronous processing, one row per scan in
+ * scan_jobs. Workers on any instance claim rows with FOR UPDATE SKIP LOCKED and hold
+ * them under a lease; a row whose lease ran out (the worker died) is claimed again.
+ * Finished jobs are deleted, jobs out of attempts stay FAILED with their last error.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScanJobRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.sync.async.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${app.sync.async.retry-backoff:PT10S}")
+    private Duration retryBackoff;
+
+    // Returns false if the scan already has a job
+    public boolean enqueue(UUID scanId, UUID userId, String payload) {
+        String sql = """
+            INSERT INTO scan_jobs (scan_id, user_id, payload, status, attempts, run_after, created_at)
+            VALUES (?, ?, ?, 'QUEUED', 0, now(), now())
+            ON CONFLICT (scan_id) DO NOTHING
+        """;
+        return jdbcTemplate.update(sql, scanId, userId, payload) == 1;
+    }
+
+    public Optional<ScanJob> claimNext() {
+        String sql = """
+            UPDATE scan_jobs
+            SET status = 'RUNNING', attempts = attempts + 1, locked_until = now() + ?::interval
+            WHERE scan_id = (
+                SELECT scan_id FROM scan_jobs
+                WHERE (status = 'QUEUED' AND run_after <= now())
+                   OR (status = 'RUNNING' AND locked_until < now())
+                ORDER BY created_at
+                LIMIT 1
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING scan_id, user_id, payload, attempts
+        """;
+        List<ScanJob> claimed = jdbcTemplate.query(sql,
+                (rs, i) -> new ScanJob(
+                        rs.getObject("scan_id", UUID.class),
+                        rs.getObject("user_id", UUID.class),
+                        rs.getString("payload"),
+                        rs.getInt("attempts")),
+                interval(lease));
+        return claimed.stream().findFirst();
+    }
+
+    // Called between windows so a long scan keeps its claim
+    public void extendLease(UUID scanId) {
+        jdbcTemplate.update(
+                "UPDATE scan_jobs SET locked_until = now() + ?::interval WHERE scan_id = ? AND status = 'RUNNING'",
+                interval(lease), scanId);
+    }
+
+    public void delete(UUID scanId) {
+        jdbcTemplate.update("DELETE FROM scan_jobs WHERE scan_id = ?", scanId);
+    }
+
+    // Back in the queue after a backoff that grows with each attempt
+    public void retry(UUID scanId, int attempts, String error) {
+        jdbcTemplate.update("""
+            UPDATE scan_jobs
+            SET status = 'QUEUED', locked_until = NULL, last_error = ?, run_after = now() + ?::interval
+            WHERE scan_id = ?
+        """, error, interval(retryBackoff.multipliedBy(attempts)), scanId);
+    }
+
+    public void fail(UUID scanId, String error) {
+        jdbcTemplate.update(
+                "UPDATE scan_jobs SET status = 'FAILED', locked_until = NULL, last_error = ? WHERE scan_id = ?",
+                error, scanId);
+    }
+
+    // Only a job no worker has claimed yet can be withdrawn
+    public boolean deleteIfQueued(UUID scanId, UUID userId) {
+        return jdbcTemplate.update(
+                "DELETE FROM scan_jobs WHERE scan_id = ? AND user_id = ? AND status = 'QUEUED'",
+                scanId, userId) == 1;
+    }
+
+    // A claimed job is stopped by its worker, which checks the flag between windows
+    public boolean requestCancel(UUID scanId, UUID userId) {
+        return jdbcTemplate.update(
+                "UPDATE scan_jobs SET cancel_requested = true WHERE scan_id = ? AND user_id = ? AND status = 'RUNNING'",
+                scanId, userId) == 1;
+    }
+
+    public boolean isCancelRequested(UUID scanId) {
+        return Boolean.TRUE.equals(jdbcTemplate.query(
+                "SELECT cancel_requested FROM scan_jobs WHERE scan_id = ?",
+                rs -> rs.next() && rs.getBoolean(1), scanId));
+    }
+
+    private static String interval(Duration duration) {
+        return duration.toMillis() + " milliseconds";
+    }
+}
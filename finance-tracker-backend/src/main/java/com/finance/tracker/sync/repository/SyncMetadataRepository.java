@@ -2,10 +2,25 @@ package com.finance.tracker.sync.repository;
 
 import com.finance.tracker.sync.domain.entity.SyncMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.UUID;
 
 @Repository
 public interface SyncMetadataRepository extends JpaRepository<SyncMetadata, UUID> {
-}
\ No newline at end of file
+
+    // Creates the row on first use and only ever moves the bookmark forward; returns the bookmark now stored
+    @Transactional
+    @Query(value = """
+        INSERT INTO sync_metadata (user_id, last_scanned_sms_date, updated_at)
+        VALUES (:userId, :timestamp, now())
+        ON CONFLICT (user_id) DO UPDATE
+        SET last_scanned_sms_date = GREATEST(sync_metadata.last_scanned_sms_date, EXCLUDED.last_scanned_sms_date),
+            updated_at = now()
+        RETURNING last_scanned_sms_date
+    """, nativeQuery = true)
+    long advanceBookmark(@Param("userId") UUID userId, @Param("timestamp") long timestamp);
+}
@@ -0,0 +1,313 @@
+package com.finance.tracker.sync.service;
+
+import com.finance.tracker.sync.exceptions.IngestThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for the SMS ingest endpoints, so one user's backfill cannot take the CPU
+ * and connection pool from everyone else's interactive requests.
+ * <ul>
+ *   <li>Each user has a token bucket of {@code app.ingest.user.messages-per-second}, holding at
+ *   most {@code app.ingest.user.burst} messages. An upload larger than the burst is let through
+ *   when the bucket is full and leaves it in debt, so the next upload waits it out.</li>
+ *   <li>At most {@code app.ingest.max-concurrent} uploads are processed at once, below the
+ *   connection pool size so interactive endpoints always find a connection.</li>
+ *   <li>Uploads waiting for a slot are served in weighted fair order: each user's uploads are
+ *   stamped with a virtual finish time advanced by their message count, so a user with a large
+ *   backlog is served after users with small ones rather than ahead of them.</li>
+ * </ul>
+ * An upload over its user's rate, or that cannot get a slot within {@code app.ingest.max-wait},
+ * is rejected with 429 and a Retry-After.
+ */
+@Service
+public class IngestAdmissionService {
+
+    private final double messagesPerSecond;
+    private final long burst;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Duration maxWait;
+    private final Cache<UUID, TokenBucket> buckets;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+            Comparator.comparingDouble((Waiter w) -> w.finish).thenComparingLong(w -> w.sequence));
+    // Virtual finish time of each user's latest upload; entries behind the virtual clock are dropped
+    private final Map<UUID, Double> lastFinish = new HashMap<>();
+    private double virtualTime;
+    private long sequence;
+    private int active;
+
+    private final Counter admitted;
+    private final Counter rateLimited;
+    private final Counter queueFull;
+    private final Counter timedOut;
+    private final Timer queueWait;
+
+    public IngestAdmissionService(@Value("${app.ingest.user.messages-per-second:500}") double messagesPerSecond,
+                                  @Value("${app.ingest.user.burst:20000}") long burst,
+                                  @Value("${app.ingest.max-concurrent:4}") int maxConcurrent,
+                                  @Value("${app.ingest.max-queued:64}") int maxQueued,
+                                  @Value("${app.ingest.max-wait:PT10S}") Duration maxWait,
+                                  @Value("${app.ingest.user.idle-expiry:PT10M}") Duration idleExpiry,
+                                  MeterRegistry meterRegistry) {
+        this.messagesPerSecond = messagesPerSecond;
+        this.burst = burst;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+        // An idle user's bucket would have refilled anyway
+        this.buckets = Caffeine.newBuilder().expireAfterAccess(idleExpiry).build();
+
+        this.admitted = admissions(meterRegistry, "admitted");
+        this.rateLimited = admissions(meterRegistry, "rate_limited");
+        this.queueFull = admissions(meterRegistry, "queue_full");
+        this.timedOut = admissions(meterRegistry, "timed_out");
+        this.queueWait = Timer.builder("ingest.admission.wait")
+                .description("Time uploads waited for a processing slot")
+                .register(meterRegistry);
+        Gauge.builder("ingest.active", this, service -> service.active)
+                .description("Uploads being processed")
+                .register(meterRegistry);
+        Gauge.builder("ingest.queued", this, service -> service.waiting.size())
+                .description("Uploads waiting for a processing slot")
+                .register(meterRegistry);
+    }
+
+    private static Counter admissions(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ingest.admission")
+                .description("Admission decisions for ingest uploads")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Charges the user's bucket for the messages and waits for a processing slot. Close the
+     * permit when the upload is done. Pass 0 when the size is not known up front and
+     * {@link Permit#charge} the real count afterwards.
+     */
+    public Permit admit(UUID userId, int messages) {
+        throttle(userId, messages);
+        try {
+            acquireSlot(userId, messages);
+        } catch (IngestThrottledException e) {
+            // Nothing was processed, so the messages are not billed
+            chargeBucket(userId, -messages);
+            throw e;
+        }
+        return new Permit(userId);
+    }
+
+    /**
+     * Rate limit only, for uploads that are queued and processed by a worker instead of the caller.
+     */
+    public void throttle(UUID userId, int messages) {
+        long waitNanos = buckets.get(userId, id -> new TokenBucket(messagesPerSecond, burst, System.nanoTime()))
+                .tryTake(messages, System.nanoTime());
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            throw new IngestThrottledException("Upload rate limit exceeded for user", toRetryAfter(waitNanos));
+        }
+    }
+
+    private void acquireSlot(UUID userId, int messages) {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (active < maxConcurrent && waiting.isEmpty()) {
+                active++;
+                stamp(userId, messages);
+                admitted.increment();
+                return;
+            }
+            if (waiting.size() >= maxQueued) {
+                queueFull.increment();
+                throw new IngestThrottledException("Too many uploads in progress", toRetryAfter(maxWait.toNanos()));
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition(), sequence++);
+            Double previousFinish = lastFinish.get(userId);
+            double startTag = Math.max(virtualTime, previousFinish == null ? 0.0 : previousFinish);
+            waiter.start = startTag;
+            waiter.finish = startTag + Math.max(1, messages);
+            lastFinish.put(userId, waiter.finish);
+            waiting.add(waiter);
+
+            long remaining = maxWait.toNanos();
+            boolean interrupted = false;
+            while (!waiter.granted && remaining > 0 && !interrupted) {
+                try {
+                    remaining = waiter.signal.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (!waiter.granted) {
+                waiting.remove(waiter);
+                // Never served, so its messages must not push back the user's next upload. A later
+                // upload of the same user has already moved the tag past this one and keeps it
+                if (lastFinish.getOrDefault(userId, 0.0) == waiter.finish) {
+                    if (previousFinish == null) {
+                        lastFinish.remove(userId);
+                    } else {
+                        lastFinish.put(userId, previousFinish);
+                    }
+                }
+                timedOut.increment();
+                throw new IngestThrottledException("Timed out waiting for an upload slot", toRetryAfter(maxWait.toNanos()));
+            }
+            admitted.increment();
+        } finally {
+            lock.unlock();
+            queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Caller holds the lock; an upload admitted straight away still advances its user's finish time
+    private void stamp(UUID userId, int messages) {
+        double startTag = Math.max(virtualTime, lastFinish.getOrDefault(userId, 0.0));
+        virtualTime = startTag;
+        lastFinish.put(userId, startTag + Math.max(1, messages));
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            Waiter next = waiting.poll();
+            if (next == null) {
+                active--;
+            } else {
+                // The slot passes straight to the waiter with the earliest finish time
+                virtualTime = Math.max(virtualTime, next.start);
+                next.granted = true;
+                next.signal.signal();
+            }
+            lastFinish.values().removeIf(finish -> finish <= virtualTime);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void chargeAfter(UUID userId, int messages) {
+        chargeBucket(userId, messages);
+        lock.lock();
+        try {
+            lastFinish.put(userId, Math.max(virtualTime, lastFinish.getOrDefault(userId, 0.0)) + messages);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void chargeBucket(UUID userId, int messages) {
+        TokenBucket bucket = buckets.getIfPresent(userId);
+        if (bucket != null) {
+            bucket.charge(messages, System.nanoTime());
+        }
+    }
+
+    private static long toRetryAfter(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * A processing slot held for one upload.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final UUID userId;
+        private boolean closed;
+
+        private Permit(UUID userId) {
+            this.userId = userId;
+        }
+
+        // Bills messages counted while processing, for streamed uploads of unknown size
+        public void charge(int messages) {
+            if (messages > 0) {
+                chargeAfter(userId, messages);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Condition signal;
+        final long sequence;
+        double start;
+        double finish;
+        boolean granted;
+
+        Waiter(Condition signal, long sequence) {
+            this.signal = signal;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Messages a user may upload now. Refills continuously up to the burst size and may go
+     * negative, which is how an upload larger than the burst is paid for.
+     */
+    static final class TokenBucket {
+
+        private final double perNano;
+        private final long capacity;
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double perSecond, long capacity, long now) {
+            this.perNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        // 0 if the messages were taken, else nanoseconds until they would be
+        synchronized long tryTake(int messages, long now) {
+            refill(now);
+            double needed = Math.min(messages, capacity);
+            if (tokens >= needed) {
+                tokens -= messages;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) / perNano);
+        }
+
+        // Negative to refund
+        synchronized void charge(int messages, long now) {
+            refill(now);
+            tokens = Math.min(capacity, tokens - messages);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+        }
+    }
+}
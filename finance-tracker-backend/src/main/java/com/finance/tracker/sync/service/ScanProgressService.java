@@ -0,0 +1,132 @@
+package com.finance.tracker.sync.service;
+
+import com.finance.tracker.sync.domain.ScanProgressEvent;
+import com.finance.tracker.sync.domain.dtos.ScanResponse;
+import com.finance.tracker.sync.repository.ScanHistoryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-Sent Events for scan progress. A subscriber gets the scan's current state at
+ * once, then a "progress" event whenever this instance commits progress, and a refresh
+ * from the database every {@code app.sync.progress.refresh-interval} for scans processed
+ * on another instance. The stream ends when the scan is COMPLETED or FAILED.
+ */
+@Service
+@Slf4j
+public class ScanProgressService {
+
+    private final SyncService syncService;
+    private final ScanHistoryRepository scanHistoryRepository;
+    private final Duration timeout;
+    private final Map<UUID, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    public ScanProgressService(SyncService syncService,
+                               ScanHistoryRepository scanHistoryRepository,
+                               @Value("${app.sync.progress.timeout:PT10M}") Duration timeout,
+                               @Value("${app.sync.progress.refresh-interval:PT2S}") Duration refreshInterval) {
+        this.syncService = syncService;
+        this.scanHistoryRepository = scanHistoryRepository;
+        this.timeout = timeout;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-progress-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::refresh,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(UUID userId, UUID scanId) {
+        ScanResponse current = syncService.getScan(userId, scanId);
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        if (!current.status().isTerminal()) {
+            subscribers.computeIfAbsent(scanId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+            emitter.onCompletion(() -> remove(scanId, emitter));
+            emitter.onTimeout(() -> remove(scanId, emitter));
+            emitter.onError(e -> remove(scanId, emitter));
+        }
+        send(emitter, current);
+        return emitter;
+    }
+
+    // Progress is published inside the recording transaction: sending only after it commits keeps
+    // rolled-back progress off the stream, and handing the sends to the refresher thread keeps slow
+    // clients from holding the caller's connection and row lock
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onScanProgress(ScanProgressEvent event) {
+        try {
+            refresher.execute(() -> push(event.getScan()));
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the streams are being completed anyway
+        }
+    }
+
+    private void refresh() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            scanHistoryRepository.findAllById(subscribers.keySet())
+                    .forEach(history -> push(ScanResponse.from(history)));
+        } catch (RuntimeException e) {
+            log.warn("Scan progress refresh failed", e);
+        }
+    }
+
+    private void push(ScanResponse scan) {
+        Set<SseEmitter> emitters = subscribers.get(scan.id());
+        if (emitters == null) {
+            return;
+        }
+        emitters.forEach(emitter -> send(emitter, scan));
+    }
+
+    private void send(SseEmitter emitter, ScanResponse scan) {
+        // The emitter is not safe for concurrent sends: the refresher and subscribe both push
+        synchronized (emitter) {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(scan));
+                if (scan.status().isTerminal()) {
+                    emitter.complete();
+                    remove(scan.id(), emitter);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                remove(scan.id(), emitter);
+            }
+        }
+    }
+
+    private void remove(UUID scanId, SseEmitter emitter) {
+        subscribers.computeIfPresent(scanId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+    }
+}
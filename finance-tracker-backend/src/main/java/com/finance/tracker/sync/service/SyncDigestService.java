@@ -0,0 +1,51 @@
+package com.finance.tracker.sync.service;
+
+import com.finance.tracker.sync.domain.dtos.SyncDigestResponse;
+import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
+import com.finance.tracker.sync.repository.KnownSmsRepository;
+import com.finance.tracker.transactions.utilities.FingerprintRangeDigest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Sync handshake: what the server already holds for a window of SMS timestamps, as a
+ * {@link FingerprintRangeDigest}, so a re-syncing client uploads only the ranges that differ
+ * instead of its whole inbox or a wide overlap behind the bookmark. Ranges are sized to hold
+ * about {@code app.sync.digest.target-bucket-size} messages unless the client asks for a size.
+ */
+@Service
+public class SyncDigestService {
+
+    private final KnownSmsRepository knownSmsRepository;
+    private final int targetBucketSize;
+    private final int maxBucketBits;
+
+    public SyncDigestService(KnownSmsRepository knownSmsRepository,
+                             @Value("${app.sync.digest.target-bucket-size:4}") int targetBucketSize,
+                             @Value("${app.sync.digest.max-bucket-bits:16}") int maxBucketBits) {
+        this.knownSmsRepository = knownSmsRepository;
+        this.targetBucketSize = targetBucketSize;
+        this.maxBucketBits = Math.min(maxBucketBits, FingerprintRangeDigest.MAX_BUCKET_BITS);
+    }
+
+    public SyncDigestResponse digest(UUID userId, long from, Long to, Integer bucketBits) {
+        if (from < 0 || (to != null && to <= from)) {
+            throw new InvalidSyncRequestException("Invalid digest window: from=" + from + ", to=" + to);
+        }
+        if (bucketBits != null && (bucketBits < 0 || bucketBits > maxBucketBits)) {
+            throw new InvalidSyncRequestException("bucketBits must be between 0 and " + maxBucketBits);
+        }
+        long upper = to == null ? Long.MAX_VALUE : to;
+
+        int bits = bucketBits != null
+                ? bucketBits
+                : FingerprintRangeDigest.bucketBitsFor(knownSmsRepository.count(userId, from, upper),
+                        targetBucketSize, maxBucketBits);
+        FingerprintRangeDigest digest = new FingerprintRangeDigest(bits);
+        knownSmsRepository.forEachInWindow(userId, from, upper, digest::add);
+
+        return new SyncDigestResponse(from, to, digest.size(), bits, digest.counts(), digest.hashes());
+    }
+}
@@ -1,18 +1,66 @@
 package com.finance.tracker.sync.service;
 
 import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
 import com.finance.tracker.sync.domain.dtos.ScanResponse;
 import com.finance.tracker.sync.domain.dtos.ScanStartResponse;
 import com.finance.tracker.sync.domain.dtos.SyncMetadataResponse;
 
+import java.util.Optional;
 import java.util.UUID;
 
 public interface SyncService {
     public SyncMetadataResponse getMetadata(UUID userId);
     ScanStartResponse startScan(UUID userId);
 
+    /**
+     * Fails fast if the scan does not exist, belongs to another user or is no longer STARTED.
+     */
+    void requireOpenScan(UUID userId, UUID scanId);
+
+    ScanResponse getScan(UUID userId, UUID scanId);
+
+    /**
+     * STARTED -> QUEUED once an upload is accepted for asynchronous processing.
+     */
+    ScanResponse queueScan(UUID userId, UUID scanId, int smsReceived);
+
+    /**
+     * QUEUED -> PROCESSING when a worker claims the upload. A scan already PROCESSING is being
+     * retried after a failed attempt; returns false if the scan is in any other state.
+     */
+    boolean startProcessing(UUID scanId);
+
+    void recordProgress(UUID scanId, EndScanRequest progress);
+
+    /**
+     * PROCESSING or QUEUED -> STARTED after a cancel, so the scan can be uploaded again.
+     */
+    void reopenScan(UUID scanId);
+
+    void failScan(UUID scanId);
+
+    /**
+     * Completes a STARTED scan, or a PROCESSING one on behalf of the worker that processed it.
+     * A scan that is already COMPLETED is returned unchanged, so a retried finalize succeeds.
+     */
     ScanResponse finalizeScan(UUID userId, UUID scanId, EndScanRequest endScanRequest);
 
+    Optional<ScanChunk> findChunk(UUID scanId, int chunkIndex);
+
+    /**
+     * Records a processed chunk of a STARTED scan and adds its counts to the scan, once.
+     * If the chunk was recorded meanwhile, the stored outcome is returned as a replay.
+     */
+    ScanChunkResponse recordChunk(UUID userId, UUID scanId, ScanChunk chunk);
+
+    /**
+     * Completes a chunked scan once chunks 0 to chunkCount - 1 have all been recorded, and moves
+     * the bookmark to the latest SMS among them. Committing a COMPLETED scan again returns it unchanged.
+     */
+    ScanResponse commitChunkedScan(UUID userId, UUID scanId, int chunkCount);
+
     SyncMetadataResponse updateMetadata(UUID userId, long timestamp);
 
     ScanResponse endScan(UUID userId, UUID scanId);
@@ -1,7 +1,10 @@
 package com.finance.tracker.sync.service.impl;
 
 import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import com.finance.tracker.sync.domain.ScanProgressEvent;
 import com.finance.tracker.sync.domain.ScanStatus;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
 import com.finance.tracker.sync.domain.dtos.ScanResponse;
 import com.finance.tracker.sync.domain.dtos.ScanStartResponse;
 import com.finance.tracker.sync.domain.dtos.SyncMetadataResponse;
@@ -11,13 +14,18 @@ import com.finance.tracker.sync.exceptions.InvalidScanStateException;
 import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
 import com.finance.tracker.sync.exceptions.ScanAccessDeniedException;
 import com.finance.tracker.sync.exceptions.ScanNotFoundException;
+import com.finance.tracker.sync.repository.ScanChunkRepository;
 import com.finance.tracker.sync.repository.ScanHistoryRepository;
 import com.finance.tracker.sync.repository.SyncMetadataRepository;
 import com.finance.tracker.sync.service.SyncService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
@@ -26,21 +34,19 @@ public class SyncServiceImpl implements SyncService {
 
     private final SyncMetadataRepository syncMetadataRepository;
     private final ScanHistoryRepository scanHistoryRepository;
+    private final ScanChunkRepository scanChunkRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public SyncMetadataResponse getMetadata(UUID userId) {
-        SyncMetadata metadata = syncMetadataRepository.findById(userId)
-                .orElseGet(() -> {
-                    // Initialize metadata if this is the first sync ever
-                    SyncMetadata newMeta = new SyncMetadata();
-                    newMeta.setUserId(userId);
-                    newMeta.setLastScannedSmsDate(0L);
-                    return syncMetadataRepository.save(newMeta);
-                });
+        // No row before the first sync: the bookmark is epoch 0, the first updateMetadata creates it
+        long lastScanned = syncMetadataRepository.findById(userId)
+                .map(SyncMetadata::getLastScannedSmsDate)
+                .orElse(0L);
 
         return new SyncMetadataResponse(
-                metadata.getUserId(),
-                metadata.getLastScannedSmsDate(),
+                userId,
+                lastScanned,
                 "READY"
         );
     }
@@ -73,6 +79,82 @@ public class SyncServiceImpl implements SyncService {
     }
 
     @Override
+    public void requireOpenScan(UUID userId, UUID scanId) {
+        if (scanId == null) {
+            throw new InvalidSyncRequestException("scanId is required");
+        }
+        loadOpenScan(userId, scanId);
+    }
+
+    @Override
+    public ScanResponse getScan(UUID userId, UUID scanId) {
+        if (scanId == null) {
+            throw new InvalidSyncRequestException("scanId is required");
+        }
+        return ScanResponse.from(loadOwnedScan(userId, scanId));
+    }
+
+    @Override
+    @Transactional
+    public ScanResponse queueScan(UUID userId, UUID scanId, int smsReceived) {
+        ScanHistory history = loadOpenScan(userId, scanId);
+        if (scanHistoryRepository.queueIfStarted(scanId, smsReceived) == 0) {
+            throw new InvalidScanStateException("Scan is not in a completable state");
+        }
+        // The counters now track this upload, so a retried job can resume from them
+        history.setStatus(ScanStatus.QUEUED);
+        history.setSmsReceived(smsReceived);
+        history.setTotalSmsProcessed(0);
+        history.setTransactionsCreated(0);
+        history.setDuplicatesSkipped(0);
+        history.setFailedToParse(0);
+        return ScanResponse.from(history);
+    }
+
+    @Override
+    @Transactional
+    public boolean startProcessing(UUID scanId) {
+        if (scanHistoryRepository.transition(scanId, ScanStatus.QUEUED, ScanStatus.PROCESSING) == 1) {
+            publishProgress(scanId);
+            return true;
+        }
+        return scanHistoryRepository.findById(scanId)
+                .map(history -> history.getStatus() == ScanStatus.PROCESSING)
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional
+    public void recordProgress(UUID scanId, EndScanRequest progress) {
+        int updated = scanHistoryRepository.recordProgress(scanId,
+                progress.getTotalSmsProcessed(),
+                progress.getTransactionsCreated(),
+                progress.getDuplicatesSkipped(),
+                progress.getFailedToParse());
+        if (updated == 1) {
+            publishProgress(scanId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void reopenScan(UUID scanId) {
+        if (scanHistoryRepository.transition(scanId, ScanStatus.PROCESSING, ScanStatus.STARTED) == 1
+                || scanHistoryRepository.transition(scanId, ScanStatus.QUEUED, ScanStatus.STARTED) == 1) {
+            publishProgress(scanId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void failScan(UUID scanId) {
+        if (scanHistoryRepository.failIfQueued(scanId, OffsetDateTime.now()) == 1) {
+            publishProgress(scanId);
+        }
+    }
+
+    @Override
+    @Transactional
     public ScanResponse finalizeScan(UUID userId, UUID scanId, EndScanRequest endScanRequest) {
         if (scanId == null) {
             throw new InvalidSyncRequestException("scanId is required");
@@ -81,35 +163,117 @@ public class SyncServiceImpl implements SyncService {
             throw new InvalidSyncRequestException("Scan summary is required");
         }
 
-        ScanHistory history = scanHistoryRepository.findById(scanId)
-                .orElseThrow(() -> new ScanNotFoundException("Scan session not found"));
-
-        if (!history.getUserId().equals(userId)) {
-            throw new ScanAccessDeniedException("Scan does not belong to the requesting user");
+        ScanHistory history = loadOwnedScan(userId, scanId);
+        ScanStatus expected = history.getStatus();
+        if (expected == ScanStatus.COMPLETED) {
+            // Retried finalize: the first one applied, report what it recorded
+            return ScanResponse.from(history);
         }
-        if (history.getStatus() != ScanStatus.STARTED) {
+        if (expected != ScanStatus.STARTED && expected != ScanStatus.PROCESSING) {
             throw new InvalidScanStateException("Scan is not in a completable state");
         }
 
+        // Single conditional UPDATE: a retried or concurrent finalize cannot apply twice
+        OffsetDateTime endTime = OffsetDateTime.now();
+        int updated = scanHistoryRepository.completeIfInStatus(scanId, expected, endTime,
+                endScanRequest.getTotalSmsProcessed(),
+                endScanRequest.getTransactionsCreated(),
+                endScanRequest.getDuplicatesSkipped(),
+                endScanRequest.getFailedToParse());
+        if (updated == 0) {
+            return scanHistoryRepository.findById(scanId)
+                    .filter(current -> current.getStatus() == ScanStatus.COMPLETED)
+                    .map(ScanResponse::from)
+                    .orElseThrow(() -> new InvalidScanStateException("Scan is not in a completable state"));
+        }
+
         history.setStatus(ScanStatus.COMPLETED);
-        history.setEndTime(OffsetDateTime.now());
+        history.setEndTime(endTime);
         history.setTotalSmsProcessed(endScanRequest.getTotalSmsProcessed());
         history.setTransactionsCreated(endScanRequest.getTransactionsCreated());
         history.setDuplicatesSkipped(endScanRequest.getDuplicatesSkipped());
         history.setFailedToParse(endScanRequest.getFailedToParse());
 
-        ScanHistory scanHistory = scanHistoryRepository.save(history);
-
-        return new ScanResponse(
-                scanHistory.getId(),
-                scanHistory.getStatus(),
-                scanHistory.getStartTime(),
-                scanHistory.getEndTime(),
-                scanHistory.getTotalSmsProcessed(),
-                scanHistory.getTransactionsCreated(),
-                scanHistory.getDuplicatesSkipped(),
-                scanHistory.getFailedToParse()
-        );
+        ScanResponse response = ScanResponse.from(history);
+        eventPublisher.publishEvent(new ScanProgressEvent(this, response));
+        return response;
+    }
+
+    @Override
+    public Optional<ScanChunk> findChunk(UUID scanId, int chunkIndex) {
+        return scanChunkRepository.find(scanId, chunkIndex);
+    }
+
+    @Override
+    @Transactional
+    public ScanChunkResponse recordChunk(UUID userId, UUID scanId, ScanChunk chunk) {
+        ScanHistory history = loadOpenScan(userId, scanId);
+
+        if (!scanChunkRepository.insert(scanId, chunk)) {
+            // Same chunk finished by a concurrent upload; its counts are already in the scan
+            ScanChunk stored = scanChunkRepository.find(scanId, chunk.chunkIndex()).orElse(chunk);
+            return chunkResponse(history, stored, true);
+        }
+
+        int updated = scanHistoryRepository.addChunk(scanId,
+                chunk.totalSmsProcessed(),
+                chunk.transactionsCreated(),
+                chunk.duplicatesSkipped(),
+                chunk.failedToParse());
+        if (updated == 0) {
+            // Rolls back the chunk row with it
+            throw new InvalidScanStateException("Scan is not in a completable state");
+        }
+        // Read only under the scan row lock: every chunk of a concurrent record has committed by now,
+        // so the resume point never moves back past a chunk another upload stored
+        int nextChunk = nextChunk(scanChunkRepository.findChunkIndexes(scanId));
+        scanHistoryRepository.updateNextChunk(scanId, nextChunk);
+
+        // The row loaded above predates the lock and the updates detached it; the totals
+        // must include chunks other uploads added in the meantime
+        history = loadOwnedScan(userId, scanId);
+        eventPublisher.publishEvent(new ScanProgressEvent(this, ScanResponse.from(history)));
+        return chunkResponse(history, chunk, false);
+    }
+
+    @Override
+    @Transactional
+    public ScanResponse commitChunkedScan(UUID userId, UUID scanId, int chunkCount) {
+        if (scanId == null) {
+            throw new InvalidSyncRequestException("scanId is required");
+        }
+        if (chunkCount <= 0) {
+            throw new InvalidSyncRequestException("chunkCount must be positive");
+        }
+
+        ScanHistory history = loadOwnedScan(userId, scanId);
+        if (history.getStatus() == ScanStatus.COMPLETED) {
+            return ScanResponse.from(history);
+        }
+        if (history.getStatus() != ScanStatus.STARTED) {
+            throw new InvalidScanStateException("Scan is not in a completable state");
+        }
+        if (history.getNextChunk() < chunkCount) {
+            throw new InvalidScanStateException("Chunk " + history.getNextChunk() + " has not been received");
+        }
+
+        // Every chunk below chunkCount is present. The running totals only describe them when no
+        // chunk was uploaded past the declared count; otherwise they are summed from the chunk rows
+        EndScanRequest totals = history.getChunksReceived() == chunkCount
+                ? EndScanRequest.builder()
+                        .totalSmsProcessed(history.getTotalSmsProcessed())
+                        .transactionsCreated(history.getTransactionsCreated())
+                        .duplicatesSkipped(history.getDuplicatesSkipped())
+                        .failedToParse(history.getFailedToParse())
+                        .build()
+                : scanChunkRepository.sumChunks(scanId, chunkCount);
+        long latestTimestamp = scanChunkRepository.findLatestTimestamp(scanId, chunkCount);
+        ScanResponse completed = finalizeScan(userId, scanId, totals);
+        if (latestTimestamp > 0) {
+            updateMetadata(userId, latestTimestamp);
+        }
+        scanChunkRepository.deleteAll(scanId);
+        return completed;
     }
 
     @Override
@@ -118,24 +282,12 @@ public class SyncServiceImpl implements SyncService {
             throw new InvalidSyncRequestException("Timestamp must be non-negative");
         }
 
-        SyncMetadata metadata = syncMetadataRepository.findById(userId)
-                .orElseGet(() -> {
-                    SyncMetadata newMeta = new SyncMetadata();
-                    newMeta.setUserId(userId);
-                    newMeta.setLastScannedSmsDate(0L);
-                    return newMeta;
-                });
-
-        // Only move the bookmark forward, never backward
-        if (latestTimestamp < metadata.getLastScannedSmsDate()) {
-            throw new InvalidSyncRequestException("Timestamp cannot move backward");
-        }
-        metadata.setLastScannedSmsDate(latestTimestamp);
-        SyncMetadata saved = syncMetadataRepository.save(metadata);
+        // One upsert that keeps the later bookmark: scans finishing out of order never fail or regress it
+        long stored = syncMetadataRepository.advanceBookmark(userId, latestTimestamp);
         return new SyncMetadataResponse(
-                saved.getUserId(),
-                saved.getLastScannedSmsDate(),
-                "UPDATED"
+                userId,
+                stored,
+                stored == latestTimestamp ? "UPDATED" : "UNCHANGED"
         );
     }
 
@@ -150,30 +302,66 @@ public class SyncServiceImpl implements SyncService {
         if (!history.getUserId().equals(userId)) {
             throw new ScanAccessDeniedException("Scan does not belong to the requesting user");
         }
+        if (history.getStatus() == ScanStatus.QUEUED || history.getStatus() == ScanStatus.PROCESSING) {
+            // The worker completes it; ending it here would race the remaining windows
+            throw new InvalidScanStateException("Scan is still being processed");
+        }
         if (history.getStatus() != ScanStatus.FAILED) {
             history.setStatus(ScanStatus.COMPLETED);
             history.setEndTime(OffsetDateTime.now());
             ScanHistory scanHistory = scanHistoryRepository.save(history);
-            return new ScanResponse(
-                    scanHistory.getId(),
-                    scanHistory.getStatus(),
-                    scanHistory.getStartTime(),
-                    scanHistory.getEndTime(),
-                    scanHistory.getTotalSmsProcessed(),
-                    scanHistory.getTransactionsCreated(),
-                    scanHistory.getDuplicatesSkipped(),
-                    scanHistory.getFailedToParse()
-            );
+            return ScanResponse.from(scanHistory);
+        }
+        return ScanResponse.from(history);
+    }
+
+    private ScanHistory loadOpenScan(UUID userId, UUID scanId) {
+        ScanHistory history = loadOwnedScan(userId, scanId);
+        if (history.getStatus() != ScanStatus.STARTED) {
+            throw new InvalidScanStateException("Scan is not in a completable state");
         }
-        return new ScanResponse(
+        return history;
+    }
+
+    private ScanHistory loadOwnedScan(UUID userId, UUID scanId) {
+        ScanHistory history = scanHistoryRepository.findById(scanId)
+                .orElseThrow(() -> new ScanNotFoundException("Scan session not found"));
+
+        if (!history.getUserId().equals(userId)) {
+            throw new ScanAccessDeniedException("Scan does not belong to the requesting user");
+        }
+        return history;
+    }
+
+    // First index missing from the sorted list of received chunks
+    private static int nextChunk(List<Integer> receivedIndexes) {
+        int next = 0;
+        for (int index : receivedIndexes) {
+            if (index == next) {
+                next++;
+            } else if (index > next) {
+                break;
+            }
+        }
+        return next;
+    }
+
+    private static ScanChunkResponse chunkResponse(ScanHistory history, ScanChunk chunk, boolean replayed) {
+        return new ScanChunkResponse(
                 history.getId(),
-                history.getStatus(),
-                history.getStartTime(),
-                history.getEndTime(),
-                history.getTotalSmsProcessed(),
-                history.getTransactionsCreated(),
-                history.getDuplicatesSkipped(),
-                history.getFailedToParse()
+                chunk.chunkIndex(),
+                replayed,
+                chunk.totalSmsProcessed(),
+                chunk.transactionsCreated(),
+                chunk.duplicatesSkipped(),
+                chunk.failedToParse(),
+                history.getChunksReceived(),
+                history.getNextChunk()
         );
     }
+
+    private void publishProgress(UUID scanId) {
+        scanHistoryRepository.findById(scanId)
+                .ifPresent(history -> eventPublisher.publishEvent(new ScanProgressEvent(this, ScanResponse.from(history))));
+    }
 }
@@ -1,12 +1,15 @@
 package com.finance.tracker.transactions.controller;
 
 import com.finance.tracker.transactions.domain.dtos.ErrorDto;
+import com.finance.tracker.sync.exceptions.IngestThrottledException;
 import com.finance.tracker.sync.exceptions.InvalidScanStateException;
 import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
 import com.finance.tracker.sync.exceptions.ScanAccessDeniedException;
 import com.finance.tracker.sync.exceptions.ScanNotFoundException;
+import com.finance.tracker.sync.exceptions.UploadTooLargeException;
 import com.finance.tracker.transactions.exceptions.TransactionNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -46,6 +49,29 @@ public class ErrorController {
         return new ResponseEntity<>(errorDto, HttpStatus.FORBIDDEN);
     }
 
+    @ExceptionHandler(IngestThrottledException.class)
+    public ResponseEntity<ErrorDto> handleIngestThrottledException(IngestThrottledException ex) {
+        // Expected under load, not worth a stack trace
+        log.warn("caught IngestThrottledException exception: {}", ex.getMessage());
+        ErrorDto errorDto = ErrorDto.builder()
+                .statusCode(HttpStatus.TOO_MANY_REQUESTS.value())
+                .errorMessage(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorDto);
+    }
+
+    @ExceptionHandler(UploadTooLargeException.class)
+    public ResponseEntity<ErrorDto> handleUploadTooLargeException(UploadTooLargeException ex) {
+        log.error("caught UploadTooLargeException exception", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .statusCode(HttpStatus.PAYLOAD_TOO_LARGE.value())
+                .errorMessage(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
     @ExceptionHandler({InvalidSyncRequestException.class, InvalidScanStateException.class})
     public ResponseEntity<ErrorDto> handleInvalidSyncRequest(RuntimeException ex) {
         log.error("caught sync validation exception", ex);
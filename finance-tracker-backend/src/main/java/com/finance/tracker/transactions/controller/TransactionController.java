@@ -1,5 +1,6 @@
 package com.finance.tracker.transactions.controller;
 
+import com.finance.tracker.sync.service.IngestAdmissionService;
 import com.finance.tracker.transactions.domain.*;
 import com.finance.tracker.transactions.domain.dtos.*;
 import com.finance.tracker.transactions.service.TransactionBatchService;
@@ -24,6 +25,7 @@ public class TransactionController {
 
     private final TransactionService transactionService;
     private final TransactionBatchService batchService;
+    private final IngestAdmissionService admissionService;
 
     // -----------------------------------------------------
     // Create
@@ -123,8 +125,11 @@ public class TransactionController {
     // -----------------------------------------------------
     @PostMapping("/export-messages")
     public ResponseEntity<Void> exportMessages(@RequestBody List<SmsRequest> messages) {
-        transactionService.exportMessagesSendToQueue(messages);
-        return ResponseEntity.ok().build();
+        UUID userId = UUID.fromString("960bbe86-b62c-4171-a8e5-94c4bfd3bdb4");
+        try (IngestAdmissionService.Permit permit = admissionService.admit(userId, messages.size())) {
+            transactionService.exportMessagesSendToQueue(messages);
+            return ResponseEntity.ok().build();
+        }
     }
 
     // -----------------------------------------------------
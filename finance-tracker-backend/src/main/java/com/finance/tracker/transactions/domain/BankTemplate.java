@@ -1,12 +1,20 @@
 package com.finance.tracker.transactions.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.finance.tracker.transactions.utilities.BudgetedCharSequence;
+import com.finance.tracker.transactions.utilities.RegexLiterals;
 import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Data
@@ -21,9 +29,67 @@ public class BankTemplate {
     @JsonIgnore
     private Pattern compiledPattern;
 
+    // Stable key for metrics, e.g. "axis#0"
+    @JsonIgnore
+    private String id;
+
+    // Lower-cased substrings every match must contain, checked before running the regex
+    @JsonIgnore
+    private List<String> requiredLiterals;
+
+    // Named groups of the pattern, so fields can be read without probing for missing groups
+    @JsonIgnore
+    private Map<String, Integer> groups;
+
+    // Match budget overruns, the template is skipped once quarantined
+    @JsonIgnore
+    private final AtomicInteger overruns = new AtomicInteger();
+
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean quarantined = new AtomicBoolean();
+
     @PostConstruct
     public void compile() {
         this.compiledPattern = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE);
+        this.requiredLiterals = RegexLiterals.extract(pattern);
+        this.groups = compiledPattern.namedGroups();
+    }
+
+    /**
+     * Index of the named group in the pattern, or -1 if the pattern has no such group.
+     */
+    public int groupIndex(String name) {
+        Integer index = groups == null ? null : groups.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Matcher over the body that throws RegexBudgetExceededException after
+     * {@code budget} character reads instead of backtracking indefinitely.
+     */
+    public Matcher guardedMatcher(CharSequence body, long budget) {
+        return compiledPattern.matcher(new BudgetedCharSequence(body, budget));
+    }
+
+    /**
+     * Same as {@link #guardedMatcher(CharSequence, long)} over a caller-owned input,
+     * for reuse across messages with {@code matcher.reset(input.reset(body))}.
+     */
+    public Matcher guardedMatcher(BudgetedCharSequence input) {
+        return compiledPattern.matcher(input);
+    }
+
+    /**
+     * Records an overrun and quarantines the template after {@code quarantineAfter} of them.
+     * Returns true when this overrun caused the quarantine.
+     */
+    public boolean recordOverrun(int quarantineAfter) {
+        return overruns.incrementAndGet() >= quarantineAfter && quarantined.compareAndSet(false, true);
+    }
+
+    public boolean isQuarantined() {
+        return quarantined.get();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.finance.tracker.transactions.domain;
+
+import com.finance.tracker.transactions.utilities.AhoCorasick;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled templates of one bank together with a single automaton over all
+ * their required literals, so one scan of the SMS body tells which templates
+ * can possibly match.
+ */
+public final class BankTemplateSet {
+
+    private static final BankTemplateSet EMPTY = new BankTemplateSet(List.of());
+
+    private final List<BankTemplate> templates;
+    private final AhoCorasick<Integer> literalMatcher;
+    // Literal ids required by each template, indexed like templates
+    private final int[][] requiredLiteralIds;
+    private final int literalCount;
+    private final Map<String, Integer> indexById = new HashMap<>();
+
+    public BankTemplateSet(List<BankTemplate> templates) {
+        this.templates = List.copyOf(templates);
+
+        Map<String, Integer> literalIds = new HashMap<>();
+        this.requiredLiteralIds = new int[this.templates.size()][];
+        for (int t = 0; t < this.templates.size(); t++) {
+            if (this.templates.get(t).getId() != null) {
+                indexById.put(this.templates.get(t).getId(), t);
+            }
+            List<String> literals = this.templates.get(t).getRequiredLiterals();
+            if (literals == null) literals = List.of();
+            this.requiredLiteralIds[t] = literals.stream()
+                    .mapToInt(literal -> literalIds.computeIfAbsent(literal, k -> literalIds.size()))
+                    .distinct()
+                    .toArray();
+        }
+        this.literalCount = literalIds.size();
+        this.literalMatcher = AhoCorasick.build(literalIds, true);
+    }
+
+    public static BankTemplateSet empty() {
+        return EMPTY;
+    }
+
+    public List<BankTemplate> templates() {
+        return templates;
+    }
+
+    public boolean isEmpty() {
+        return templates.isEmpty();
+    }
+
+    /**
+     * Position of the template with this id, or -1 if it is not part of the set.
+     */
+    public int indexOf(String templateId) {
+        if (templateId == null) return -1;
+        return indexById.getOrDefault(templateId, -1);
+    }
+
+    /**
+     * One flag per template: false when the body lacks a literal the template requires.
+     */
+    public boolean[] candidates(CharSequence body) {
+        boolean[] candidates = new boolean[templates.size()];
+        if (literalCount == 0) {
+            Arrays.fill(candidates, true);
+            return candidates;
+        }
+
+        boolean[] found = new boolean[literalCount];
+        literalMatcher.forEachMatch(body, id -> found[id] = true);
+
+        for (int t = 0; t < candidates.length; t++) {
+            boolean viable = true;
+            for (int id : requiredLiteralIds[t]) {
+                if (!found[id]) {
+                    viable = false;
+                    break;
+                }
+            }
+            candidates[t] = viable;
+        }
+        return candidates;
+    }
+}
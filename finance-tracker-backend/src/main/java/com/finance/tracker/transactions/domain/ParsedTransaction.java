@@ -1,5 +1,6 @@
 package com.finance.tracker.transactions.domain;
 
+import com.finance.tracker.transactions.utilities.DateParserUtils;
 import lombok.Builder;
 import lombok.Data;
 
@@ -8,12 +9,17 @@ import lombok.Data;
 public class ParsedTransaction {
 
     private String bank;
-    private String amount;
     private String merchant;
     private String lastFour;
-    private String dateTime;
     private String availableLimit;
     private String referenceId;
     private double confidence;
+    private String templateId;
+
+    // Amount in paise, always set by the parsers; the matched text is not kept
+    private long amountMinor;
+    // When the transaction happened according to the SMS text, DateParserUtils.INVALID if it has no readable date
+    @Builder.Default
+    private long occurredAtMillis = DateParserUtils.INVALID;
 
 }
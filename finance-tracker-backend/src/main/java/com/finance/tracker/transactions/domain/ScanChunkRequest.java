@@ -0,0 +1,7 @@
+package com.finance.tracker.transactions.domain;
+
+import java.util.List;
+
+public record ScanChunkRequest(
+    List<SmsRequest> smsList
+) {}
@@ -0,0 +1,14 @@
+package com.finance.tracker.transactions.domain;
+
+/**
+ * What happened last time a message of the same shape was parsed: the route (and bank
+ * template) that produced the result and the confidence it won with, or nothing at all.
+ */
+public record ShapeHint(SmsRoute route, String templateId, double confidence) {
+
+    public static final ShapeHint UNPARSEABLE = new ShapeHint(null, null, 0.0);
+
+    public boolean isUnparseable() {
+        return route == null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.finance.tracker.transactions.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feature vector built from a single scan of an SMS body.
+ * Each flag mirrors one of the regexes used by the parsers, so the
+ * routing decision can be taken without running the parsers themselves.
+ */
+public record SmsFeatures(
+        boolean amountMarker,    // rs / inr / ₹ followed by a number
+        boolean upiHint,         // "upi" word or '@'
+        boolean upiHandle,       // something@something
+        boolean referenceMarker, // utr / ref followed by an id
+        boolean upiVerb,         // paid, sent, debited, received, credited
+        boolean genericVerb,     // debited, spent, paid, withdrawn, purchase, credited, received, refund, deposited
+        boolean merchantMarker,  // "at" / "to" followed by a name
+        String bank,             // resolved from the sender, null if unknown
+        boolean bankTemplates,   // the resolved bank has at least one template
+        long shape               // hash of the body with numbers collapsed, see SmsClassifier
+) {
+
+    /**
+     * Parsers that can still produce a satisfactory result, in precedence order.
+     * For a well-formed alert this is a single parser; an empty list means
+     * every parser is bound to fail.
+     */
+    public List<SmsRoute> routes() {
+        List<SmsRoute> routes = new ArrayList<>(3);
+        if (upiLikely()) {
+            routes.add(SmsRoute.UPI);
+        }
+        if (bankTemplates) {
+            routes.add(SmsRoute.BANK);
+        }
+        if (genericLikely()) {
+            routes.add(SmsRoute.GENERIC);
+        }
+        return routes;
+    }
+
+    // UPI parser scores amount 40 + 20 for each of type, handle and ref: needs two of them to reach 0.7
+    private boolean upiLikely() {
+        if (!upiHint || !amountMarker) return false;
+        int signals = (upiVerb ? 1 : 0) + (upiHandle ? 1 : 0) + (referenceMarker ? 1 : 0);
+        return signals >= 2;
+    }
+
+    // Generic parser scores amount 50 + 20 for type or merchant: needs one of them to reach 0.7
+    private boolean genericLikely() {
+        return amountMarker && (genericVerb || merchantMarker);
+    }
+}
@@ -0,0 +1,25 @@
+package com.finance.tracker.transactions.domain;
+
+import lombok.Getter;
+
+@Getter
+public enum SmsKeyword {
+    PAID("paid", false),
+    SENT("sent", false),
+    DEBITED("debited", false),
+    SPENT("spent", false),
+    WITHDRAWN("withdrawn", false),
+    PURCHASE("purchase", false),
+    RECEIVED("received", true),
+    CREDITED("credited", true),
+    REFUND("refund", true),
+    DEPOSITED("deposited", true);
+
+    private final String word;
+    private final boolean credit;
+
+    SmsKeyword(String word, boolean credit) {
+        this.word = word;
+        this.credit = credit;
+    }
+}
@@ -0,0 +1,17 @@
+package com.finance.tracker.transactions.domain;
+
+import lombok.Getter;
+
+@Getter
+public enum SmsRoute {
+    UPI("upiSmsParser"),
+    BANK("bankSmsParser"),
+    GENERIC("genericSmsParser");
+
+    // Bean name of the SmsParserService handling this route
+    private final String parserName;
+
+    SmsRoute(String parserName) {
+        this.parserName = parserName;
+    }
+}
@@ -0,0 +1,18 @@
+package com.finance.tracker.transactions.domain;
+
+/**
+ * Kinds of token emitted by the SmsTokenizer. Each token spans the value a
+ * parser extracts (the digits of an amount, not the currency in front of it).
+ */
+public enum SmsTokenType {
+    AMOUNT,          // after rs / inr / ₹: 1,250.00
+    DATE,            // 12-01-26, 05/01/2026
+    TIME,            // 08:50 or 08:50:53
+    ACCOUNT_MASK,    // last four digits after a/c or ac
+    VPA,             // swiggy@ybl
+    PAYEE,           // handle of a VPA introduced by "to" / "from"
+    REFERENCE,       // id after utr / ref
+    DEBIT_KEYWORD,   // paid, sent, debited, spent, withdrawn, purchase
+    CREDIT_KEYWORD,  // received, credited, refund, deposited
+    MERCHANT         // name after "at" / "to"
+}
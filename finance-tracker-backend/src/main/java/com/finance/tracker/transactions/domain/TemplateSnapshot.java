@@ -0,0 +1,19 @@
+package com.finance.tracker.transactions.domain;
+
+import java.util.Map;
+
+/**
+ * Immutable view of every compiled bank template set. A new snapshot with the
+ * next version replaces the old one as a whole, so a parse never sees a mix
+ * of old and new templates.
+ */
+public record TemplateSnapshot(long version, Map<String, BankTemplateSet> banks) {
+
+    public TemplateSnapshot {
+        banks = Map.copyOf(banks);
+    }
+
+    public BankTemplateSet get(String bankName) {
+        return banks.getOrDefault(bankName.toLowerCase(), BankTemplateSet.empty());
+    }
+}
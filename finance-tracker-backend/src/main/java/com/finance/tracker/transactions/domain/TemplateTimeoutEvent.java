@@ -0,0 +1,19 @@
+package com.finance.tracker.transactions.domain;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class TemplateTimeoutEvent extends ApplicationEvent {
+
+    private final SmsRequest sms;
+    private final String templateId;
+    private final boolean quarantined;
+
+    public TemplateTimeoutEvent(Object source, SmsRequest sms, String templateId, boolean quarantined) {
+        super(source);
+        this.sms=sms;
+        this.templateId=templateId;
+        this.quarantined=quarantined;
+    }
+}
@@ -0,0 +1,15 @@
+package com.finance.tracker.transactions.domain;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class TemplatesReloadedEvent extends ApplicationEvent {
+
+    private final long version;
+
+    public TemplatesReloadedEvent(Object source, long version) {
+        super(source);
+        this.version=version;
+    }
+}
@@ -95,6 +95,10 @@ public class Transaction {
 
     @Enumerated(EnumType.STRING)
     private TransactionSource source;
+    // Text form of the fingerprint, returned to clients (older rows hold the previous ad-hoc ids)
     private String uniqueIdentifier;
+    // SmsFingerprint of the source SMS, unique per user among live rows (partial index in schema.sql);
+    // null for manual entries and rows created before it existed
+    private UUID fingerprint;
     private String originalMessage;
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.finance.tracker.transactions.exceptions;
+
+public class RegexBudgetExceededException extends RuntimeException {
+
+    public RegexBudgetExceededException(long budget) {
+        super("Regex match exceeded its budget of " + budget + " character reads");
+    }
+}
@@ -1,17 +1,27 @@
 package com.finance.tracker.transactions.repository;
 
+import com.finance.tracker.accounts.domain.BalanceUpdateRequest;
 import com.finance.tracker.transactions.domain.Currency;
 import com.finance.tracker.transactions.domain.TransactionStatus;
 import com.finance.tracker.transactions.domain.TransactionType;
 import com.finance.tracker.transactions.domain.dtos.BatchUpdateTransactionRequestDto;
 import com.finance.tracker.transactions.domain.entities.Transaction;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Connection;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
@@ -19,50 +29,195 @@ public class TransactionBatchRepository {
 
     private final JdbcTemplate jdbcTemplate;
 
-    public void batchUpdateAndConfirm(List<Transaction> chunk) {
-
-        String sql = """
-            UPDATE transactions
-            SET
-                amount = ?,
-                type = ?,
-                account_id = ?,
-                category_id = ?,
-                transaction_name = ?,
-                currency = ?,
-                occurred_at = ?,
-                notes = ?,
-                merchant = ?,
-                status = ?,
-                last_action = ?,
-                updated_at = ?
-            WHERE id = ? AND status = ?
-        """;
-
-        jdbcTemplate.batchUpdate(
-                sql,
-                chunk,
-                chunk.size(),
-                (ps, req) -> {
-
-                    ps.setBigDecimal(1, req.getAmount());
-                    ps.setObject(2, req.getType().name());
-                    ps.setObject(3, req.getAccount().getId());
-                    ps.setObject(4, req.getCategory().getId());
-                    ps.setString(5, req.getTransactionName());
-                    ps.setObject(6, req.getCurrency().name());
-
-                    ps.setObject(7, req.getOccurredAt());
-
-                    ps.setString(8, req.getNotes());
-                    ps.setString(9, req.getMerchant());
-                    ps.setObject(10, req.getStatus().name());
-                    ps.setObject(11, "UPDATED");
-                    ps.setTimestamp(12, Timestamp.from(Instant.now()));
-
-                    ps.setObject(13, req.getId());
-                    ps.setObject(14, TransactionStatus.DRAFT.name());
+    @Value("${app.sync.dedup.probe-chunk-size:10000}")
+    private int probeChunkSize;
+
+    private static final String CONFIRM_DRAFTS_SQL = """
+        UPDATE transactions t
+        SET
+            amount = v.amount::numeric,
+            type = v.type,
+            account_id = v.account_id,
+            category_id = v.category_id,
+            transaction_name = v.transaction_name,
+            currency = v.currency,
+            occurred_at = v.occurred_at::timestamptz,
+            notes = v.notes,
+            merchant = v.merchant,
+            status = ?,
+            last_action = 'UPDATED',
+            updated_at = ?
+        FROM unnest(?::uuid[], ?::text[], ?::text[], ?::uuid[], ?::uuid[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[])
+            AS v(id, amount, type, account_id, category_id, transaction_name, currency, occurred_at, notes, merchant)
+        WHERE t.id = v.id AND t.user_id = ? AND t.status = ?
+        RETURNING t.id, t.account_id, t.amount, t.type
+    """;
+
+    /**
+     * Confirms the user's drafts with one UPDATE: the new values travel as one array per column
+     * and are joined to the rows by id. Rows that are not the user's or are no longer DRAFT are
+     * left alone. Returns what the balances need for each row actually confirmed.
+     */
+    public List<BalanceUpdateRequest> confirmDrafts(UUID userId, List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return List.of();
+        }
+
+        int n = transactions.size();
+        UUID[] ids = new UUID[n];
+        String[] amounts = new String[n];
+        String[] types = new String[n];
+        UUID[] accountIds = new UUID[n];
+        UUID[] categoryIds = new UUID[n];
+        String[] names = new String[n];
+        String[] currencies = new String[n];
+        String[] occurredAt = new String[n];
+        String[] notes = new String[n];
+        String[] merchants = new String[n];
+        for (int i = 0; i < n; i++) {
+            Transaction txn = transactions.get(i);
+            ids[i] = txn.getId();
+            amounts[i] = txn.getAmount().toPlainString();
+            types[i] = txn.getType().name();
+            accountIds[i] = txn.getAccount().getId();
+            categoryIds[i] = txn.getCategory().getId();
+            names[i] = txn.getTransactionName();
+            currencies[i] = txn.getCurrency().name();
+            // ISO-8601 with offset, read back by the timestamptz cast
+            occurredAt[i] = txn.getOccurredAt().toString();
+            notes[i] = txn.getNotes();
+            merchants[i] = txn.getMerchant();
+        }
+
+        return jdbcTemplate.query(CONFIRM_DRAFTS_SQL,
+                ps -> {
+                    Connection connection = ps.getConnection();
+                    ps.setString(1, TransactionStatus.CONFIRMED.name());
+                    ps.setTimestamp(2, Timestamp.from(Instant.now()));
+                    ps.setArray(3, connection.createArrayOf("uuid", ids));
+                    ps.setArray(4, connection.createArrayOf("text", amounts));
+                    ps.setArray(5, connection.createArrayOf("text", types));
+                    ps.setArray(6, connection.createArrayOf("uuid", accountIds));
+                    ps.setArray(7, connection.createArrayOf("uuid", categoryIds));
+                    ps.setArray(8, connection.createArrayOf("text", names));
+                    ps.setArray(9, connection.createArrayOf("text", currencies));
+                    ps.setArray(10, connection.createArrayOf("text", occurredAt));
+                    ps.setArray(11, connection.createArrayOf("text", notes));
+                    ps.setArray(12, connection.createArrayOf("text", merchants));
+                    ps.setObject(13, userId);
+                    ps.setString(14, TransactionStatus.DRAFT.name());
+                },
+                (rs, i) -> new BalanceUpdateRequest(
+                        rs.getObject("account_id", UUID.class),
+                        rs.getBigDecimal("amount"),
+                        TransactionType.valueOf(rs.getString("type")),
+                        rs.getObject("id", UUID.class)));
+    }
+
+    private static final String DRAFT_COLUMNS = """
+            id, transaction_name, amount, currency, occurred_at, posted_at, created_at, updated_at,
+            user_id, account_id, category_id, type, status, merchant, source, notes,
+            fingerprint, unique_identifier, original_message, external_ref, last_action""";
+
+    private static final int DRAFT_COLUMN_COUNT = 21;
+
+    // Must match the partial unique index in schema.sql for Postgres to use it as the arbiter
+    private static final String DRAFT_CONFLICT_TARGET =
+            "(user_id, fingerprint) WHERE status IN ('DRAFT', 'CONFIRMED')";
+
+    /**
+     * Inserts parsed SMS drafts with one multi-row INSERT. Ids are generated here rather than
+     * by Hibernate, and rows whose fingerprint the user already has a live draft or transaction
+     * for are skipped by the database, so a draft created concurrently by another upload or by
+     * /parse is never duplicated.
+     * Returns how many rows were actually inserted.
+     */
+    public int insertDrafts(List<Transaction> drafts) {
+        if (drafts.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder(64 + drafts.size() * DRAFT_COLUMN_COUNT * 3)
+                .append("INSERT INTO transactions (").append(DRAFT_COLUMNS).append(") VALUES ");
+        String row = "(" + "?, ".repeat(DRAFT_COLUMN_COUNT - 1) + "?)";
+        for (int i = 0; i < drafts.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(row);
+        }
+        sql.append(" ON CONFLICT ").append(DRAFT_CONFLICT_TARGET).append(" DO NOTHING");
+
+        Timestamp now = Timestamp.from(Instant.now());
+        return jdbcTemplate.update(sql.toString(), ps -> {
+            int p = 1;
+            for (Transaction draft : drafts) {
+                if (draft.getId() == null) {
+                    draft.setId(UUID.randomUUID());
                 }
-        );
+                ps.setObject(p++, draft.getId());
+                ps.setString(p++, draft.getTransactionName());
+                ps.setBigDecimal(p++, draft.getAmount());
+                ps.setString(p++, draft.getCurrency().name());
+                ps.setObject(p++, draft.getOccurredAt());
+                ps.setObject(p++, draft.getPostedAt());
+                ps.setTimestamp(p++, now);
+                ps.setTimestamp(p++, now);
+                ps.setObject(p++, draft.getUserId());
+                ps.setObject(p++, draft.getAccount().getId());
+                ps.setObject(p++, draft.getCategory().getId());
+                ps.setString(p++, draft.getType().name());
+                ps.setString(p++, draft.getStatus().name());
+                ps.setString(p++, draft.getMerchant());
+                ps.setString(p++, draft.getSource().name());
+                ps.setString(p++, draft.getNotes());
+                ps.setObject(p++, draft.getFingerprint());
+                ps.setString(p++, draft.getUniqueIdentifier());
+                ps.setString(p++, draft.getOriginalMessage());
+                ps.setString(p++, draft.getExternalRef());
+                ps.setString(p++, draft.getLastAction());
+            }
+        });
+    }
+
+    private static final String EXISTING_FINGERPRINTS_SQL =
+            "SELECT fingerprint FROM transactions WHERE user_id = ? AND fingerprint = ANY(?)"
+                    + " AND status IN ('DRAFT', 'CONFIRMED')";
+
+    /**
+     * Which of the given fingerprints the user already has a live draft or transaction for,
+     * the same rows that block {@link #insertDrafts}. Each probe binds one uuid[]
+     * parameter, so the statement text is the same for every batch size: the driver
+     * switches it to a server-side prepared statement and the plan stays an index lookup.
+     * Larger sets are split into probes of {@code app.sync.dedup.probe-chunk-size}.
+     */
+    public Set<UUID> findExistingFingerprints(UUID userId, Collection<UUID> fingerprints) {
+        Set<UUID> existing = new HashSet<>();
+        if (fingerprints.isEmpty()) {
+            return existing;
+        }
+
+        UUID[] all = fingerprints.toArray(new UUID[0]);
+        for (int from = 0; from < all.length; from += probeChunkSize) {
+            UUID[] chunk = Arrays.copyOfRange(all, from, Math.min(from + probeChunkSize, all.length));
+            jdbcTemplate.query(EXISTING_FINGERPRINTS_SQL,
+                    ps -> {
+                        ps.setObject(1, userId);
+                        ps.setArray(2, ps.getConnection().createArrayOf("uuid", chunk));
+                    },
+                    (RowCallbackHandler) rs -> existing.add(rs.getObject(1, UUID.class)));
+        }
+        return existing;
+    }
+
+    public int countFingerprints(UUID userId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM transactions WHERE user_id = ? AND fingerprint IS NOT NULL",
+                Integer.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    public void forEachFingerprint(UUID userId, Consumer<UUID> action) {
+        jdbcTemplate.query(
+                "SELECT fingerprint FROM transactions WHERE user_id = ? AND fingerprint IS NOT NULL",
+                (RowCallbackHandler) rs -> action.accept(rs.getObject(1, UUID.class)),
+                userId);
     }
 }
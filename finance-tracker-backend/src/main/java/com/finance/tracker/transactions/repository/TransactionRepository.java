@@ -46,8 +46,7 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>,
             @Param("type") String type
     );
 
-    @Query(value = "SELECT * from transactions where unique_identifier=:uniqueIdentifier AND (status='DRAFT' OR status='CONFIRMED')", nativeQuery = true)
-    Optional<Transaction> findTransactionByUniqueIdentifier(@Param("uniqueIdentifier") String uniqueIdentifier);
+    boolean existsByUserIdAndFingerprintAndStatusIn(UUID userId, UUID fingerprint, Collection<TransactionStatus> statuses);
 
     @Query(value = """
     SELECT t.id AS id,t.transaction_name AS transactionName,t.amount AS amount,t.type AS type,t.account_id AS accountId,a.account_name AS accountName,t.category_id AS categoryId,
@@ -60,8 +59,4 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>,
 
     Page<Transaction> findAllByUserIdAndStatus(UUID userId, TransactionStatus status, Pageable pageable);
 
-    // Finds all existing identifiers in a single trip to the DB
-    @Query("SELECT t.uniqueIdentifier FROM Transaction t WHERE t.uniqueIdentifier IN :identifiers")
-    Set<String> findExistingIdentifiers(@Param("identifiers") Collection<String> identifiers);
-
 }
@@ -0,0 +1,35 @@
+package com.finance.tracker.transactions.repository;
+
+import com.finance.tracker.transactions.domain.entities.UnparsedSmsLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class UnparsedSmsLogBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // One JDBC batch for the whole list; ids come from the identity column
+    public void insertAll(List<UnparsedSmsLog> logs) {
+        String sql = """
+            INSERT INTO unparsed_sms_logs (sender, sms_raw_body, sms_timestamp, error_reason)
+            VALUES (?, ?, ?, ?)
+        """;
+
+        jdbcTemplate.batchUpdate(sql, logs, logs.size(), (ps, log) -> {
+            ps.setString(1, log.getSender());
+            ps.setString(2, log.getSmsRawBody());
+            if (log.getTimestamp() != null) {
+                ps.setLong(3, log.getTimestamp());
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setString(4, log.getErrorReason());
+        });
+    }
+}
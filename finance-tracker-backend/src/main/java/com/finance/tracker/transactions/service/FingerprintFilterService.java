@@ -0,0 +1,103 @@
+package com.finance.tracker.transactions.service;
+
+import com.finance.tracker.transactions.repository.TransactionBatchRepository;
+import com.finance.tracker.transactions.utilities.FingerprintBloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Per-user Bloom filters over the fingerprints of stored transactions, so the dedup
+ * probe only asks the database about messages that may already exist. On incremental
+ * syncs almost every message is new and the probe is skipped.
+ * <p>
+ * A filter is built from the database on first use and kept in a cache bounded by
+ * total filter size. It may miss fingerprints inserted while it was loading, or stored
+ * under another user; the drafts INSERT still skips those on conflict.
+ */
+@Service
+@Slf4j
+public class FingerprintFilterService {
+
+    private final TransactionBatchRepository batchRepository;
+    private final Cache<UUID, FingerprintBloomFilter> filters;
+    private final double falsePositiveRate;
+    private final int minCapacity;
+    private final Counter absent;
+    private final Counter maybePresent;
+
+    public FingerprintFilterService(TransactionBatchRepository batchRepository,
+                                    @Value("${app.sync.dedup.filter.max-bytes:67108864}") long maxBytes,
+                                    @Value("${app.sync.dedup.filter.expire-after-access:PT30M}") Duration expireAfterAccess,
+                                    @Value("${app.sync.dedup.filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                    @Value("${app.sync.dedup.filter.min-capacity:1024}") int minCapacity,
+                                    MeterRegistry meterRegistry) {
+        this.batchRepository = batchRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        this.filters = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((UUID userId, FingerprintBloomFilter filter) -> (int) Math.min(filter.sizeInBytes(), Integer.MAX_VALUE))
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, filters, "fingerprintFilter");
+        this.absent = meterRegistry.counter("sms.dedup.filter.keys", "result", "absent");
+        this.maybePresent = meterRegistry.counter("sms.dedup.filter.keys", "result", "maybe_present");
+    }
+
+    /**
+     * The fingerprints that may already be stored for this user. Every other
+     * fingerprint is certainly not among the user's transactions.
+     */
+    public Set<UUID> mayExist(UUID userId, Collection<UUID> fingerprints) {
+        FingerprintBloomFilter filter = filters.get(userId, this::load);
+        Set<UUID> candidates = new HashSet<>();
+        for (UUID fingerprint : fingerprints) {
+            if (filter.mightContain(fingerprint)) {
+                candidates.add(fingerprint);
+            }
+        }
+        maybePresent.increment(candidates.size());
+        absent.increment(fingerprints.size() - candidates.size());
+        return candidates;
+    }
+
+    /**
+     * Records fingerprints just inserted for the user. Users without a cached filter
+     * are skipped, their filter will read the rows from the database.
+     */
+    public void added(UUID userId, Collection<UUID> fingerprints) {
+        FingerprintBloomFilter filter = filters.getIfPresent(userId);
+        if (filter == null || fingerprints.isEmpty()) {
+            return;
+        }
+        fingerprints.forEach(filter::put);
+        if (filter.isSaturated()) {
+            // Rebuilt at twice the current count on next use
+            filters.invalidate(userId);
+        }
+    }
+
+    private FingerprintBloomFilter load(UUID userId) {
+        long start = System.currentTimeMillis();
+        int stored = batchRepository.countFingerprints(userId);
+        FingerprintBloomFilter filter = FingerprintBloomFilter.create(
+                Math.max(minCapacity, stored * 2), falsePositiveRate);
+        batchRepository.forEachFingerprint(userId, filter::put);
+        log.debug("Built fingerprint filter for user {}: {} keys, {} bytes, {} ms",
+                userId, stored, filter.sizeInBytes(), System.currentTimeMillis() - start);
+        return filter;
+    }
+}
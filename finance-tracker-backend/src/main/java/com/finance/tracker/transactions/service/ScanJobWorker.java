@@ -0,0 +1,179 @@
+package com.finance.tracker.transactions.service;
+
+import com.finance.tracker.sync.domain.ScanJob;
+import com.finance.tracker.sync.domain.ScanProgressEvent;
+import com.finance.tracker.sync.domain.ScanStatus;
+import com.finance.tracker.sync.repository.ScanJobRepository;
+import com.finance.tracker.sync.service.SyncService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the scan_jobs queue. Each of {@code app.sync.async.workers} threads claims one
+ * job at a time, polling every {@code app.sync.async.poll-interval} and woken early when
+ * this instance queues an upload. A failed job is retried with backoff until it has used
+ * {@code app.sync.async.max-attempts}, then the job and its scan are marked FAILED.
+ */
+@Component
+@Slf4j
+public class ScanJobWorker {
+
+    private final ScanJobRepository scanJobRepository;
+    private final SyncService syncService;
+    private final TransactionBatchService batchService;
+    private final int workers;
+    private final Duration pollInterval;
+    private final int maxAttempts;
+
+    private final Object signal = new Object();
+    private volatile boolean running;
+    private ExecutorService threads;
+
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer duration;
+
+    public ScanJobWorker(ScanJobRepository scanJobRepository,
+                         SyncService syncService,
+                         TransactionBatchService batchService,
+                         @Value("${app.sync.async.workers:2}") int workers,
+                         @Value("${app.sync.async.poll-interval:PT1S}") Duration pollInterval,
+                         @Value("${app.sync.async.max-attempts:3}") int maxAttempts,
+                         MeterRegistry meterRegistry) {
+        this.scanJobRepository = scanJobRepository;
+        this.syncService = syncService;
+        this.batchService = batchService;
+        this.workers = workers;
+        this.pollInterval = pollInterval;
+        this.maxAttempts = maxAttempts;
+
+        this.completed = Counter.builder("sync.jobs.completed")
+                .description("Queued scans processed to completion")
+                .register(meterRegistry);
+        this.retried = Counter.builder("sync.jobs.retried")
+                .description("Queued scan attempts that failed and were put back in the queue")
+                .register(meterRegistry);
+        this.failed = Counter.builder("sync.jobs.failed")
+                .description("Queued scans that ran out of attempts")
+                .register(meterRegistry);
+        this.duration = Timer.builder("sync.jobs.duration")
+                .description("Time to process one queued scan")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        AtomicInteger count = new AtomicInteger();
+        threads = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "scan-job-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            threads.execute(this::loop);
+        }
+    }
+
+    @EventListener
+    public void onScanProgress(ScanProgressEvent event) {
+        if (event.getScan().status() == ScanStatus.QUEUED) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            boolean claimed;
+            try {
+                claimed = runOnce();
+            } catch (RuntimeException e) {
+                log.error("Scan job poll failed", e);
+                claimed = false;
+            }
+            if (!claimed) {
+                awaitWork();
+            }
+        }
+    }
+
+    // Claims and processes one job; returns false when the queue had nothing ready
+    boolean runOnce() {
+        Optional<ScanJob> claimed = scanJobRepository.claimNext();
+        if (claimed.isEmpty()) {
+            return false;
+        }
+        ScanJob job = claimed.get();
+
+        // Completed, failed or withdrawn since it was queued (or by a worker that died before deleting the job)
+        if (!syncService.startProcessing(job.scanId())) {
+            scanJobRepository.delete(job.scanId());
+            return true;
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            batchService.processQueuedScan(job);
+            completed.increment();
+        } catch (RuntimeException e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (job.attempts() >= maxAttempts) {
+                scanJobRepository.fail(job.scanId(), error);
+                syncService.failScan(job.scanId());
+                failed.increment();
+                log.error("Scan {} failed after {} attempts", job.scanId(), job.attempts(), e);
+            } else {
+                scanJobRepository.retry(job.scanId(), job.attempts(), error);
+                retried.increment();
+                log.warn("Scan {} attempt {} failed, will retry: {}", job.scanId(), job.attempts(), error);
+            }
+        } finally {
+            sample.stop(duration);
+        }
+        return true;
+    }
+
+    private void awaitWork() {
+        synchronized (signal) {
+            try {
+                signal.wait(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+
+    // A job cut off here keeps its lease until it expires, then another worker claims it
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (threads == null) {
+            return;
+        }
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        threads.shutdown();
+        if (!threads.awaitTermination(30, TimeUnit.SECONDS)) {
+            threads.shutdownNow();
+        }
+    }
+}
@@ -1,12 +1,54 @@
 package com.finance.tracker.transactions.service;
 
 import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
 import com.finance.tracker.transactions.domain.SmsRequest;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 public interface SmsParserService {
 
     Optional<ParsedTransaction> parse(SmsRequest sms);
 
+    /**
+     * Parse using what matched last time for a message of the same shape.
+     * Parsers without anything to reuse ignore the hint.
+     */
+    default Optional<ParsedTransaction> parse(SmsRequest sms, ShapeHint hint) {
+        return parse(sms);
+    }
+
+    /**
+     * Parses a batch on the calling thread; results are in input order.
+     * Implementations reuse their matchers across the batch.
+     */
+    default List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages) {
+        return parseAll(messages, Collections.nCopies(messages.size(), null));
+    }
+
+    /**
+     * Same as {@link #parseAll(List)} with one (possibly null) hint per message.
+     */
+    default List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints) {
+        List<Optional<ParsedTransaction>> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            results.add(parse(messages.get(i), hints.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Same as {@link #parseAll(List, List)}, and sets the bit of every message that came back
+     * empty without every rule having been tried, e.g. a template aborted over its match budget
+     * or quarantined. Such a miss says nothing about other messages of the same shape.
+     */
+    default List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints,
+                                                       BitSet inconclusive) {
+        return parseAll(messages, hints);
+    }
+
 }
@@ -1,24 +1,149 @@
 package com.finance.tracker.transactions.service;
 
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.TemplateTimeoutEvent;
 import com.finance.tracker.transactions.domain.entities.UnparsedSmsLog;
-import com.finance.tracker.transactions.repository.UnparsedSmsLogsRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
+import com.finance.tracker.transactions.repository.UnparsedSmsLogBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind log of SMS that could not be parsed. Entries are queued in memory and
+ * written by one background thread in JDBC batches, once {@code flush-size} entries
+ * are waiting or every {@code flush-interval}, whichever comes first. When the buffer
+ * is full new entries are dropped and counted: the log is diagnostic and must not
+ * slow down or fail an upload. Whatever is queued at shutdown is written before the
+ * context closes.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class TransactionAuditService {
-    private final UnparsedSmsLogsRepository logsRepository;
 
-    @Async
+    private final UnparsedSmsLogBatchRepository logsRepository;
+    private final BlockingQueue<UnparsedSmsLog> buffer;
+    private final int flushSize;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer flushTimer;
+
+    public TransactionAuditService(UnparsedSmsLogBatchRepository logsRepository,
+                                   @Value("${app.audit.unparsed.buffer-capacity:10000}") int bufferCapacity,
+                                   @Value("${app.audit.unparsed.flush-size:500}") int flushSize,
+                                   @Value("${app.audit.unparsed.flush-interval:PT1S}") Duration flushInterval,
+                                   MeterRegistry meterRegistry) {
+        this.logsRepository = logsRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.flushSize = flushSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "unparsed-sms-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flush,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+
+        Gauge.builder("sms.audit.buffer.size", buffer, BlockingQueue::size)
+                .description("Unparsed SMS log entries waiting to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder("sms.audit.written")
+                .description("Unparsed SMS log entries written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("sms.audit.dropped")
+                .description("Unparsed SMS log entries dropped because the buffer was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("sms.audit.failed")
+                .description("Unparsed SMS log entries lost to a failed write")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("sms.audit.flush")
+                .description("Time to write one batch of unparsed SMS log entries")
+                .register(meterRegistry);
+    }
+
     public void logFailedParsing(SmsRequest msg, String reason) {
+        enqueue(msg, reason);
+    }
+
+    @EventListener
+    public void handleTemplateTimeout(TemplateTimeoutEvent event) {
+        enqueue(event.getSms(), "REGEX_TIMEOUT:" + event.getTemplateId());
+    }
+
+    private void enqueue(SmsRequest msg, String reason) {
         UnparsedSmsLog logEntry = new UnparsedSmsLog();
         logEntry.setSender(msg.getSender());
         logEntry.setSmsRawBody(msg.getBody());
         logEntry.setTimestamp(msg.getTimestamp());
         logEntry.setErrorReason(reason);
-        logsRepository.save(logEntry);
+
+        if (closed) {
+            // Late arrivals during shutdown are written directly
+            write(List.of(logEntry));
+            return;
+        }
+        if (!buffer.offer(logEntry)) {
+            dropped.increment();
+            return;
+        }
+        if (buffer.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the final drain picks it up
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    // Runs on the flusher thread, or on the closing thread once the flusher has stopped
+    void flush() {
+        flushRequested.set(false);
+        while (!buffer.isEmpty()) {
+            List<UnparsedSmsLog> batch = new ArrayList<>(flushSize);
+            buffer.drainTo(batch, flushSize);
+            write(batch);
+        }
+    }
+
+    private void write(List<UnparsedSmsLog> batch) {
+        try {
+            flushTimer.record(() -> logsRepository.insertAll(batch));
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Failed to write {} unparsed SMS log entries", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        flusher.shutdown();
+        if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            flusher.shutdownNow();
+        }
+        flush();
     }
-}
\ No newline at end of file
+}
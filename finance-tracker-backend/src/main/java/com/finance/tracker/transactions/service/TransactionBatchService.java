@@ -6,34 +6,52 @@ import com.finance.tracker.accounts.domain.entities.Account;
 import com.finance.tracker.accounts.service.AccountService;
 import com.finance.tracker.category.domain.CategoryType;
 import com.finance.tracker.category.domain.entities.Category;
+import com.finance.tracker.category.exceptions.CategoryNotFoundException;
 import com.finance.tracker.category.service.CategoryService;
 import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import com.finance.tracker.sync.domain.ScanJob;
+import com.finance.tracker.sync.domain.ScanProgressEvent;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
+import com.finance.tracker.sync.domain.dtos.ScanResponse;
+import com.finance.tracker.sync.exceptions.InvalidScanStateException;
 import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
+import com.finance.tracker.sync.exceptions.ScanNotFoundException;
+import com.finance.tracker.sync.repository.KnownSmsRepository;
+import com.finance.tracker.sync.repository.ScanJobRepository;
 import com.finance.tracker.sync.service.SyncService;
 import com.finance.tracker.transactions.domain.*;
 import com.finance.tracker.transactions.domain.Currency;
 import com.finance.tracker.transactions.domain.dtos.BatchUpdateTransactionRequestDto;
 import com.finance.tracker.transactions.domain.entities.Transaction;
 import com.finance.tracker.transactions.repository.TransactionBatchRepository;
-import com.finance.tracker.transactions.repository.TransactionRepository;
 import com.finance.tracker.transactions.utilities.Constants;
+import com.finance.tracker.transactions.utilities.DateParserUtils;
+import com.finance.tracker.transactions.utilities.ParseScope;
+import com.finance.tracker.transactions.utilities.SmsFingerprint;
+import com.finance.tracker.transactions.utilities.SmsParseScheduler;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
-import org.springframework.util.DigestUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,25 +59,63 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionBatchService {
 
-    private static final int CHUNK_SIZE = 5;
+    private static final TypeReference<List<SmsRequest>> SMS_LIST = new TypeReference<>() {};
 
     private final TransactionBatchRepository batchRepository;
     private final PlatformTransactionManager transactionManager;
-    private final TransactionRepository transactionRepository;
     private final AccountService accountService;
     private final CategoryService categoryService;
     private final TransactionSmsService smsService;
     private final TransactionAuditService auditService;
     private final SyncService syncService;
+    private final ObjectMapper objectMapper;
+    private final SmsParseScheduler parseScheduler;
+    private final FingerprintFilterService fingerprintFilter;
+    private final ScanJobRepository scanJobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KnownSmsRepository knownSmsRepository;
+
+    // Drafts confirmed per transaction; each chunk costs a fixed number of statements
+    @Value("${app.transactions.confirm.chunk-size:500}")
+    private int confirmChunkSize;
+
+    @Value("${app.sync.stream.window-size:500}")
+    private int streamWindowSize;
+
+    @Value("${app.sync.chunk.max-size:5000}")
+    private int maxChunkSize;
+
+    // Rows per draft INSERT; each row binds 19 parameters and Postgres allows 65535 per statement
+    @Value("${app.sync.write-batch-size:250}")
+    private int writeBatchSize;
+
+    // Each size drives a loop step or a subList bound: 0 would never advance, a negative one throws mid-request
+    @PostConstruct
+    void validateSizes() {
+        requirePositive("app.transactions.confirm.chunk-size", confirmChunkSize);
+        requirePositive("app.sync.stream.window-size", streamWindowSize);
+        requirePositive("app.sync.chunk.max-size", maxChunkSize);
+        requirePositive("app.sync.write-batch-size", writeBatchSize);
+    }
 
-    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private static void requirePositive(String property, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException(property + " must be at least 1, was " + value);
+        }
+    }
 
+    /**
+     * Confirms reviewed drafts in chunks of {@code app.transactions.confirm.chunk-size}, each in its
+     * own transaction. A chunk resolves all its categories and accounts with one query each, confirms
+     * its drafts with one UPDATE, and moves each account's balance once. Rows that are already
+     * confirmed are skipped, so a retried request does not apply a balance twice.
+     */
     public void batchConfirmAndUpdate(UUID userId, List<BatchUpdateTransactionRequestDto> requests) {
 
-        for (int i = 0; i < requests.size(); i += CHUNK_SIZE) {
+        for (int i = 0; i < requests.size(); i += confirmChunkSize) {
 
             List<BatchUpdateTransactionRequestDto> chunk =
-                    requests.subList(i, Math.min(i + CHUNK_SIZE, requests.size()));
+                    requests.subList(i, Math.min(i + confirmChunkSize, requests.size()));
 
             processChunk(userId, chunk);
         }
@@ -72,48 +128,268 @@ public class TransactionBatchService {
 
         txTemplate.execute(status -> {
 
-            List<Transaction> transactions = new ArrayList<>();
+            // Step 1: Resolve every referenced category and account up front
+            Map<UUID, Category> categories = categoryService.validateAndGetAll(userId,
+                    chunk.stream().map(BatchUpdateTransactionRequestDto::categoryId).toList());
+            Map<UUID, Account> accounts = accountService.getAccountsByIdsAndUser(
+                    chunk.stream().map(BatchUpdateTransactionRequestDto::accountId).toList(), userId);
 
-            // Step 1: Validate each request
+            // Step 2: Validate each request against them
+            List<Transaction> transactions = new ArrayList<>(chunk.size());
             for (BatchUpdateTransactionRequestDto req : chunk) {
+                Category category = categories.get(req.categoryId());
+                if (category.getType() != CategoryType.fromValueIgnoreCase(req.type())) {
+                    throw new CategoryNotFoundException("Category not found or access denied");
+                }
                 Transaction trnx = newEntity(req);
-                Category category = categoryService.validateAndGet(userId, req.categoryId(), CategoryType.fromValueIgnoreCase(req.type()));
-                Account account = accountService.getAccountByIdAndUser(req.accountId(), userId);
                 trnx.setCategory(category);
-                trnx.setAccount(account);
+                trnx.setAccount(accounts.get(req.accountId()));
                 transactions.add(trnx);
             }
 
-            // Step 2: Batch update transaction table
-            batchRepository.batchUpdateAndConfirm(transactions);
+            // Step 3: Confirm the drafts, learning which ones were still drafts
+            List<BalanceUpdateRequest> confirmed = batchRepository.confirmDrafts(userId, transactions);
+
+            // Step 4: Update balances
+            accountService.updateBalancesForTransactions(confirmed, accounts, userId);
+
+            return null;
+        });
+    }
+
+    /**
+     * Runs without a surrounding transaction: dedup is a single read, parsing holds no
+     * connection, drafts are inserted in statements of {@code app.sync.write-batch-size} rows
+     * and finalizing the scan is its own step. If a write fails, the slices already committed
+     * are skipped as duplicates when the client retries the upload.
+     */
+    public BatchSyncResponse processBatch(UUID userId, BatchSyncRequest request) {
+        validate(request);
+
+        long startTime = System.currentTimeMillis();
 
-            // Step 3: Fetch updated transactions
-            List<UUID> ids = transactions.stream()
-                    .map(Transaction::getId)
-                    .toList();
+        BatchTally tally = new BatchTally();
+        try (ParseScope scope = parseScheduler.open(userId, request.scanId())) {
+            processWindow(userId, request.scanId(), request.smsList(), scope, tally);
+        }
 
-            List<Transaction> updatedTransactions =
-                    transactionRepository.findAllById(ids);
+        return completeScan(userId, request.scanId(), tally, startTime);
+    }
 
-            // Step 4: Update balance
-            for (Transaction txn : updatedTransactions) {
+    /**
+     * Binds a JSON upload for {@link #processBatch}, for callers that admit the upload before reading it.
+     */
+    public BatchSyncRequest readBatch(InputStream body) {
+        try {
+            return objectMapper.readValue(body, BatchSyncRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidSyncRequestException("Malformed batch upload");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read SMS upload", e);
+        }
+    }
 
-                accountService.updateBalanceForTransaction(
-                        new BalanceUpdateRequest(
-                                txn.getAccount().getId(),
-                                txn.getAmount(),
-                                txn.getType(),
-                                txn.getId()
-                        ), userId
-                );
+    /**
+     * Streaming variant of {@link #processBatch} for application/x-ndjson uploads: one SmsRequest
+     * per line, read incrementally and handled in windows of {@code app.sync.stream.window-size}.
+     * Windows go through the same steps as {@link #processBatch}, so neither the messages
+     * nor the saved entities of earlier windows stay on the heap.
+     */
+    public BatchSyncResponse processStream(UUID userId, UUID scanId, InputStream ndjson) {
+        // Reject a bad scan before anything is persisted, not after the whole upload
+        syncService.requireOpenScan(userId, scanId);
+
+        long startTime = System.currentTimeMillis();
+
+        BatchTally tally = new BatchTally();
+        List<SmsRequest> window = new ArrayList<>(streamWindowSize);
+
+        try (ParseScope scope = parseScheduler.open(userId, scanId);
+             JsonParser parser = objectMapper.createParser(ndjson)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new InvalidSyncRequestException(
+                            "Expected an SMS object at line " + parser.currentLocation().getLineNr());
+                }
+                window.add(parser.readValueAs(SmsRequest.class));
+
+                if (window.size() == streamWindowSize) {
+                    scope.throwIfCancelled();
+                    processWindow(userId, scanId, window, scope, tally);
+                    window.clear();
+                }
             }
 
-            return null;
+            if (!window.isEmpty()) {
+                processWindow(userId, scanId, window, scope, tally);
+            }
+        } catch (JsonProcessingException e) {
+            int line = e.getLocation() != null ? e.getLocation().getLineNr() : -1;
+            throw new InvalidSyncRequestException("Malformed NDJSON at line " + line);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read SMS upload", e);
+        }
+
+        return completeScan(userId, scanId, tally, startTime);
+    }
+
+    /**
+     * Accepts an upload for asynchronous processing: the messages go into the scan_jobs queue
+     * and the scan moves to QUEUED in one transaction, then a {@link ScanJobWorker} on any
+     * instance processes it. Progress is read from the scan, or streamed while it runs.
+     */
+    public ScanResponse enqueueBatch(UUID userId, BatchSyncRequest request) {
+        validate(request);
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request.smsList());
+        } catch (JsonProcessingException e) {
+            throw new InvalidSyncRequestException("SMS list cannot be serialized");
+        }
+
+        ScanResponse queued = new TransactionTemplate(transactionManager).execute(status -> {
+            ScanResponse scan = syncService.queueScan(userId, request.scanId(), request.smsList().size());
+            if (!scanJobRepository.enqueue(request.scanId(), userId, payload)) {
+                throw new InvalidScanStateException("Scan already has a queued upload");
+            }
+            return scan;
         });
+
+        // After commit, so a worker woken by it can claim the job
+        eventPublisher.publishEvent(new ScanProgressEvent(this, queued));
+        log.info("Scan {} queued with {} SMS", request.scanId(), request.smsList().size());
+        return queued;
     }
 
-    @Transactional
-    public BatchSyncResponse processBatch(UUID userId, BatchSyncRequest request) {
+    /**
+     * Processes an upload claimed from the scan_jobs queue through the same steps as
+     * {@link #processBatch}, in windows of {@code app.sync.stream.window-size}. The scan's
+     * counters and the job's lease are updated after every window, and a retried job resumes
+     * after the messages those counters cover. The job is removed once the scan is completed,
+     * or when the scan is cancelled, here or through the job row, and goes back to STARTED.
+     */
+    public void processQueuedScan(ScanJob job) {
+        List<SmsRequest> messages;
+        try {
+            messages = objectMapper.readValue(job.payload(), SMS_LIST);
+        } catch (JsonProcessingException e) {
+            throw new InvalidSyncRequestException("Queued upload is not a valid SMS list");
+        }
+
+        long startTime = System.currentTimeMillis();
+        BatchTally tally = new BatchTally();
+        int resumeAt = resume(job, messages, tally);
+
+        try (ParseScope scope = parseScheduler.open(job.userId(), job.scanId())) {
+            try {
+                for (int i = resumeAt; i < messages.size(); i += streamWindowSize) {
+                    if (scanJobRepository.isCancelRequested(job.scanId())) {
+                        parseScheduler.cancel(job.userId(), job.scanId());
+                    }
+                    scope.throwIfCancelled();
+                    List<SmsRequest> window = messages.subList(i, Math.min(i + streamWindowSize, messages.size()));
+                    processWindow(job.userId(), job.scanId(), window, scope, tally);
+                    syncService.recordProgress(job.scanId(), tally.summary());
+                    scanJobRepository.extendLease(job.scanId());
+                }
+            } catch (RuntimeException e) {
+                if (!scope.isCancelled()) {
+                    throw e;
+                }
+                scanJobRepository.delete(job.scanId());
+                syncService.reopenScan(job.scanId());
+                log.info("Queued scan {} cancelled after {} of {} SMS", job.scanId(), tally.total, messages.size());
+                return;
+            }
+        }
+
+        completeScan(job.userId(), job.scanId(), tally, startTime);
+        scanJobRepository.delete(job.scanId());
+    }
+
+    // An earlier attempt recorded progress after each window it saved: start from there, so its
+    // drafts are not counted again as duplicates. Only a window cut off mid-way is redone.
+    private int resume(ScanJob job, List<SmsRequest> messages, BatchTally tally) {
+        if (job.attempts() <= 1) {
+            return 0;
+        }
+        ScanResponse scan = syncService.getScan(job.userId(), job.scanId());
+        int done = Math.min(scan.totalSmsProcessed(), messages.size());
+        tally.total = done;
+        tally.created = scan.transactionsCreated();
+        tally.duplicates = scan.duplicatesSkipped();
+        tally.failedToParse = scan.failedToParse();
+        tally.seen(messages.subList(0, done));
+        if (done > 0) {
+            log.info("Queued scan {} attempt {} resumes after {} of {} SMS", job.scanId(), job.attempts(), done, messages.size());
+        }
+        return done;
+    }
+
+    /**
+     * Applies one numbered chunk of a scan. A chunk is processed at most once: re-sending a
+     * recorded chunk returns its stored outcome without parsing it again, so a client on a flaky
+     * network can resend from {@code nextChunk} after any failure. The scan stays STARTED until
+     * {@link SyncService#commitChunkedScan} completes it.
+     */
+    public ScanChunkResponse uploadChunk(UUID userId, UUID scanId, int chunkIndex, ScanChunkRequest request) {
+        if (chunkIndex < 0) {
+            throw new InvalidSyncRequestException("chunkIndex must not be negative");
+        }
+        if (request == null || request.smsList() == null) {
+            throw new InvalidSyncRequestException("smsList is required");
+        }
+        if (request.smsList().size() > maxChunkSize) {
+            throw new InvalidSyncRequestException("A chunk holds at most " + maxChunkSize + " SMS");
+        }
+        syncService.requireOpenScan(userId, scanId);
+
+        Optional<ScanChunk> recorded = syncService.findChunk(scanId, chunkIndex);
+        if (recorded.isPresent()) {
+            ScanResponse scan = syncService.getScan(userId, scanId);
+            ScanChunk chunk = recorded.get();
+            return new ScanChunkResponse(scanId, chunkIndex, true,
+                    chunk.totalSmsProcessed(), chunk.transactionsCreated(), chunk.duplicatesSkipped(),
+                    chunk.failedToParse(), scan.chunksReceived(), scan.nextChunk());
+        }
+
+        BatchTally tally = new BatchTally();
+        List<SmsRequest> messages = request.smsList();
+        try (ParseScope scope = parseScheduler.open(userId, scanId)) {
+            for (int i = 0; i < messages.size(); i += streamWindowSize) {
+                scope.throwIfCancelled();
+                processWindow(userId, scanId, messages.subList(i, Math.min(i + streamWindowSize, messages.size())), scope, tally);
+            }
+        }
+
+        // Drafts are already saved; if this fails the resend finds them as duplicates
+        return syncService.recordChunk(userId, scanId, new ScanChunk(chunkIndex,
+                tally.total, tally.created, tally.duplicates, tally.failedToParse, tally.latestTimestamp));
+    }
+
+    /**
+     * Stops a scan that is parsing in another request, withdraws an upload still waiting in
+     * the queue, or flags a queued upload being processed on another instance, whose worker
+     * stops at its next window. Windows already saved are kept, the scan goes back to STARTED
+     * and can be uploaded again; duplicates are skipped on retry.
+     */
+    public void cancelScan(UUID userId, UUID scanId) {
+        if (parseScheduler.cancel(userId, scanId)) {
+            return;
+        }
+        if (scanJobRepository.deleteIfQueued(scanId, userId)) {
+            syncService.reopenScan(scanId);
+            return;
+        }
+        if (scanJobRepository.requestCancel(scanId, userId)) {
+            return;
+        }
+        throw new ScanNotFoundException("Scan is not being processed");
+    }
+
+    private static void validate(BatchSyncRequest request) {
         if (request == null) {
             throw new InvalidSyncRequestException("Batch request is required");
         }
@@ -123,95 +399,99 @@ public class TransactionBatchService {
         if (request.smsList() == null) {
             throw new InvalidSyncRequestException("smsList is required");
         }
+    }
 
-        long startTime = System.currentTimeMillis();
-
+    private void processWindow(UUID userId, UUID scanId, List<SmsRequest> messages, ParseScope scope, BatchTally tally) {
         // 1. Bulk Deduplication
-        Map<String, SmsRequest> incomingMap = request.smsList().stream()
-                .collect(Collectors.toMap(this::generateSecureId, m -> m, (a, b) -> a));
-
-        Set<String> existingIds = transactionRepository.findExistingIdentifiers(incomingMap.keySet());
-
-        List<SmsRequest> newMessages = incomingMap.entrySet().stream()
-                .filter(entry -> !existingIds.contains(entry.getKey()))
-                .map(Map.Entry::getValue)
-                .toList();
-
-        int duplicates = request.smsList().size() - newMessages.size();
-
-        // 2. Parallel Processing with Virtual Threads
-        // We use a thread-safe list to collect results
-        List<Transaction> transactionsToSave = Collections.synchronizedList(new ArrayList<>());
-        AtomicInteger failedToParse = new AtomicInteger(0);
-
-        List<CompletableFuture<Transaction>> futures = newMessages.stream()
-                .map(msg -> CompletableFuture.supplyAsync(() -> {
-                    String uid = generateSecureId(msg);
-                    return smsService.parseTransactionFromSms(msg)
-                            .map(parsed -> getDraftTransaction(userId, uid, parsed, msg.getBody(), request.scanId()))
-                            .orElseGet(() -> {
-                                failedToParse.incrementAndGet();
-                                auditService.logFailedParsing(msg, "NO_REGEX_MATCH");
-                                return null;
-                            });
-                }, executor))
-                .toList();
-
-        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
-        futures.stream()
-                .map(CompletableFuture::join)
-                .filter(Objects::nonNull)
-                .forEach(transactionsToSave::add);
-
-        // 3. Optimized Batch Save
-        if (!transactionsToSave.isEmpty()) {
-            // Ensure spring.jpa.properties.hibernate.jdbc.batch_size=50 is set
-            transactionRepository.saveAll(transactionsToSave);
+        Map<UUID, SmsRequest> incomingMap = messages.stream()
+                .collect(Collectors.toMap(SmsFingerprint::of, m -> m, (a, b) -> a, LinkedHashMap::new));
+
+        // Only fingerprints the user's filter cannot rule out are probed in the database
+        Set<UUID> candidates = fingerprintFilter.mayExist(userId, incomingMap.keySet());
+        Set<UUID> existingIds = candidates.isEmpty()
+                ? Set.of()
+                : batchRepository.findExistingFingerprints(userId, candidates);
+
+        List<UUID> newFingerprints = new ArrayList<>(incomingMap.size());
+        List<SmsRequest> newMessages = new ArrayList<>(incomingMap.size());
+        incomingMap.forEach((fingerprint, msg) -> {
+            if (!existingIds.contains(fingerprint)) {
+                newFingerprints.add(fingerprint);
+                newMessages.add(msg);
+            }
+        });
+
+        tally.total += messages.size();
+        tally.duplicates += messages.size() - newMessages.size();
+
+        tally.seen(messages);
+
+        // 2. Batch parse: results come back in the order of newMessages
+        List<Transaction> transactionsToSave = new ArrayList<>(newMessages.size());
+
+        List<Optional<ParsedTransaction>> parsed = smsService.parseAll(newMessages, scope);
+        for (int i = 0; i < newMessages.size(); i++) {
+            SmsRequest msg = newMessages.get(i);
+            Optional<ParsedTransaction> result = parsed.get(i);
+            if (result.isPresent()) {
+                transactionsToSave.add(getDraftTransaction(userId, newFingerprints.get(i), result.get(), msg, scanId));
+            } else {
+                tally.failedToParse++;
+                auditService.logFailedParsing(msg, "NO_REGEX_MATCH");
+            }
         }
 
-        // 4. AUTOMATIC END SCAN: Update History
-        EndScanRequest endScanRequest = EndScanRequest.builder()
-                .transactionsCreated(transactionsToSave.size())
-                .duplicatesSkipped(duplicates)
-                .totalSmsProcessed(request.smsList().size())
-                .failedToParse(failedToParse.get())
-                .build();
+        // 3. Bulk insert; a draft another upload created meanwhile counts as a duplicate
+        int inserted = persistDrafts(transactionsToSave);
+        fingerprintFilter.added(userId, transactionsToSave.stream().map(Transaction::getFingerprint).toList());
+        tally.created += inserted;
+        tally.duplicates += transactionsToSave.size() - inserted;
+
+        // 4. Only messages now backed by a transaction row are safe for the client to skip on a
+        // re-sync; one that failed to parse is sent again, so a parser fix can still pick it up
+        Map<UUID, Long> known = new LinkedHashMap<>(incomingMap.size());
+        incomingMap.forEach((fingerprint, msg) -> {
+            if (existingIds.contains(fingerprint)) {
+                known.put(fingerprint, msg.getTimestamp());
+            }
+        });
+        for (Transaction draft : transactionsToSave) {
+            known.put(draft.getFingerprint(), incomingMap.get(draft.getFingerprint()).getTimestamp());
+        }
+        knownSmsRepository.recordAll(userId, known);
+    }
 
-        syncService.finalizeScan(
-                userId, request.scanId(),
-                endScanRequest
-        );
+    // One multi-row INSERT per bounded slice; a connection is held only while it runs
+    private int persistDrafts(List<Transaction> drafts) {
+        int inserted = 0;
+        for (int i = 0; i < drafts.size(); i += writeBatchSize) {
+            inserted += batchRepository.insertDrafts(drafts.subList(i, Math.min(i + writeBatchSize, drafts.size())));
+        }
+        return inserted;
+    }
+
+    private BatchSyncResponse completeScan(UUID userId, UUID scanId, BatchTally tally, long startTime) {
+        // 4. AUTOMATIC END SCAN: Update History (own transaction, applies at most once)
+        syncService.finalizeScan(userId, scanId, tally.summary());
 
         // 5. UPDATE METADATA: Move the "Bookmark" forward
-        // Use the timestamp of the latest SMS in the batch (regardless of if it parsed)
-        long latestTimestamp = request.smsList().stream()
-                .mapToLong(SmsRequest::getTimestamp)
-                .max()
-                .orElse(0L);
-
-        if (latestTimestamp > 0) {
-            syncService.updateMetadata(userId, latestTimestamp);
+        if (tally.latestTimestamp > 0) {
+            syncService.updateMetadata(userId, tally.latestTimestamp);
         }
 
-        log.info("Scan {} completed: {} new txns, {} ms", request.scanId(), transactionsToSave.size(), (System.currentTimeMillis() - startTime));
+        log.info("Scan {} completed: {} of {} SMS became new txns, {} ms",
+                scanId, tally.created, tally.total, (System.currentTimeMillis() - startTime));
 
         return new BatchSyncResponse(
-                transactionsToSave.size(),
-                duplicates,
-                failedToParse.get()
+                tally.created,
+                tally.duplicates,
+                tally.failedToParse
         );
     }
 
-    private String generateSecureId(SmsRequest message) {
-        // SHA-256 is more production-grade than MD5 for collisions
-        return DigestUtils.md5DigestAsHex((message.getBody() + message.getTimestamp()).getBytes());
-    }
-
-    private Transaction getDraftTransaction(UUID userId, String uid, ParsedTransaction pt, String raw, UUID scanId) {
-        BigDecimal amount = new BigDecimal(pt.getAmount().replace(",", ""));
-
+    private Transaction getDraftTransaction(UUID userId, UUID fingerprint, ParsedTransaction pt, SmsRequest msg, UUID scanId) {
         return Transaction.builder()
-                .amount(amount)
+                .amount(BigDecimal.valueOf(pt.getAmountMinor(), 2))
                 .createdAt(Instant.now())
                 .currency(Currency.INR)
                 .transactionName("Auto-detected Transaction")
@@ -219,13 +499,14 @@ public class TransactionBatchService {
                 .lastAction("CREATED")
                 .userId(userId)
                 .type(TransactionType.UNKNOWN)
-                // Ensure occurredAt is parsed using a consistent formatter or fallback to now
-                .occurredAt(safeParseDateTime(pt.getDateTime()))
+                // Date from the SMS text, else when the SMS was received
+                .occurredAt(DateParserUtils.toOffsetDateTime(pt.getOccurredAtMillis(), msg.getTimestamp()))
                 .postedAt(OffsetDateTime.now())
                 .merchant(pt.getMerchant() != null ? pt.getMerchant() : "Unknown Merchant")
                 .source(TransactionSource.SMS)
-                .uniqueIdentifier(uid)
-                .originalMessage(raw)
+                .fingerprint(fingerprint)
+                .uniqueIdentifier(fingerprint.toString())
+                .originalMessage(msg.getBody())
                 .externalRef(String.format("Scan Id: %s", scanId))
                 .account(Account.builder().id(Constants.DUMMY_ACCOUNT_ID).lastFour("0000").accountType(AccountType.BANK).version(0L).build())
                 .category(Category.builder().id(Constants.DUMMY_CATEGORY_ID).build())
@@ -247,12 +528,30 @@ public class TransactionBatchService {
                 .build();
     }
 
-    private OffsetDateTime safeParseDateTime(String dateTimeStr) {
-        try {
-            // Implementation depends on your parser's output format
-            return OffsetDateTime.parse(dateTimeStr);
-        } catch (Exception e) {
-            return OffsetDateTime.now(); // Fallback to current time if parsing fails
+    // Running counts for one scan, accumulated across windows
+    private static final class BatchTally {
+        int total;
+        int created;
+        int duplicates;
+        int failedToParse;
+        long latestTimestamp;
+
+        // Use the timestamp of the latest SMS (regardless of if it parsed) for the bookmark
+        void seen(List<SmsRequest> messages) {
+            for (SmsRequest msg : messages) {
+                if (msg.getTimestamp() != null) {
+                    latestTimestamp = Math.max(latestTimestamp, msg.getTimestamp());
+                }
+            }
+        }
+
+        EndScanRequest summary() {
+            return EndScanRequest.builder()
+                    .transactionsCreated(created)
+                    .duplicatesSkipped(duplicates)
+                    .totalSmsProcessed(total)
+                    .failedToParse(failedToParse)
+                    .build();
         }
     }
 }
@@ -2,6 +2,7 @@ package com.finance.tracker.transactions.service;
 
 import com.finance.tracker.transactions.domain.ParsedTransaction;
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.utilities.ParseScope;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +11,15 @@ public interface TransactionSmsService {
     void exportMessages(List<SmsRequest> messageList);
     void exportMessagesSendToQueue(List<SmsRequest> messageList);
     Optional<ParsedTransaction> parseTransactionFromSms(SmsRequest message);
+
+    /**
+     * Parses a batch split across workers; results are in input order,
+     * empty where no parser produced a satisfactory result.
+     */
+    List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages);
+
+    /**
+     * Same as {@link #parseAll(List)}, sharing the parse workers under the given scan's scope.
+     */
+    List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, ParseScope scope);
 }
@@ -1,18 +1,33 @@
 package com.finance.tracker.transactions.service.impl;
 
 import com.finance.tracker.transactions.domain.BankTemplate;
+import com.finance.tracker.transactions.domain.BankTemplateSet;
 import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.TemplateTimeoutEvent;
+import com.finance.tracker.transactions.exceptions.RegexBudgetExceededException;
 import com.finance.tracker.transactions.service.SmsParserService;
+import com.finance.tracker.transactions.utilities.AmountParserUtils;
 import com.finance.tracker.transactions.utilities.BankSenderRegistry;
+import com.finance.tracker.transactions.utilities.BudgetedCharSequence;
 import com.finance.tracker.transactions.utilities.DateParserUtils;
 import com.finance.tracker.transactions.utilities.TemplateLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 @Service("bankSmsParser")
@@ -22,9 +37,52 @@ public class BankSmsParserServiceImpl implements SmsParserService {
 
     private final BankSenderRegistry senderRegistry;
     private final TemplateLoader templateLoader;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Character reads a single template match may perform before it is aborted
+    @Value("${app.templates.match-budget:1000000}")
+    private long matchBudget;
+
+    // Overruns after which a template is quarantined until templates are reloaded
+    @Value("${app.templates.quarantine-after:3}")
+    private int quarantineAfter;
+
+    // Per-template prefilter counters, keyed by BankTemplate id
+    private final Map<String, TemplateCounters> counters = new ConcurrentHashMap<>();
 
     @Override
     public Optional<ParsedTransaction> parse(SmsRequest sms) {
+        return parse(sms, null);
+    }
+
+    @Override
+    public Optional<ParsedTransaction> parse(SmsRequest sms, ShapeHint hint) {
+        return parse(sms, hint, new Matchers(matchBudget));
+    }
+
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints) {
+        return parseAll(messages, hints, new BitSet());
+    }
+
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints,
+                                                      BitSet inconclusive) {
+        Matchers matchers = new Matchers(matchBudget);
+        List<Optional<ParsedTransaction>> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Optional<ParsedTransaction> result = parse(messages.get(i), hints.get(i), matchers);
+            if (result.isEmpty() && matchers.inconclusive) {
+                inconclusive.set(i);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private Optional<ParsedTransaction> parse(SmsRequest sms, ShapeHint hint, Matchers matchers) {
+        matchers.inconclusive = false;
 
         Optional<String> bankOpt = senderRegistry.resolveBank(sms.getSender());
         if (bankOpt.isEmpty()) {
@@ -32,44 +90,163 @@ public class BankSmsParserServiceImpl implements SmsParserService {
         }
 
         String bank = bankOpt.get();
-        List<BankTemplate> templates = templateLoader.load(bank);
+        BankTemplateSet templateSet = templateLoader.loadSet(bank);
+        List<BankTemplate> templates = templateSet.templates();
         String smsBody = sms.getBody();
 
+        // Skip templates whose required literals are missing from the body
+        boolean[] candidates = templateSet.candidates(smsBody);
+
+        // Same shape won with this template before: when it scores as well as it did then, take its
+        // match without trying the rest, otherwise compare every template as if there were no hint
+        int preferred = hint != null ? templateSet.indexOf(hint.templateId()) : -1;
+        ParsedTransaction hinted = null;
+        if (preferred >= 0) {
+            hinted = tryTemplate(sms, bank, templates.get(preferred), candidates[preferred], matchers);
+            if (hinted != null && hinted.getConfidence() >= hint.confidence()) {
+                return Optional.of(hinted);
+            }
+        }
+
         ParsedTransaction bestTx = null;
-        double bestConfidence = 0.0;
-
-        for (BankTemplate template : templates) {
-            Matcher matcher = template.getCompiledPattern().matcher(smsBody);
-
-            if (matcher.find()) {
-                double confidence = calculateConfidence(template, matcher);
-                log.info("Bank={} Template={} Confidence={}", bank, template.getName(), confidence);
-
-                if (confidence > bestConfidence) {
-                    bestConfidence = confidence;
-
-                    bestTx = ParsedTransaction.builder()
-                            .bank(bank)
-                            .amount(get(matcher, "Amount"))
-                            .merchant(get(matcher, "Merchant"))
-                            .lastFour(extractLast4Digits(get(matcher, "LastFour")))
-                            .dateTime(DateParserUtils.combine(get(matcher, "Date"), get(matcher, "Time")).toString())
-                            .availableLimit(get(matcher, "AvailableLimit"))
-                            .confidence(confidence)
-                            .build();
-                }
+
+        for (int i = 0; i < templates.size(); i++) {
+            ParsedTransaction tx = i == preferred ? hinted
+                    : tryTemplate(sms, bank, templates.get(i), candidates[i], matchers);
+            if (tx != null && (bestTx == null || tx.getConfidence() > bestTx.getConfidence())) {
+                bestTx = tx;
             }
         }
 
         return Optional.ofNullable(bestTx);
     }
 
-    private String get (Matcher matcher, String group){
+    // Runs one template against the body; null when skipped, timed out or not matched
+    private ParsedTransaction tryTemplate(SmsRequest sms, String bank, BankTemplate template, boolean candidate,
+                                          Matchers matchers) {
+        TemplateCounters templateCounters = countersFor(bank, template);
+
+        if (!candidate) {
+            templateCounters.skipped().increment();
+            return null;
+        }
+        if (template.isQuarantined()) {
+            templateCounters.quarantined().increment();
+            matchers.inconclusive = true;
+            return null;
+        }
+
+        Matcher matcher = matchers.forTemplate(template, sms.getBody());
+
+        boolean found;
         try {
-            return matcher.group(group);
-        } catch (Exception e) {
+            found = matcher.find();
+        } catch (RegexBudgetExceededException e) {
+            templateCounters.timedOut().increment();
+            matchers.inconclusive = true;
+            onOverrun(sms, template);
             return null;
         }
+
+        if (!found) {
+            templateCounters.missed().increment();
+            return null;
+        }
+
+        templateCounters.hit().increment();
+        double confidence = calculateConfidence(template, matcher);
+        log.info("Bank={} Template={} Confidence={}", bank, template.getName(), confidence);
+        if (confidence <= 0.0) {
+            return null;
+        }
+
+        // Read values from the body itself: the matcher input counts reads against the budget
+        String body = sms.getBody();
+        int amount = template.groupIndex("Amount");
+        long amountMinor = amount < 0 || matcher.start(amount) < 0 ? AmountParserUtils.INVALID
+                : AmountParserUtils.toMinorUnits(body, matcher.start(amount), matcher.end(amount));
+        if (amountMinor == AmountParserUtils.INVALID) {
+            return null;
+        }
+        long occurredAt = occurredAt(template, matcher, body);
+
+        return ParsedTransaction.builder()
+                .bank(bank)
+                .merchant(get(matcher, template, "Merchant"))
+                .lastFour(extractLast4Digits(get(matcher, template, "LastFour")))
+                .availableLimit(get(matcher, template, "AvailableLimit"))
+                .confidence(confidence)
+                .templateId(template.getId())
+                .amountMinor(amountMinor)
+                .occurredAtMillis(occurredAt)
+                .build();
+    }
+
+    private long occurredAt(BankTemplate template, Matcher matcher, String body) {
+        int date = template.groupIndex("Date");
+        if (date < 0 || matcher.start(date) < 0) return DateParserUtils.INVALID;
+        int time = template.groupIndex("Time");
+        boolean hasTime = time >= 0 && matcher.start(time) >= 0;
+        return DateParserUtils.toEpochMillis(body, matcher.start(date), matcher.end(date),
+                hasTime ? body : null, hasTime ? matcher.start(time) : 0, hasTime ? matcher.end(time) : 0);
+    }
+
+    private void onOverrun(SmsRequest sms, BankTemplate template) {
+        boolean quarantined = template.recordOverrun(quarantineAfter);
+        if (quarantined) {
+            log.error("Template={} quarantined after {} match budget overruns", template.getId(), template.getOverruns().get());
+        } else {
+            log.warn("Template={} exceeded match budget of {} reads", template.getId(), matchBudget);
+        }
+        eventPublisher.publishEvent(new TemplateTimeoutEvent(this, sms, template.getId(), quarantined));
+    }
+
+    private TemplateCounters countersFor(String bank, BankTemplate template) {
+        TemplateCounters existing = counters.get(template.getId());
+        if (existing != null) {
+            return existing;
+        }
+        return counters.computeIfAbsent(template.getId(), id -> new TemplateCounters(
+                templateCounter(bank, id, "skipped"),
+                templateCounter(bank, id, "hit"),
+                templateCounter(bank, id, "miss"),
+                templateCounter(bank, id, "timeout"),
+                templateCounter(bank, id, "quarantined")));
+    }
+
+    private Counter templateCounter(String bank, String templateId, String outcome) {
+        return Counter.builder("sms.template.prefilter")
+                .description("Bank template evaluations by prefilter outcome")
+                .tag("bank", bank)
+                .tag("template", templateId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // Matchers reused across the messages of one parse call, all reading the same budgeted input
+    private static final class Matchers {
+        private final BudgetedCharSequence input;
+        private final Map<BankTemplate, Matcher> byTemplate = new IdentityHashMap<>();
+        // Whether a template was skipped for the current message by its budget or quarantine
+        private boolean inconclusive;
+
+        Matchers(long budget) {
+            this.input = new BudgetedCharSequence("", budget);
+        }
+
+        // Every match gets the full budget
+        Matcher forTemplate(BankTemplate template, String body) {
+            Matcher matcher = byTemplate.computeIfAbsent(template, t -> t.guardedMatcher(input));
+            return matcher.reset(input.reset(body));
+        }
+    }
+
+    private record TemplateCounters(Counter skipped, Counter hit, Counter missed,
+                                    Counter timedOut, Counter quarantined) {}
+
+    private String get(Matcher matcher, BankTemplate template, String group) {
+        int index = template.groupIndex(group);
+        return index < 0 ? null : matcher.group(index);
     }
 
     private double calculateConfidence(BankTemplate template, Matcher matcher) {
@@ -78,13 +255,10 @@ public class BankSmsParserServiceImpl implements SmsParserService {
         int matchedFields = 0;
 
         for (String field : template.getFields()) {
-            try {
-                String value = matcher.group(field);
-                if (value != null && !value.isBlank()) {
-                    matchedFields++;
-                }
-            } catch (IllegalArgumentException ignored) {
-                // named group not present in regex
+            // Fields without a named group in the regex never count as matched
+            String value = get(matcher, template, field);
+            if (value != null && !value.isBlank()) {
+                matchedFields++;
             }
         }
 
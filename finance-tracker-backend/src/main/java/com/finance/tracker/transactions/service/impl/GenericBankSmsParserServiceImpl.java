@@ -1,78 +1,94 @@
 package com.finance.tracker.transactions.service.impl;
 
 import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
+import com.finance.tracker.transactions.domain.SmsKeyword;
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.SmsTokenType;
 import com.finance.tracker.transactions.service.SmsParserService;
+import com.finance.tracker.transactions.utilities.AmountParserUtils;
+import com.finance.tracker.transactions.utilities.DateParserUtils;
+import com.finance.tracker.transactions.utilities.SmsTokenizer;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service("genericSmsParser")
 public class GenericBankSmsParserServiceImpl implements SmsParserService {
 
-    private static final Pattern AMOUNT =
-            Pattern.compile("(?i)(rs\\.?|inr|₹)\\s?([\\d,]+(?:\\.\\d{1,2})?)");
+    private static final SmsKeyword[] DEBIT = {
+            SmsKeyword.DEBITED, SmsKeyword.SPENT, SmsKeyword.PAID, SmsKeyword.WITHDRAWN, SmsKeyword.PURCHASE
+    };
 
-    private static final Pattern DEBIT =
-            Pattern.compile("(?i)(debited|spent|paid|withdrawn|purchase)");
-
-    private static final Pattern CREDIT =
-            Pattern.compile("(?i)(credited|received|refund|deposited)");
-
-    private static final Pattern MERCHANT =
-            Pattern.compile("(?i)(?:at|to)\\s+([a-z0-9 &._-]{3,})");
-
-    private static final Pattern DATE =
-            Pattern.compile("(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})");
-
-    private static final Pattern LAST_FOUR =
-            Pattern.compile("(?i)(?:AC|A/C|A/c|a/c|ac)\\s*[Xx]?(\\d{4})\\b");
+    private static final SmsKeyword[] CREDIT = {
+            SmsKeyword.CREDITED, SmsKeyword.RECEIVED, SmsKeyword.REFUND, SmsKeyword.DEPOSITED
+    };
 
     @Override
     public Optional<ParsedTransaction> parse(SmsRequest sms) {
+        return parse(sms, new SmsTokenizer());
+    }
+
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints) {
+        SmsTokenizer tokenizer = new SmsTokenizer();
+        List<Optional<ParsedTransaction>> results = new ArrayList<>(messages.size());
+        for (SmsRequest sms : messages) {
+            results.add(parse(sms, tokenizer));
+        }
+        return results;
+    }
+
+    private Optional<ParsedTransaction> parse(SmsRequest sms, SmsTokenizer tokenizer) {
+        SmsTokenizer tokens = tokenizer.tokenize(sms.getBody());
         String smsBody = sms.getBody();
-        String amount = extract(AMOUNT, smsBody, 2);
-        if (amount == null) {
+        int amountToken = tokens.first(SmsTokenType.AMOUNT);
+        long amountMinor = amountToken < 0 ? AmountParserUtils.INVALID
+                : AmountParserUtils.toMinorUnits(smsBody, tokens.start(amountToken), tokens.end(amountToken));
+        if (amountMinor == AmountParserUtils.INVALID) {
             return Optional.empty(); // amount is mandatory
         }
 
-        String type = DEBIT.matcher(smsBody).find() ? "DEBIT"
-                : CREDIT.matcher(smsBody).find() ? "CREDIT"
+        String type = tokens.containsAny(DEBIT) ? "DEBIT"
+                : tokens.containsAny(CREDIT) ? "CREDIT"
                 : null;
 
-        String merchant = extract(MERCHANT, smsBody, 1);
-        String date = extract(DATE, smsBody, 1);
-        String lastFour = extract(LAST_FOUR, smsBody, 1);
+        String merchant = tokens.firstValue(SmsTokenType.MERCHANT);
+        boolean hasDate = tokens.first(SmsTokenType.DATE) >= 0;
+        String lastFour = tokens.firstValue(SmsTokenType.ACCOUNT_MASK);
 
-        double confidence = calculateConfidence(amount, type, merchant, date);
+        double confidence = calculateConfidence(type, merchant, hasDate);
 
         return Optional.of(
                 ParsedTransaction.builder()
                         .bank("UNKNOWN")
-                        .amount(amount)
                         .lastFour(lastFour)
                         .merchant(merchant != null ? merchant.toUpperCase() : null)
-                        .dateTime(date)
+                        .amountMinor(amountMinor)
+                        .occurredAtMillis(occurredAt(tokens, smsBody))
                         .confidence(confidence)
                         .build()
         );
     }
 
-    private String extract(Pattern pattern, String text, int group) {
-        Matcher matcher = pattern.matcher(text);
-        return matcher.find() ? matcher.group(group) : null;
+    // First date, with the first time of day if the message has one
+    private long occurredAt(SmsTokenizer tokens, String smsBody) {
+        int date = tokens.first(SmsTokenType.DATE);
+        if (date < 0) return DateParserUtils.INVALID;
+        int time = tokens.first(SmsTokenType.TIME);
+        return DateParserUtils.toEpochMillis(smsBody, tokens.start(date), tokens.end(date),
+                time < 0 ? null : smsBody, time < 0 ? 0 : tokens.start(time), time < 0 ? 0 : tokens.end(time));
     }
 
-    private double calculateConfidence(String amount, String type,
-                                       String merchant, String date) {
+    // The amount is mandatory, so it always scores
+    private double calculateConfidence(String type, String merchant, boolean hasDate) {
 
-        int score = 0;
-        if (amount != null) score += 50;
+        int score = 50;
         if (type != null) score += 20;
         if (merchant != null) score += 20;
-        if (date != null) score += 10;
+        if (hasDate) score += 10;
 
         return score / 100.0;
     }
@@ -12,11 +12,12 @@ import com.finance.tracker.transactions.domain.dtos.CreateTransactionRequestDto;
 import com.finance.tracker.transactions.domain.dtos.TransactionResponseDto;
 import com.finance.tracker.transactions.domain.dtos.UpdateTransactionRequestDto;
 import com.finance.tracker.transactions.domain.entities.Transaction;
-import com.finance.tracker.transactions.domain.entities.UnparsedSmsLog;
 import com.finance.tracker.transactions.exceptions.TransactionNotFoundException;
+import com.finance.tracker.transactions.repository.TransactionBatchRepository;
 import com.finance.tracker.transactions.repository.TransactionRepository;
-import com.finance.tracker.transactions.repository.UnparsedSmsLogsRepository;
 import com.finance.tracker.transactions.service.*;
+import com.finance.tracker.transactions.utilities.DateParserUtils;
+import com.finance.tracker.transactions.utilities.SmsFingerprint;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -28,8 +29,10 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Slf4j
@@ -37,12 +40,17 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
 
+    // Statuses covered by the fingerprint's partial unique index; a deleted draft does not block re-import
+    private static final Set<TransactionStatus> LIVE_STATUSES = EnumSet.of(TransactionStatus.DRAFT, TransactionStatus.CONFIRMED);
+
     private final TransactionRepository transactionRepository;
+    private final TransactionBatchRepository batchRepository;
     private final TransactionSmsService smsService;
     private final TransactionAnalyticsService analyticsService;
     private final AccountService accountService;
-    private final UnparsedSmsLogsRepository unparsedSmsLogsRepository;
+    private final TransactionAuditService auditService;
     private final CategoryService categoryService;
+    private final FingerprintFilterService fingerprintFilter;
 
     @Transactional
     @Override
@@ -213,18 +221,14 @@ public class TransactionServiceImpl implements TransactionService {
 
     @Override
     public ParsedTxnResponse parse(UUID userId, SmsRequest message) {
-        String uniqueIdentifier = generateSecureId(message);
-        Optional<Transaction> optionalTransaction = transactionRepository.findTransactionByUniqueIdentifier(uniqueIdentifier);
-        if (optionalTransaction.isPresent()) {
-            return ParsedTxnResponse.builder()
-                    .status("DUPLICATE")
-                    .uniqueIdentifier(uniqueIdentifier)
-                    .parsedTransaction(null)
-                    .build();
+        UUID fingerprint = SmsFingerprint.of(message);
+        String uniqueIdentifier = fingerprint.toString();
+        if (transactionRepository.existsByUserIdAndFingerprintAndStatusIn(userId, fingerprint, LIVE_STATUSES)) {
+            return duplicate(uniqueIdentifier);
         }
         Optional<ParsedTransaction> parsedTransaction = smsService.parseTransactionFromSms(message);
         if(parsedTransaction.isEmpty()){
-            logFailedParsing(message, "NO_REGEX_MATCH");
+            auditService.logFailedParsing(message, "NO_REGEX_MATCH");
 
             return ParsedTxnResponse.builder()
                     .status("FAILED_TO_PARSE") // Mobile app knows it was received but couldn't be read
@@ -232,8 +236,10 @@ public class TransactionServiceImpl implements TransactionService {
                     .parsedTransaction(null)
                     .build();
         }
-        // save parsed transaction as draft
-        saveParsedTransaction(userId, uniqueIdentifier, parsedTransaction.get(), message.getBody());
+        // save parsed transaction as draft; a batch upload may have stored the same SMS meanwhile
+        if (!saveParsedTransaction(userId, fingerprint, parsedTransaction.get(), message)) {
+            return duplicate(uniqueIdentifier);
+        }
         return ParsedTxnResponse.builder()
                 .status("CREATED")
                 .uniqueIdentifier(uniqueIdentifier)
@@ -260,18 +266,24 @@ public class TransactionServiceImpl implements TransactionService {
         );
     }
 
-    private void saveParsedTransaction(UUID userId, String uniqueIdentifier, ParsedTransaction parsedTransaction, String originalMessage) {
-        // 1. Sanitize the amount string to handle commas
-        String sanitizedAmount = parsedTransaction.getAmount().replace(",", "");
+    private ParsedTxnResponse duplicate(String uniqueIdentifier) {
+        return ParsedTxnResponse.builder()
+                .status("DUPLICATE")
+                .uniqueIdentifier(uniqueIdentifier)
+                .parsedTransaction(null)
+                .build();
+    }
 
-        // 2. Build detailed notes for the Review Page
+    // Returns false if a draft with the same fingerprint already exists
+    private boolean saveParsedTransaction(UUID userId, UUID fingerprint, ParsedTransaction parsedTransaction, SmsRequest message) {
+        // 1. Build detailed notes for the Review Page
         String notes = String.format("Bank: %s\nRef: %s",
                 parsedTransaction.getBank(),
                 parsedTransaction.getReferenceId() != null ? parsedTransaction.getReferenceId() : "N/A");
 
-        // 3. Map the DRAFT entity
+        // 2. Map the DRAFT entity
         Transaction draftTransaction = Transaction.builder()
-                .amount(new BigDecimal(sanitizedAmount))
+                .amount(BigDecimal.valueOf(parsedTransaction.getAmountMinor(), 2))
                 .createdAt(Instant.now())
                 .currency(Currency.INR)
                 .transactionName("Auto-detected Transaction")
@@ -281,43 +293,22 @@ public class TransactionServiceImpl implements TransactionService {
                 .category(dummyCategory())
                 .userId(userId)
                 .type(TransactionType.UNKNOWN)
-                // Ensure occurredAt is parsed using a consistent formatter or fallback to now
-                .occurredAt(safeParseDateTime(parsedTransaction.getDateTime()))
+                // Date from the SMS text, else when the SMS was received
+                .occurredAt(DateParserUtils.toOffsetDateTime(parsedTransaction.getOccurredAtMillis(), message.getTimestamp()))
                 .postedAt(OffsetDateTime.now())
                 .merchant(parsedTransaction.getMerchant() != null ? parsedTransaction.getMerchant() : "Unknown Merchant")
                 .source(TransactionSource.SMS)
                 .notes(notes)
-                .uniqueIdentifier(uniqueIdentifier)
-                .originalMessage(originalMessage)
+                .fingerprint(fingerprint)
+                .uniqueIdentifier(fingerprint.toString())
+                .originalMessage(message.getBody())
                 .build();
 
-        transactionRepository.save(draftTransaction);
-    }
-
-    private String generateSecureId(SmsRequest msg) {
-        // For production, use DigestUtils.sha256Hex(msg.getBody())
-        return String.format("sms_%s_%d_%d",
-                msg.getSender(),
-                msg.getTimestamp(),
-                msg.getBody().hashCode());
-    }
-
-    private void logFailedParsing(SmsRequest msg, String reason) {
-        UnparsedSmsLog log = new UnparsedSmsLog();
-        log.setSender(msg.getSender());
-        log.setSmsRawBody(msg.getBody());
-        log.setTimestamp(msg.getTimestamp());
-        log.setErrorReason(reason);
-        unparsedSmsLogsRepository.save(log);
-    }
-
-    private OffsetDateTime safeParseDateTime(String dateTimeStr) {
-        try {
-            // Implementation depends on your parser's output format
-            return OffsetDateTime.parse(dateTimeStr);
-        } catch (Exception e) {
-            return OffsetDateTime.now(); // Fallback to current time if parsing fails
+        boolean inserted = batchRepository.insertDrafts(List.of(draftTransaction)) == 1;
+        if (inserted) {
+            fingerprintFilter.added(userId, List.of(fingerprint));
         }
+        return inserted;
     }
 
     @Override
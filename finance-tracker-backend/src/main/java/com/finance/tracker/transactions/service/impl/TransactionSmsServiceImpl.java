@@ -2,11 +2,18 @@ package com.finance.tracker.transactions.service.impl;
 
 import com.finance.tracker.transactions.domain.CreateTransactionRequest;
 import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
+import com.finance.tracker.transactions.domain.SmsFeatures;
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.SmsRoute;
 import com.finance.tracker.transactions.exceptions.SmsParsingFailedException;
 import com.finance.tracker.transactions.service.MessageProducer;
 import com.finance.tracker.transactions.service.SmsParserService;
 import com.finance.tracker.transactions.service.TransactionSmsService;
+import com.finance.tracker.transactions.utilities.ParseScope;
+import com.finance.tracker.transactions.utilities.SmsClassifier;
+import com.finance.tracker.transactions.utilities.SmsParseScheduler;
+import com.finance.tracker.transactions.utilities.SmsShapeCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -14,6 +21,10 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,6 +35,17 @@ public class TransactionSmsServiceImpl implements TransactionSmsService {
 
     private final Map<String, SmsParserService> parserMap;
     private final MessageProducer messageProducer;
+    private final SmsClassifier classifier;
+    private final SmsShapeCache shapeCache;
+
+    private final SmsParseScheduler parseScheduler;
+
+    // Chunks stay between these sizes: big enough to reuse matchers, small enough to interleave scans
+    @Value("${app.sms.parse.min-chunk-size:64}")
+    private int minChunkSize;
+
+    @Value("${app.sms.parse.max-chunk-size:512}")
+    private int maxChunkSize;
 
     @Value("${transaction.default-category-id}")
     private String defaultCategoryId;
@@ -51,42 +73,116 @@ public class TransactionSmsServiceImpl implements TransactionSmsService {
 
     @Override
     public Optional<ParsedTransaction> parseTransactionFromSms(SmsRequest message) {
+        return parseChunk(List.of(message)).get(0);
+    }
 
-        //UPI → UPI parser
-        if (isUpi(message.getBody())) {
-            Optional<ParsedTransaction> upiResult =
-                    parserMap.get("upiSmsParser").parse(message);
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages) {
+        return parseAll(messages, parseScheduler.detached());
+    }
 
-            if (isSatisfactory(upiResult)) {
-                return upiResult;
-            }
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, ParseScope scope) {
+        int n = messages.size();
+        scope.throwIfCancelled();
+        if (n <= minChunkSize) {
+            return parseChunk(messages);
         }
 
-        //Bank → Bank parser
-        Optional<ParsedTransaction> bankResult =
-                parserMap.get("bankSmsParser").parse(message);
+        // Contiguous chunks, so each worker keeps its matchers for many messages
+        int perWorker = (n + parseScheduler.workers() - 1) / parseScheduler.workers();
+        int chunkSize = Math.max(minChunkSize, Math.min(maxChunkSize, perWorker));
+        return parseScheduler.map(scope, messages, chunkSize, this::parseChunk);
+    }
 
-        if (isSatisfactory(bankResult)) {
-            return bankResult;
+    /**
+     * Parses the chunk route by route: every message still unresolved is handed,
+     * together with the others waiting on the same parser, to that parser's parseAll.
+     */
+    private List<Optional<ParsedTransaction>> parseChunk(List<SmsRequest> chunk) {
+        int n = chunk.size();
+        List<Optional<ParsedTransaction>> results = new ArrayList<>(Collections.nCopies(n, Optional.empty()));
+        long[] shapes = new long[n];
+        ShapeHint[] hints = new ShapeHint[n];
+        List<List<SmsRoute>> plans = new ArrayList<>(n);
+
+        for (int i = 0; i < n; i++) {
+            // Classify once, then only run the parsers that can still succeed
+            SmsFeatures features = classifier.classify(chunk.get(i));
+            shapes[i] = features.shape();
+            hints[i] = shapeCache.get(shapes[i]);
+            plans.add(plan(features, hints[i]));
         }
 
-        //Generic fallback
-        Optional<ParsedTransaction> genericResult =
-                parserMap.get("genericSmsParser").parse(message);
+        boolean[] done = new boolean[n];
+        // A budget overrun or quarantined template left the message unparsed, not its shape
+        boolean[] inconclusive = new boolean[n];
+        for (int round = 0; round < SmsRoute.values().length; round++) {
+            Map<SmsRoute, List<Integer>> pending = new EnumMap<>(SmsRoute.class);
+            for (int i = 0; i < n; i++) {
+                if (!done[i] && plans.get(i).size() > round) {
+                    pending.computeIfAbsent(plans.get(i).get(round), r -> new ArrayList<>()).add(i);
+                }
+            }
+            if (pending.isEmpty()) break;
+
+            for (Map.Entry<SmsRoute, List<Integer>> entry : pending.entrySet()) {
+                SmsRoute route = entry.getKey();
+                List<Integer> indices = entry.getValue();
+
+                List<SmsRequest> messages = new ArrayList<>(indices.size());
+                List<ShapeHint> routeHints = new ArrayList<>(indices.size());
+                for (int i : indices) {
+                    messages.add(chunk.get(i));
+                    routeHints.add(hints[i] != null && hints[i].route() == route ? hints[i] : null);
+                }
+
+                BitSet routeInconclusive = new BitSet(indices.size());
+                List<Optional<ParsedTransaction>> outcomes =
+                        parserMap.get(route.getParserName()).parseAll(messages, routeHints, routeInconclusive);
+
+                for (int k = 0; k < indices.size(); k++) {
+                    if (routeInconclusive.get(k)) {
+                        inconclusive[indices.get(k)] = true;
+                    }
+                    Optional<ParsedTransaction> result = outcomes.get(k);
+                    if (isSatisfactory(result)) {
+                        int i = indices.get(k);
+                        results.set(i, result);
+                        done[i] = true;
+                        ShapeHint learned = new ShapeHint(route, result.get().getTemplateId(), result.get().getConfidence());
+                        if (!learned.equals(hints[i])) {
+                            shapeCache.put(shapes[i], learned);
+                        }
+                    }
+                }
+            }
+        }
 
-        if (isSatisfactory(genericResult)) {
-            return genericResult;
+        for (int i = 0; i < n; i++) {
+            if (!done[i] && !inconclusive[i] && (hints[i] == null || !hints[i].isUnparseable())) {
+                shapeCache.put(shapes[i], ShapeHint.UNPARSEABLE);
+            }
         }
+        return results;
+    }
 
-        return Optional.empty();
+    // Same shape seen before: its route goes first, or nothing runs if it never parsed
+    private List<SmsRoute> plan(SmsFeatures features, ShapeHint hint) {
+        if (hint == null) {
+            return features.routes();
+        }
+        if (hint.isUnparseable()) {
+            return List.of();
+        }
+        List<SmsRoute> routes = new ArrayList<>(features.routes());
+        routes.remove(hint.route());
+        routes.add(0, hint.route());
+        return routes;
     }
 
     private boolean isSatisfactory(Optional<ParsedTransaction> result) {
         return result.isPresent()
                 && result.get().getConfidence() >= CONFIDENCE_THRESHOLD;
     }
-
-    private boolean isUpi(String sms) {
-        return sms.matches("(?i).*\\bupi\\b.*|.*@.*");
-    }
 }
@@ -1,74 +1,77 @@
 package com.finance.tracker.transactions.service.impl;
 
 import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
+import com.finance.tracker.transactions.domain.SmsKeyword;
 import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.SmsTokenType;
 import com.finance.tracker.transactions.service.SmsParserService;
+import com.finance.tracker.transactions.utilities.AmountParserUtils;
+import com.finance.tracker.transactions.utilities.DateParserUtils;
+import com.finance.tracker.transactions.utilities.SmsTokenizer;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service("upiSmsParser")
 public class UpiSmsParserServiceImpl implements SmsParserService {
 
-    private static final Pattern UPI_HINT =
-            Pattern.compile("(?i)\\bupi\\b|@");
+    private static final SmsKeyword[] DEBIT = {
+            SmsKeyword.PAID, SmsKeyword.SENT, SmsKeyword.DEBITED
+    };
 
-    private static final Pattern AMOUNT =
-            Pattern.compile("(?i)(rs\\.?|inr|₹)\\s?([\\d,]+(?:\\.\\d{1,2})?)");
+    private static final SmsKeyword[] CREDIT = {
+            SmsKeyword.RECEIVED, SmsKeyword.CREDITED
+    };
 
-    private static final Pattern DEBIT =
-            Pattern.compile("(?i)(paid|sent|debited)");
-
-    private static final Pattern CREDIT =
-            Pattern.compile("(?i)(received|credited)");
-
-    private static final Pattern UPI_ID =
-            Pattern.compile("(?i)([a-z0-9._-]+@[a-z0-9._-]+)");
-
-    private static final Pattern MERCHANT =
-            Pattern.compile("(?i)(?:to|from)\\s+([a-z0-9._-]{3,})@");
-
-    private static final Pattern UTR =
-            Pattern.compile("(?i)(utr|ref)[^a-z0-9]?[:#]?\\s?([a-z0-9]+)");
+    @Override
+    public Optional<ParsedTransaction> parse(SmsRequest sms) {
+        return parse(sms, new SmsTokenizer());
+    }
 
-    private static final Pattern DATE =
-            Pattern.compile("(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})");
+    @Override
+    public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints) {
+        SmsTokenizer tokenizer = new SmsTokenizer();
+        List<Optional<ParsedTransaction>> results = new ArrayList<>(messages.size());
+        for (SmsRequest sms : messages) {
+            results.add(parse(sms, tokenizer));
+        }
+        return results;
+    }
 
-    private static final Pattern LAST_FOUR =
-            Pattern.compile("(?i)(?:AC|A/C|A/c|a/c|ac)\\s*[Xx]?(\\d{4})\\b");
+    private Optional<ParsedTransaction> parse(SmsRequest sms, SmsTokenizer tokenizer) {
+        SmsTokenizer tokens = tokenizer.tokenize(sms.getBody());
 
-    @Override
-    public Optional<ParsedTransaction> parse(SmsRequest sms) {
         // Fast reject if message doesn't look like UPI
-        String smsBody = sms.getBody();
-        if (!UPI_HINT.matcher(smsBody).find()) {
+        if (!tokens.upiHint()) {
             return Optional.empty();
         }
 
-        String amount = extract(AMOUNT, smsBody, 2);
-        if (amount == null) {
+        String smsBody = sms.getBody();
+        int amountToken = tokens.first(SmsTokenType.AMOUNT);
+        long amountMinor = amountToken < 0 ? AmountParserUtils.INVALID
+                : AmountParserUtils.toMinorUnits(smsBody, tokens.start(amountToken), tokens.end(amountToken));
+        if (amountMinor == AmountParserUtils.INVALID) {
             return Optional.empty();
         }
 
         String type =
-                DEBIT.matcher(smsBody).find() ? "DEBIT" :
-                        CREDIT.matcher(smsBody).find() ? "CREDIT" :
+                tokens.containsAny(DEBIT) ? "DEBIT" :
+                        tokens.containsAny(CREDIT) ? "CREDIT" :
                                 null;
 
-        String upiId = extract(UPI_ID, smsBody, 1);
-        String merchant = extract(MERCHANT, smsBody, 1);
-        String utr = extract(UTR, smsBody, 2);
-        String date = extract(DATE, smsBody, 1);
-        String lastFour = extract(LAST_FOUR, smsBody, 1);
+        String upiId = tokens.firstValue(SmsTokenType.VPA);
+        String merchant = tokens.firstValue(SmsTokenType.PAYEE);
+        String utr = tokens.firstValue(SmsTokenType.REFERENCE);
+        String lastFour = tokens.firstValue(SmsTokenType.ACCOUNT_MASK);
 
-        double confidence = calculateConfidence(amount, type, upiId, utr);
+        double confidence = calculateConfidence(type, upiId, utr);
 
         return Optional.of(
                 ParsedTransaction.builder()
                         .bank("UPI")
-                        .amount(amount)
                         .lastFour(lastFour)
                         .merchant(
                                 merchant != null
@@ -76,27 +79,31 @@ public class UpiSmsParserServiceImpl implements SmsParserService {
                                         : extractMerchantFromUpi(upiId)
                         )
                         .referenceId(utr)
-                        .dateTime(date)
+                        .amountMinor(amountMinor)
+                        .occurredAtMillis(occurredAt(tokens, smsBody))
                         .confidence(confidence)
                         .build()
         );
     }
 
-    private String extract(Pattern pattern, String text, int group) {
-        Matcher matcher = pattern.matcher(text);
-        return matcher.find() ? matcher.group(group) : null;
-    }
-
     private String extractMerchantFromUpi(String upiId) {
         if (upiId == null) return null;
         return upiId.split("@")[0].toUpperCase();
     }
 
-    private double calculateConfidence(String amount, String type,
-                                       String upiId, String utr) {
+    // First date, with the first time of day if the message has one
+    private long occurredAt(SmsTokenizer tokens, String smsBody) {
+        int date = tokens.first(SmsTokenType.DATE);
+        if (date < 0) return DateParserUtils.INVALID;
+        int time = tokens.first(SmsTokenType.TIME);
+        return DateParserUtils.toEpochMillis(smsBody, tokens.start(date), tokens.end(date),
+                time < 0 ? null : smsBody, time < 0 ? 0 : tokens.start(time), time < 0 ? 0 : tokens.end(time));
+    }
+
+    // The amount is mandatory, so it always scores
+    private double calculateConfidence(String type, String upiId, String utr) {
 
-        int score = 0;
-        if (amount != null) score += 40;
+        int score = 40;
         if (type != null) score += 20;
         if (upiId != null) score += 20;
         if (utr != null) score += 20;
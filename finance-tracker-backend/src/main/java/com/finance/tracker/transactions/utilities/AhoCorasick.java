@@ -0,0 +1,151 @@
+package com.finance.tracker.transactions.utilities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+/**
+ * Immutable Aho-Corasick automaton over a fixed set of keywords.
+ * Built once, then scans any text in a single pass regardless of how many
+ * keywords it holds. Keywords are matched as-is unless built with ignoreCase.
+ */
+public final class AhoCorasick<V> {
+
+    private final List<Map<Character, Integer>> children;
+    private final int[] fail;
+    // Longest keyword ending at each node (own keyword or inherited through fail links)
+    private final int[] outLength;
+    private final List<V> outValue;
+    // Keyword ending exactly at each node, and the next node on the fail chain that ends one
+    private final List<V> value;
+    private final int[] dictionaryLink;
+    private final boolean ignoreCase;
+
+    private AhoCorasick(List<Map<Character, Integer>> children, int[] fail, int[] outLength, List<V> outValue,
+                        List<V> value, int[] dictionaryLink, boolean ignoreCase) {
+        this.children = children;
+        this.fail = fail;
+        this.outLength = outLength;
+        this.outValue = outValue;
+        this.value = value;
+        this.dictionaryLink = dictionaryLink;
+        this.ignoreCase = ignoreCase;
+    }
+
+    public static <V> AhoCorasick<V> build(Map<String, V> keywords) {
+        return build(keywords, false);
+    }
+
+    public static <V> AhoCorasick<V> build(Map<String, V> keywords, boolean ignoreCase) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<Integer> depth = new ArrayList<>();
+        List<V> values = new ArrayList<>();
+        children.add(new HashMap<>());
+        depth.add(0);
+        values.add(null);
+
+        // 1. Trie
+        for (Map.Entry<String, V> entry : keywords.entrySet()) {
+            String key = ignoreCase ? entry.getKey().toLowerCase() : entry.getKey();
+            if (key.isEmpty()) continue;
+            int node = 0;
+            for (int i = 0; i < key.length(); i++) {
+                Integer next = children.get(node).get(key.charAt(i));
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    depth.add(depth.get(node) + 1);
+                    values.add(null);
+                    children.get(node).put(key.charAt(i), next);
+                }
+                node = next;
+            }
+            values.set(node, entry.getValue());
+        }
+
+        int size = children.size();
+        int[] fail = new int[size];
+        int[] outLength = new int[size];
+        int[] dictionaryLink = new int[size];
+        List<V> outValue = new ArrayList<>(values);
+
+        // 2. Failure links, breadth first so parents are resolved before children
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : children.get(0).values()) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            dictionaryLink[node] = values.get(fail[node]) != null ? fail[node] : dictionaryLink[fail[node]];
+            if (values.get(node) != null) {
+                outLength[node] = depth.get(node);
+            } else {
+                outLength[node] = outLength[fail[node]];
+                outValue.set(node, outValue.get(fail[node]));
+            }
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                int child = edge.getValue();
+                int f = fail[node];
+                while (f != 0 && !children.get(f).containsKey(edge.getKey())) {
+                    f = fail[f];
+                }
+                Integer target = children.get(f).get(edge.getKey());
+                fail[child] = (target != null && target != child) ? target : 0;
+                queue.add(child);
+            }
+        }
+
+        return new AhoCorasick<>(children, fail, outLength, outValue, values, dictionaryLink, ignoreCase);
+    }
+
+    /**
+     * Value of the longest keyword occurring in the text; ties go to the leftmost occurrence.
+     * Returns null when no keyword occurs.
+     */
+    public V findLongest(CharSequence text) {
+        int node = 0;
+        int bestLength = 0;
+        V best = null;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            if (outLength[node] > bestLength) {
+                bestLength = outLength[node];
+                best = outValue.get(node);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reports the value of every keyword occurrence in the text, overlapping ones included.
+     */
+    public void forEachMatch(CharSequence text, Consumer<V> action) {
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, text.charAt(i));
+            for (int out = node; out != 0; out = dictionaryLink[out]) {
+                V v = value.get(out);
+                if (v != null) {
+                    action.accept(v);
+                }
+            }
+        }
+    }
+
+    private int step(int node, char c) {
+        if (ignoreCase) {
+            c = Character.toLowerCase(c);
+        }
+        while (true) {
+            Integer next = children.get(node).get(c);
+            if (next != null) return next;
+            if (node == 0) return 0;
+            node = fail[node];
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.finance.tracker.transactions.utilities;
+
+public class AmountParserUtils {
+
+    public static final long INVALID = -1L;
+
+    /**
+     * Reads an amount such as "1,04,999.5" straight from the text into paise.
+     * Commas are ignored wherever they are, at most two decimals are accepted.
+     * Returns INVALID instead of throwing when the text is not an amount.
+     */
+    public static long toMinorUnits(CharSequence text, int start, int end) {
+        long units = 0;
+        int digits = 0;
+        int decimals = -1; // -1 until the decimal point is seen
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (decimals >= 0 && ++decimals > 2) return INVALID;
+                if (units > (Long.MAX_VALUE - 9) / 10) return INVALID;
+                units = units * 10 + (c - '0');
+                digits++;
+            } else if (c == '.') {
+                if (decimals >= 0) return INVALID;
+                decimals = 0;
+            } else if (c != ',') {
+                return INVALID;
+            }
+        }
+        if (digits == 0) return INVALID;
+
+        for (int scale = Math.max(decimals, 0); scale < 2; scale++) {
+            if (units > Long.MAX_VALUE / 10) return INVALID;
+            units *= 10;
+        }
+        return units;
+    }
+
+    public static long toMinorUnits(CharSequence text) {
+        return text == null ? INVALID : toMinorUnits(text, 0, text.length());
+    }
+}
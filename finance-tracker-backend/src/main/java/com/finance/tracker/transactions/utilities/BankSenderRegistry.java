@@ -1,38 +1,69 @@
 package com.finance.tracker.transactions.utilities;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Component
 public class BankSenderRegistry {
 
-    private static final Map<String, String> SENDER_TO_BANK = Map.ofEntries(
-            Map.entry("HDFC", "HDFC"),
-            Map.entry("HDFCBK", "HDFC"),
-            Map.entry("SBI", "SBI"),
-            Map.entry("SBIINB", "SBI"),
-            Map.entry("ICICI", "ICICI"),
-            Map.entry("ICICIB", "ICICI"),
-            Map.entry("AXIS", "AXIS"),
-            Map.entry("AXISBK", "AXIS"),
-            Map.entry("KOTAK", "KOTAK"),
-            Map.entry("KOTAKB", "KOTAK"),
-            Map.entry("PNB", "PNB"),
-            Map.entry("YESBANK", "YES"),
-            Map.entry("IDFC", "IDFC"),
-            Map.entry("BOB", "BOB")
-    );
+    // Sender ids (DLT headers without the operator prefix) per bank, compiled into one automaton
+    private final AhoCorasick<String> senderMatcher;
 
+    public BankSenderRegistry(@Value("${app.senders.file:/bank_senders.json}") String sendersFile) {
+        this.senderMatcher = AhoCorasick.build(loadSenders(sendersFile));
+    }
+
+    /**
+     * Resolves the bank for a sender such as "AX-HDFCBK" or "VM-ICICIB-S".
+     * The longest registered sender id found in the header wins, so "SBIINB"
+     * is preferred over "SBI" whatever order the registry was loaded in.
+     */
     public Optional<String> resolveBank(String senderId) {
         if (senderId == null) return Optional.empty();
 
-        String normalized = senderId.toUpperCase();
+        return Optional.ofNullable(senderMatcher.findLongest(normalize(senderId)));
+    }
+
+    /**
+     * Upper-cases the sender, drops the two letter operator/circle prefix ("AX-")
+     * and the trailing message category ("-S", "-T", "-P", "-G").
+     */
+    static String normalize(String senderId) {
+        String header = senderId.trim().toUpperCase();
+
+        if (header.length() > 3 && header.charAt(2) == '-'
+                && Character.isLetter(header.charAt(0)) && Character.isLetter(header.charAt(1))) {
+            header = header.substring(3);
+        }
+        int len = header.length();
+        if (len > 2 && header.charAt(len - 2) == '-' && Character.isLetter(header.charAt(len - 1))) {
+            header = header.substring(0, len - 2);
+        }
+        return header;
+    }
+
+    private static Map<String, String> loadSenders(String sendersFile) {
+        try (InputStream is = BankSenderRegistry.class.getResourceAsStream(sendersFile)) {
+            if (is == null) {
+                throw new IllegalStateException("Sender registry not found: " + sendersFile);
+            }
 
-        return SENDER_TO_BANK.entrySet().stream()
-                .filter(e -> normalized.contains(e.getKey()))
-                .map(Map.Entry::getValue)
-                .findFirst();
+            Map<String, List<String>> banks = new ObjectMapper().readValue(is, new TypeReference<>() {});
+            Map<String, String> senderToBank = new HashMap<>();
+            banks.forEach((bank, senders) ->
+                    senders.forEach(sender -> senderToBank.put(normalize(sender), bank)));
+            return senderToBank;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed loading sender registry " + sendersFile, e);
+        }
     }
 }
@@ -0,0 +1,54 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.exceptions.RegexBudgetExceededException;
+
+/**
+ * CharSequence view that counts charAt calls and aborts once the budget is spent.
+ * java.util.regex reads its input only through charAt, so this bounds the work
+ * (including catastrophic backtracking) a single match can do.
+ */
+public final class BudgetedCharSequence implements CharSequence {
+
+    private CharSequence delegate;
+    private final long budget;
+    private long reads;
+
+    public BudgetedCharSequence(CharSequence delegate, long budget) {
+        this.delegate = delegate;
+        this.budget = budget;
+    }
+
+    /**
+     * Points the view at another input with a fresh budget, so one instance
+     * (and the matchers reading it) can be reused across messages.
+     */
+    public BudgetedCharSequence reset(CharSequence delegate) {
+        this.delegate = delegate;
+        this.reads = 0;
+        return this;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++reads > budget) {
+            throw new RegexBudgetExceededException(budget);
+        }
+        return delegate.charAt(index);
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    // Used by Matcher.group() once the match is done, not counted
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return delegate.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -1,31 +1,175 @@
 package com.finance.tracker.transactions.utilities;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Locale;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 
 public class DateParserUtils {
 
-    // Define the pattern to match the SMS: "dd-MM-yy HH:mm:ss"
-    // Note: 'yy' is for 2-digit year (26), 'yyyy' would be for 2026.
-    private static final DateTimeFormatter SMS_TIMESTAMP_FORMAT = 
-        DateTimeFormatter.ofPattern("dd-MM-yy HH:mm:ss", Locale.ENGLISH);
+    public static final long INVALID = Long.MIN_VALUE;
 
+    // Dates in Indian bank alerts are local time; IST has no daylight saving, a fixed offset is exact
+    public static final ZoneOffset SMS_ZONE_OFFSET = ZoneOffset.ofHoursMinutes(5, 30);
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final String[] MONTHS =
+            {"jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+
+    /**
+     * Combines an SMS date ("10-01-26") and time ("08:50:53") into a local timestamp,
+     * falling back to the current time when they cannot be read.
+     */
     public static LocalDateTime combine(String dateStr, String timeStr) {
-        try {
-            // 1. Concatenate them with a space
-            String rawTimestamp = dateStr + " " + timeStr; 
-            // Result: "10-01-26 08:50:53"
-
-            // 2. Parse into a LocalDateTime object
-            return LocalDateTime.parse(rawTimestamp, SMS_TIMESTAMP_FORMAT);
-            
-        } catch (DateTimeParseException e) {
-            // Fallback: If parsing fails, use current system time
-            // or log the error to alert you to a format change
-            System.err.println("Failed to parse date: " + dateStr + " " + timeStr);
-            return LocalDateTime.now(); 
+        long millis = toEpochMillis(dateStr, timeStr);
+        if (millis == INVALID) {
+            return LocalDateTime.now();
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), 0, SMS_ZONE_OFFSET);
+    }
+
+    public static long toEpochMillis(String dateStr, String timeStr) {
+        if (dateStr == null) return INVALID;
+        return toEpochMillis(dateStr, 0, dateStr.length(),
+                timeStr, 0, timeStr == null ? 0 : timeStr.length());
+    }
+
+    /**
+     * Epoch millis of a date (dd-MM-yy, dd/MM/yyyy, dd-MMM-yy, ...) and an optional
+     * time (HH:mm or HH:mm:ss) read in place from the given ranges, in IST.
+     * A null time means midnight. Returns INVALID instead of throwing.
+     */
+    public static long toEpochMillis(CharSequence date, int dateStart, int dateEnd,
+                                     CharSequence time, int timeStart, int timeEnd) {
+        long epochDay = toEpochDay(date, dateStart, dateEnd);
+        if (epochDay == INVALID) return INVALID;
+
+        long millisOfDay = 0;
+        if (time != null && timeEnd > timeStart) {
+            millisOfDay = toMillisOfDay(time, timeStart, timeEnd);
+            if (millisOfDay < 0) return INVALID;
+        }
+        return epochDay * MILLIS_PER_DAY + millisOfDay - SMS_ZONE_OFFSET.getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * Timestamp for a parsed transaction, or the fallback (the SMS receive time) when it has none.
+     */
+    public static OffsetDateTime toOffsetDateTime(long epochMillis, Long fallbackMillis) {
+        long millis = epochMillis != INVALID ? epochMillis
+                : fallbackMillis != null && fallbackMillis > 0 ? fallbackMillis
+                : System.currentTimeMillis();
+        return Instant.ofEpochMilli(millis).atOffset(SMS_ZONE_OFFSET);
+    }
+
+    private static long toEpochDay(CharSequence s, int start, int end) {
+        int i = start;
+
+        int dayEnd = digitRun(s, i, end, 2);
+        if (dayEnd == i) return INVALID;
+        int day = number(s, i, dayEnd);
+        i = dayEnd;
+        if (i >= end || !isDateSeparator(s.charAt(i))) return INVALID;
+        i++;
+
+        int month;
+        int monthEnd = digitRun(s, i, end, 2);
+        if (monthEnd > i) {
+            month = number(s, i, monthEnd);
+        } else {
+            monthEnd = Math.min(i + 3, end);
+            month = monthName(s, i, monthEnd);
+        }
+        i = monthEnd;
+        if (i >= end || !isDateSeparator(s.charAt(i))) return INVALID;
+        i++;
+
+        int yearEnd = digitRun(s, i, end, 4);
+        int yearDigits = yearEnd - i;
+        if (yearEnd != end || (yearDigits != 2 && yearDigits != 4)) return INVALID;
+        int year = number(s, i, yearEnd);
+        if (yearDigits == 2) year += 2000;
+
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) return INVALID;
+        return epochDay(year, month, day);
+    }
+
+    private static long toMillisOfDay(CharSequence s, int start, int end) {
+        int hourEnd = digitRun(s, start, end, 2);
+        if (hourEnd == start || hourEnd >= end || s.charAt(hourEnd) != ':') return -1;
+        int minuteStart = hourEnd + 1;
+        int minuteEnd = digitRun(s, minuteStart, end, 2);
+        if (minuteEnd - minuteStart != 2) return -1;
+
+        int second = 0;
+        if (minuteEnd < end) {
+            int secondStart = minuteEnd + 1;
+            int secondEnd = digitRun(s, secondStart, end, 2);
+            if (s.charAt(minuteEnd) != ':' || secondEnd - secondStart != 2 || secondEnd != end) return -1;
+            second = number(s, secondStart, secondEnd);
+        }
+
+        int hour = number(s, start, hourEnd);
+        int minute = number(s, minuteStart, minuteEnd);
+        if (hour > 23 || minute > 59 || second > 59) return -1;
+        return ((hour * 60L + minute) * 60 + second) * 1000;
+    }
+
+    // Days since 1970-01-01 in the proleptic Gregorian calendar (same result as LocalDate.toEpochDay)
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // End of the digit run starting at i, reading at most max digits
+    private static int digitRun(CharSequence s, int i, int end, int max) {
+        int j = i;
+        while (j < end && j - i < max && isDigit(s.charAt(j))) j++;
+        return j;
+    }
+
+    private static int number(CharSequence s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
         }
+        return value;
+    }
+
+    private static int monthName(CharSequence s, int start, int end) {
+        if (end - start != 3) return -1;
+        for (int m = 0; m < MONTHS.length; m++) {
+            String name = MONTHS[m];
+            if (lower(s.charAt(start)) == name.charAt(0)
+                    && lower(s.charAt(start + 1)) == name.charAt(1)
+                    && lower(s.charAt(start + 2)) == name.charAt(2)) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDateSeparator(char c) {
+        return c == '-' || c == '/';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.finance.tracker.transactions.utilities;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over SMS fingerprints. Answers "certainly absent" or "maybe present":
+ * a fingerprint that was put is never reported absent, one that was not is reported
+ * present with roughly the configured false positive rate while the filter holds no
+ * more than its capacity. Safe for concurrent puts and lookups.
+ */
+public final class FingerprintBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final int MAX_HASHES = 16;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private final AtomicInteger insertions = new AtomicInteger();
+
+    private FingerprintBloomFilter(long bitCount, int hashCount, int capacity) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+    }
+
+    public static FingerprintBloomFilter create(int capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid filter sizing: " + capacity + " / " + falsePositiveRate);
+        }
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long bits = Math.max(64, (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2)));
+        int hashes = (int) Math.round((double) bits / capacity * LN2);
+        return new FingerprintBloomFilter(bits, Math.max(1, Math.min(MAX_HASHES, hashes)), capacity);
+    }
+
+    public void put(UUID fingerprint) {
+        // Fingerprints are SHA-256 prefixes, both halves are already independent uniform hashes
+        long h1 = fingerprint.getMostSignificantBits();
+        long h2 = fingerprint.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(UUID fingerprint) {
+        long h1 = fingerprint.getMostSignificantBits();
+        long h2 = fingerprint.getLeastSignificantBits();
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * More fingerprints were put than the filter was sized for, so the false positive
+     * rate is drifting up. The filter stays correct; it should be rebuilt larger.
+     */
+    public boolean isSaturated() {
+        return insertions.get() > capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+}
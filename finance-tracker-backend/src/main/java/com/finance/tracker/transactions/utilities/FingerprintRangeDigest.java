@@ -0,0 +1,70 @@
+package com.finance.tracker.transactions.utilities;
+
+import java.util.UUID;
+
+/**
+ * Summary of a set of SMS fingerprints split into 2^bucketBits ranges by the leading bits of
+ * the fingerprint. Each range keeps its count and the XOR of the low 64 bits of its members.
+ *
+ * A client builds the same digest over its own messages and compares range by range: equal
+ * count and hash means the range holds the same fingerprints, anything else means it differs
+ * and its messages should be uploaded. Unlike a Bloom filter there are no false "present"
+ * answers, so no message is ever skipped that the server does not have.
+ */
+public final class FingerprintRangeDigest {
+
+    public static final int MAX_BUCKET_BITS = 20;
+
+    private final int bucketBits;
+    private final int[] counts;
+    private final long[] hashes;
+    private long size;
+
+    public FingerprintRangeDigest(int bucketBits) {
+        if (bucketBits < 0 || bucketBits > MAX_BUCKET_BITS) {
+            throw new IllegalArgumentException("bucketBits must be between 0 and " + MAX_BUCKET_BITS);
+        }
+        this.bucketBits = bucketBits;
+        this.counts = new int[1 << bucketBits];
+        this.hashes = new long[1 << bucketBits];
+    }
+
+    /**
+     * Fewest bucket bits that keep about {@code targetBucketSize} fingerprints per range, capped at maxBits.
+     */
+    public static int bucketBitsFor(long size, int targetBucketSize, int maxBits) {
+        int bits = 0;
+        while (bits < maxBits && (size >> bits) > targetBucketSize) {
+            bits++;
+        }
+        return bits;
+    }
+
+    // Fingerprints are SHA-256 prefixes, so the top bits spread evenly over the ranges
+    public int bucketOf(UUID fingerprint) {
+        return bucketBits == 0 ? 0 : (int) (fingerprint.getMostSignificantBits() >>> (Long.SIZE - bucketBits));
+    }
+
+    public void add(UUID fingerprint) {
+        int bucket = bucketOf(fingerprint);
+        counts[bucket]++;
+        hashes[bucket] ^= fingerprint.getLeastSignificantBits();
+        size++;
+    }
+
+    public int bucketBits() {
+        return bucketBits;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int[] counts() {
+        return counts.clone();
+    }
+
+    public long[] hashes() {
+        return hashes.clone();
+    }
+}
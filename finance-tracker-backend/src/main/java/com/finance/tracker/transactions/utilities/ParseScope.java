@@ -0,0 +1,74 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.sync.exceptions.InvalidScanStateException;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * One scan's share of the {@link SmsParseScheduler}: caps the chunks it has in flight
+ * and lets the scan be cancelled from another request. Close it when the scan's parsing is over.
+ */
+public final class ParseScope implements AutoCloseable {
+
+    private final UUID userId;
+    private final UUID scanId;
+    private final Semaphore inFlight;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private final Runnable onClose;
+    private volatile boolean cancelled;
+
+    ParseScope(UUID userId, UUID scanId, int parallelism, Runnable onClose) {
+        this.userId = userId;
+        this.scanId = scanId;
+        this.inFlight = new Semaphore(parallelism);
+        this.onClose = onClose;
+    }
+
+    public UUID userId() {
+        return userId;
+    }
+
+    public UUID scanId() {
+        return scanId;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new InvalidScanStateException("Scan was cancelled");
+        }
+    }
+
+    // Chunks already running finish (they are bounded), nothing new is started
+    void cancel() {
+        cancelled = true;
+        pending.forEach(future -> future.cancel(false));
+    }
+
+    Semaphore inFlight() {
+        return inFlight;
+    }
+
+    void track(CompletableFuture<?> future) {
+        pending.add(future);
+        if (cancelled) {
+            future.cancel(false);
+        }
+    }
+
+    void untrack(CompletableFuture<?> future) {
+        pending.remove(future);
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+}
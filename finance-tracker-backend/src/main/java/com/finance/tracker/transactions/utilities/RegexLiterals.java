@@ -0,0 +1,202 @@
+package com.finance.tracker.transactions.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts literal substrings that every match of a regex must contain.
+ * Only the top-level sequence is inspected: groups, classes and quantified
+ * atoms end a literal run, and a top-level alternation means nothing is required.
+ * The result is conservative (it may miss literals, it never invents one).
+ */
+public final class RegexLiterals {
+
+    // Shorter runs are almost always present and not worth a lookup
+    private static final int MIN_LITERAL_LENGTH = 3;
+
+    private RegexLiterals() {}
+
+    /**
+     * Lower-cased required literals, for use against patterns compiled CASE_INSENSITIVE.
+     */
+    public static List<String> extract(String regex) {
+        List<String> literals = new ArrayList<>();
+        StringBuilder run = new StringBuilder();
+        int n = regex.length();
+        int i = 0;
+
+        while (i < n) {
+            char c = regex.charAt(i);
+            int literal = -1;
+
+            switch (c) {
+                case '\\' -> {
+                    if (i + 1 >= n) return List.of();
+                    char next = regex.charAt(i + 1);
+                    if (!Character.isLetterOrDigit(next)) {
+                        literal = next;
+                        i += 2;
+                    } else {
+                        i = skipEscape(regex, i);
+                    }
+                }
+                case '[' -> i = skipClass(regex, i);
+                case '(' -> {
+                    int end = skipGroup(regex, i);
+                    if (end < 0 || enablesComments(regex, i)) return List.of();
+                    i = end;
+                }
+                case '|' -> {
+                    return List.of();
+                }
+                case '.', '^', '$' -> i++;
+                default -> {
+                    literal = c;
+                    i++;
+                }
+            }
+
+            // What follows the atom decides whether it is required and whether the run continues
+            Quantifier q = quantifierAt(regex, i);
+            i = q.end();
+
+            if (literal >= 0 && literal < 128 && q.min() > 0) {
+                run.append(Character.toLowerCase((char) literal));
+                if (q.repeats()) {
+                    flush(run, literals);
+                }
+            } else {
+                flush(run, literals);
+            }
+        }
+        flush(run, literals);
+        return literals;
+    }
+
+    private static void flush(StringBuilder run, List<String> literals) {
+        if (run.length() >= MIN_LITERAL_LENGTH) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    private record Quantifier(int min, boolean repeats, int end) {}
+
+    private static Quantifier quantifierAt(String regex, int i) {
+        if (i >= regex.length()) return new Quantifier(1, false, i);
+
+        int min;
+        boolean repeats = true;
+        int end;
+        switch (regex.charAt(i)) {
+            case '?' -> { min = 0; end = i + 1; }
+            case '*' -> { min = 0; end = i + 1; }
+            case '+' -> { min = 1; end = i + 1; }
+            case '{' -> {
+                int close = regex.indexOf('}', i);
+                if (close < 0) return new Quantifier(1, false, i);
+                String body = regex.substring(i + 1, close);
+                String lower = body.contains(",") ? body.substring(0, body.indexOf(',')) : body;
+                try {
+                    min = Integer.parseInt(lower.trim());
+                } catch (NumberFormatException e) {
+                    return new Quantifier(0, true, close + 1);
+                }
+                repeats = !body.equals("1");
+                end = close + 1;
+            }
+            default -> {
+                return new Quantifier(1, false, i);
+            }
+        }
+        // Lazy and possessive modifiers
+        if (end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+        }
+        return new Quantifier(min, repeats, end);
+    }
+
+    // (?x) makes whitespace insignificant, literal runs can no longer be read off the pattern
+    private static boolean enablesComments(String regex, int i) {
+        if (i + 1 >= regex.length() || regex.charAt(i + 1) != '?') return false;
+        for (int j = i + 2; j < regex.length(); j++) {
+            char c = regex.charAt(j);
+            if (c == 'x') return true;
+            if (!Character.isLetter(c)) return false;
+        }
+        return false;
+    }
+
+    private static int skipEscape(String regex, int i) {
+        char kind = regex.charAt(i + 1);
+        int j = i + 2;
+        if (Character.isDigit(kind)) {
+            // Octal escape or back reference
+            while (j < regex.length() && Character.isDigit(regex.charAt(j))) j++;
+            return j;
+        }
+        if ((kind == 'p' || kind == 'P' || kind == 'x' || kind == 'N') && j < regex.length() && regex.charAt(j) == '{') {
+            int close = regex.indexOf('}', j);
+            return close < 0 ? regex.length() : close + 1;
+        }
+        if (kind == 'k' && j < regex.length() && regex.charAt(j) == '<') {
+            int close = regex.indexOf('>', j);
+            return close < 0 ? regex.length() : close + 1;
+        }
+        if (kind == 'Q') {
+            int close = regex.indexOf("\\E", j);
+            return close < 0 ? regex.length() : close + 2;
+        }
+        if (kind == 'x') return Math.min(regex.length(), j + 2);
+        if (kind == 'u') return Math.min(regex.length(), j + 4);
+        if (kind == 'c') return Math.min(regex.length(), j + 1);
+        return j;
+    }
+
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < regex.length()) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                j += 2;
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+                // A ']' right after the opening bracket (or '^') is a literal member
+                if (j + 1 < regex.length() && regex.charAt(j + 1) == '^') j++;
+                if (j + 1 < regex.length() && regex.charAt(j + 1) == ']') j++;
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) return j + 1;
+            }
+            j++;
+        }
+        return regex.length();
+    }
+
+    // Returns the index after the matching ')', or -1 if the group is unbalanced
+    private static int skipGroup(String regex, int i) {
+        int depth = 0;
+        int j = i;
+        while (j < regex.length()) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                j += 2;
+                continue;
+            }
+            if (c == '[') {
+                j = skipClass(regex, j);
+                continue;
+            }
+            if (c == '(') depth++;
+            if (c == ')') {
+                depth--;
+                if (depth == 0) return j + 1;
+            }
+            j++;
+        }
+        return -1;
+    }
+}
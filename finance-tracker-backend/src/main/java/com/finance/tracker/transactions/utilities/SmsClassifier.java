@@ -0,0 +1,233 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.SmsFeatures;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads an SMS body once and builds the {@link SmsFeatures} used to route it
+ * to the parser that can handle it. Keyword checks mirror the parser regexes
+ * (case-insensitive, substring semantics) without compiling or running them.
+ * The same pass computes the message shape: alerts from one template differ
+ * only in amounts, dates and ids, which all collapse to a single placeholder.
+ */
+@Component
+@RequiredArgsConstructor
+public class SmsClassifier {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final BankSenderRegistry senderRegistry;
+    private final TemplateLoader templateLoader;
+
+    public SmsFeatures classify(SmsRequest sms) {
+        String bank = senderRegistry.resolveBank(sms.getSender()).orElse(null);
+        boolean bankTemplates = bank != null && !templateLoader.load(bank).isEmpty();
+
+        String body = sms.getBody();
+        if (body == null) {
+            return new SmsFeatures(false, false, false, false, false, false, false, bank, bankTemplates, 0L);
+        }
+
+        boolean amountMarker = false;
+        boolean upiHint = false;
+        boolean upiHandle = false;
+        boolean referenceMarker = false;
+        boolean upiVerb = false;
+        boolean genericVerb = false;
+        boolean merchantMarker = false;
+
+        long shape = FNV_OFFSET;
+        if (bank != null) {
+            for (int i = 0; i < bank.length(); i++) shape = mix(shape, bank.charAt(i));
+        }
+        shape = mix(shape, '|');
+        boolean inNumber = false;
+        boolean inSpace = false;
+
+        int n = body.length();
+        for (int i = 0; i < n; i++) {
+            char c = body.charAt(i);
+            char lower = Character.toLowerCase(c);
+
+            // Shape: digit runs (with their separators) -> '#', whitespace runs -> ' '
+            if (isDigit(c) || (inNumber && isNumberSeparator(c))) {
+                if (!inNumber) shape = mix(shape, '#');
+                inNumber = true;
+                inSpace = false;
+            } else if (Character.isWhitespace(c)) {
+                if (!inSpace) shape = mix(shape, ' ');
+                inNumber = false;
+                inSpace = true;
+            } else {
+                shape = mix(shape, lower);
+                inNumber = false;
+                inSpace = false;
+            }
+
+            switch (lower) {
+                case 'r' -> {
+                    if (!amountMarker && at(body, i, "rs")) {
+                        amountMarker = amountFollows(body, i + 2, true);
+                    }
+                    if (!referenceMarker && at(body, i, "ref")) {
+                        referenceMarker = referenceFollows(body, i + 3);
+                    }
+                    if (at(body, i, "received")) {
+                        upiVerb = genericVerb = true;
+                    } else if (at(body, i, "refund")) {
+                        genericVerb = true;
+                    }
+                }
+                case 'i' -> {
+                    if (!amountMarker && at(body, i, "inr")) {
+                        amountMarker = amountFollows(body, i + 3, false);
+                    }
+                }
+                case '₹' -> {
+                    if (!amountMarker) {
+                        amountMarker = amountFollows(body, i + 1, false);
+                    }
+                }
+                case 'u' -> {
+                    if (!upiHint && at(body, i, "upi")
+                            && !isWordChar(body, i - 1) && !isWordChar(body, i + 3)) {
+                        upiHint = true;
+                    }
+                    if (!referenceMarker && at(body, i, "utr")) {
+                        referenceMarker = referenceFollows(body, i + 3);
+                    }
+                }
+                case '@' -> {
+                    upiHint = true;
+                    if (!upiHandle) {
+                        upiHandle = isHandleChar(body, i - 1) && isHandleChar(body, i + 1);
+                    }
+                }
+                case 'p' -> {
+                    if (at(body, i, "paid")) {
+                        upiVerb = genericVerb = true;
+                    } else if (at(body, i, "purchase")) {
+                        genericVerb = true;
+                    }
+                }
+                case 's' -> {
+                    if (at(body, i, "sent")) {
+                        upiVerb = true;
+                    } else if (at(body, i, "spent")) {
+                        genericVerb = true;
+                    }
+                }
+                case 'd' -> {
+                    if (at(body, i, "debited")) {
+                        upiVerb = genericVerb = true;
+                    } else if (at(body, i, "deposited")) {
+                        genericVerb = true;
+                    }
+                }
+                case 'c' -> {
+                    if (at(body, i, "credited")) {
+                        upiVerb = genericVerb = true;
+                    }
+                }
+                case 'w' -> {
+                    if (at(body, i, "withdrawn")) {
+                        genericVerb = true;
+                    }
+                }
+                case 'a', 't' -> {
+                    if (!merchantMarker && (at(body, i, "at") || at(body, i, "to"))) {
+                        merchantMarker = merchantFollows(body, i + 2);
+                    }
+                }
+                default -> {
+                    // not a feature start
+                }
+            }
+        }
+
+        return new SmsFeatures(amountMarker, upiHint, upiHandle, referenceMarker,
+                upiVerb, genericVerb, merchantMarker, bank, bankTemplates, shape);
+    }
+
+    private static long mix(long hash, char c) {
+        return (hash ^ c) * FNV_PRIME;
+    }
+
+    private static boolean isNumberSeparator(char c) {
+        return c == ',' || c == '.' || c == ':' || c == '/' || c == '-';
+    }
+
+    private static boolean at(String s, int i, String keyword) {
+        return s.regionMatches(true, i, keyword, 0, keyword.length());
+    }
+
+    // (rs\.?|inr|₹)\s?[\d,]
+    private static boolean amountFollows(String s, int i, boolean optionalDot) {
+        if (optionalDot && i < s.length() && s.charAt(i) == '.') i++;
+        if (i < s.length() && Character.isWhitespace(s.charAt(i))) i++;
+        return i < s.length() && (isDigit(s.charAt(i)) || s.charAt(i) == ',');
+    }
+
+    // (utr|ref)[^a-z0-9]?[:#]?\s?[a-z0-9]
+    private static boolean referenceFollows(String s, int i) {
+        int n = s.length();
+        for (int skipOther = 0; skipOther <= 1; skipOther++) {
+            int p = i;
+            if (skipOther == 1) {
+                if (p >= n || isAlnum(s.charAt(p))) continue;
+                p++;
+            }
+            for (int skipMark = 0; skipMark <= 1; skipMark++) {
+                int q = p;
+                if (skipMark == 1) {
+                    if (q >= n || (s.charAt(q) != ':' && s.charAt(q) != '#')) continue;
+                    q++;
+                }
+                if (q < n && isAlnum(s.charAt(q))) return true;
+                if (q < n && Character.isWhitespace(s.charAt(q)) && q + 1 < n && isAlnum(s.charAt(q + 1))) return true;
+            }
+        }
+        return false;
+    }
+
+    // (at|to)\s+[a-z0-9 &._-]{3,}
+    private static boolean merchantFollows(String s, int i) {
+        int n = s.length();
+        for (int start = i + 1; start <= n && Character.isWhitespace(s.charAt(start - 1)); start++) {
+            if (start + 3 <= n
+                    && isMerchantChar(s.charAt(start))
+                    && isMerchantChar(s.charAt(start + 1))
+                    && isMerchantChar(s.charAt(start + 2))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlnum(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isHandleChar(String s, int i) {
+        if (i < 0 || i >= s.length()) return false;
+        char c = s.charAt(i);
+        return isAlnum(c) || c == '.' || c == '_' || c == '-';
+    }
+
+    private static boolean isMerchantChar(char c) {
+        return isAlnum(c) || c == ' ' || c == '&' || c == '.' || c == '_' || c == '-';
+    }
+
+    private static boolean isWordChar(String s, int i) {
+        if (i < 0 || i >= s.length()) return false;
+        char c = s.charAt(i);
+        return isAlnum(c) || c == '_';
+    }
+}
@@ -0,0 +1,82 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.SmsRequest;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * The one dedup key for SMS-backed transactions, shared by /parse and batch sync.
+ * 128 bits of SHA-256 over the normalized sender, body and timestamp, as a UUID so
+ * it is stored in a 16 byte uuid column.
+ *
+ * Normalization absorbs what differs between two uploads of the same message:
+ * sender case and padding, Unicode composition and whitespace in the body, and
+ * sub-second precision of the timestamp. Persisted keys depend on this exact
+ * algorithm; changing it makes every stored fingerprint stale.
+ */
+public final class SmsFingerprint {
+
+    private SmsFingerprint() {}
+
+    public static UUID of(SmsRequest sms) {
+        return of(sms.getSender(), sms.getBody(), sms.getTimestamp());
+    }
+
+    public static UUID of(String sender, String body, Long timestamp) {
+        MessageDigest digest = sha256();
+        update(digest, normalizeSender(sender));
+        update(digest, normalizeBody(body));
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(timestamp == null ? 0L : timestamp / 1000).array());
+
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new UUID(hash.getLong(), hash.getLong());
+    }
+
+    static String normalizeSender(String sender) {
+        return sender == null ? "" : sender.strip().toUpperCase(Locale.ROOT);
+    }
+
+    // NFC, then every whitespace run as one space, trimmed
+    static String normalizeBody(String body) {
+        if (body == null) {
+            return "";
+        }
+        String composed = Normalizer.normalize(body, Normalizer.Form.NFC);
+        StringBuilder out = new StringBuilder(composed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = out.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    out.append(' ');
+                    pendingSpace = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    // Length-prefixed, so no sender/body split can produce the same bytes as another
+    private static void update(MessageDigest digest, String field) {
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.sync.exceptions.InvalidScanStateException;
+import com.finance.tracker.sync.exceptions.ScanAccessDeniedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs batch parsing on one fixed pool shared by every scan. Worker slots are handed out
+ * by a fair semaphore in arrival order, so concurrent scans interleave chunk by chunk
+ * instead of one large upload occupying every worker, and each scan is further capped
+ * at {@code app.sms.parse.scan-parallelism} chunks in flight. The submitting request
+ * blocks until a slot frees up, which keeps queued work bounded under load.
+ */
+@Component
+@Slf4j
+public class SmsParseScheduler {
+
+    // How often a caller waiting for a slot re-checks whether its scan was cancelled
+    private static final long CANCEL_POLL_MS = 50;
+
+    private final ExecutorService pool;
+    private final Semaphore slots;
+    private final int workers;
+    private final int scanParallelism;
+    private final Map<UUID, ParseScope> running = new ConcurrentHashMap<>();
+
+    private final Timer slotWait;
+    private final Counter cancelled;
+
+    public SmsParseScheduler(
+            @Value("${app.sms.parse.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int workers,
+            @Value("${app.sms.parse.scan-parallelism:4}") int scanParallelism,
+            MeterRegistry meterRegistry) {
+        this(workers, scanParallelism, Executors.newFixedThreadPool(workers, workerThreads()), meterRegistry);
+    }
+
+    SmsParseScheduler(int workers, int scanParallelism, ExecutorService pool, MeterRegistry meterRegistry) {
+        this.workers = workers;
+        this.scanParallelism = Math.min(scanParallelism, workers);
+        this.slots = new Semaphore(workers, true);
+        this.pool = pool;
+
+        Gauge.builder("sms.parse.queue.depth", slots, Semaphore::getQueueLength)
+                .description("Chunks waiting for a parse worker, across all scans")
+                .register(meterRegistry);
+        Gauge.builder("sms.parse.in.flight", slots, s -> workers - s.availablePermits())
+                .description("Chunks being parsed")
+                .register(meterRegistry);
+        Gauge.builder("sms.parse.scans", running, Map::size)
+                .description("Scans currently parsing")
+                .register(meterRegistry);
+        this.slotWait = Timer.builder("sms.parse.slot.wait")
+                .description("Time a chunk waited for a parse worker")
+                .register(meterRegistry);
+        this.cancelled = Counter.builder("sms.parse.cancelled")
+                .description("Scans cancelled while parsing")
+                .register(meterRegistry);
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    /**
+     * Registers a scan so it can be cancelled; a scan can only be parsing in one request at a time.
+     */
+    public ParseScope open(UUID userId, UUID scanId) {
+        ParseScope scope = new ParseScope(userId, scanId, scanParallelism, () -> running.remove(scanId));
+        if (running.putIfAbsent(scanId, scope) != null) {
+            throw new InvalidScanStateException("Scan is already being processed");
+        }
+        return scope;
+    }
+
+    // For parsing outside a scan (single messages, the queue consumer); cannot be cancelled
+    public ParseScope detached() {
+        return new ParseScope(null, null, scanParallelism, () -> {});
+    }
+
+    /**
+     * Stops handing out workers to the scan. Returns false if the scan is not parsing.
+     */
+    public boolean cancel(UUID userId, UUID scanId) {
+        ParseScope scope = running.get(scanId);
+        if (scope == null) {
+            return false;
+        }
+        if (!scope.userId().equals(userId)) {
+            throw new ScanAccessDeniedException("Scan does not belong to the requesting user");
+        }
+        scope.cancel();
+        cancelled.increment();
+        log.info("Scan {} cancelled", scanId);
+        return true;
+    }
+
+    /**
+     * Applies {@code work} to consecutive chunks of {@code items} on the pool and returns
+     * the concatenated results in input order.
+     */
+    public <I, O> List<O> map(ParseScope scope, List<I> items, int chunkSize, Function<List<I>, List<O>> work) {
+        List<CompletableFuture<List<O>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < items.size(); i += chunkSize) {
+                List<I> chunk = items.subList(i, Math.min(i + chunkSize, items.size()));
+                acquire(scope);
+
+                // Whoever claims the chunk first returns its permits: the worker when it starts
+                // the chunk, or the cancellation when the chunk was still queued and never will
+                AtomicBoolean claimed = new AtomicBoolean();
+                CompletableFuture<List<O>> future;
+                try {
+                    future = CompletableFuture.supplyAsync(() -> {
+                        if (!claimed.compareAndSet(false, true)) {
+                            throw new CancellationException("Chunk was cancelled before it started");
+                        }
+                        try {
+                            return work.apply(chunk);
+                        } finally {
+                            release(scope);
+                        }
+                    }, pool);
+                } catch (RejectedExecutionException e) {
+                    release(scope);
+                    throw e;
+                }
+                future.whenComplete((result, failure) -> {
+                    if (future.isCancelled() && claimed.compareAndSet(false, true)) {
+                        release(scope);
+                    }
+                });
+                scope.track(future);
+                futures.add(future);
+            }
+
+            List<O> results = new ArrayList<>(items.size());
+            for (CompletableFuture<List<O>> future : futures) {
+                results.addAll(future.join());
+            }
+            return results;
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e instanceof CancellationException) {
+                scope.throwIfCancelled();
+            }
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            futures.forEach(scope::untrack);
+        }
+    }
+
+    // Scan cap first, then a global slot; both re-check cancellation while waiting
+    private void acquire(ParseScope scope) {
+        long start = System.nanoTime();
+        acquire(scope, scope.inFlight());
+        try {
+            acquire(scope, slots);
+        } catch (RuntimeException e) {
+            scope.inFlight().release();
+            throw e;
+        }
+        slotWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static void acquire(ParseScope scope, Semaphore semaphore) {
+        try {
+            while (!semaphore.tryAcquire(CANCEL_POLL_MS, TimeUnit.MILLISECONDS)) {
+                scope.throwIfCancelled();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a parse worker");
+        }
+        if (scope.isCancelled()) {
+            semaphore.release();
+            scope.throwIfCancelled();
+        }
+    }
+
+    private void release(ParseScope scope) {
+        slots.release();
+        scope.inFlight().release();
+    }
+
+    private static ThreadFactory workerThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "sms-parse-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,49 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.ShapeHint;
+import com.finance.tracker.transactions.domain.TemplatesReloadedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded (W-TinyLFU) cache from message shape to the parse outcome seen last time,
+ * so repeated alerts go straight to the template that matched before, and known
+ * unparseable shapes skip the parsers entirely.
+ */
+@Component
+public class SmsShapeCache {
+
+    private final Cache<Long, ShapeHint> cache;
+
+    public SmsShapeCache(@Value("${app.sms.shape-cache.max-size:20000}") long maxSize,
+                         MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "smsShapeCache");
+    }
+
+    public ShapeHint get(long shape) {
+        return cache.getIfPresent(shape);
+    }
+
+    public void put(long shape, ShapeHint hint) {
+        cache.put(shape, hint);
+    }
+
+    // Hints name templates by position, which a reload may have reshuffled
+    @EventListener
+    public void onTemplatesReloaded(TemplatesReloadedEvent event) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,358 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.SmsKeyword;
+import com.finance.tracker.transactions.domain.SmsTokenType;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written lexer that walks an SMS body once and records typed tokens
+ * (start/end offsets into the body, kept in parallel arrays).
+ * Each rule reproduces the regex the fallback parsers used to run for that
+ * value, including case-insensitive substring matching of keywords, so the
+ * first token of a type is what {@code Matcher.find()} used to return.
+ * An instance is reused across messages and is not thread-safe.
+ */
+public final class SmsTokenizer {
+
+    private static final SmsTokenType[] TYPES = SmsTokenType.values();
+
+    private CharSequence text = "";
+    private int n;
+
+    private int size;
+    private SmsTokenType[] types = new SmsTokenType[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+
+    // First token index per type, and the end of the last token per type (tokens of a type never overlap)
+    private final int[] first = new int[TYPES.length];
+    private final int[] busyUntil = new int[TYPES.length];
+    private long keywordsSeen;
+    private boolean upiHint;
+
+    public SmsTokenizer tokenize(CharSequence body) {
+        text = body == null ? "" : body;
+        n = text.length();
+        size = 0;
+        keywordsSeen = 0L;
+        upiHint = false;
+        Arrays.fill(first, -1);
+        Arrays.fill(busyUntil, 0);
+
+        for (int i = 0; i < n; i++) {
+            char c = lower(text.charAt(i));
+            switch (c) {
+                case 'r' -> {
+                    if (at(i, "rs")) amount(i, i + 2, true);
+                    if (at(i, "ref")) reference(i, i + 3);
+                    keyword(i, SmsKeyword.RECEIVED);
+                    keyword(i, SmsKeyword.REFUND);
+                }
+                case 'i' -> {
+                    if (at(i, "inr")) amount(i, i + 3, false);
+                }
+                case '₹' -> amount(i, i + 1, false);
+                case 'u' -> {
+                    if (at(i, "upi") && !isWordChar(i - 1) && !isWordChar(i + 3)) upiHint = true;
+                    if (at(i, "utr")) reference(i, i + 3);
+                }
+                case 'a' -> {
+                    if (at(i, "ac")) accountMask(i, i + 2);
+                    else if (at(i, "a/c")) accountMask(i, i + 3);
+                    if (at(i, "at")) merchant(i, i + 2);
+                }
+                case 't' -> {
+                    if (at(i, "to")) merchant(i, i + 2);
+                }
+                case '@' -> {
+                    upiHint = true;
+                    vpa(i);
+                }
+                case 'p' -> {
+                    keyword(i, SmsKeyword.PAID);
+                    keyword(i, SmsKeyword.PURCHASE);
+                }
+                case 's' -> {
+                    keyword(i, SmsKeyword.SENT);
+                    keyword(i, SmsKeyword.SPENT);
+                }
+                case 'd' -> {
+                    keyword(i, SmsKeyword.DEBITED);
+                    keyword(i, SmsKeyword.DEPOSITED);
+                }
+                case 'c' -> keyword(i, SmsKeyword.CREDITED);
+                case 'w' -> keyword(i, SmsKeyword.WITHDRAWN);
+                default -> {
+                    if (isDigit(c)) {
+                        date(i);
+                        time(i);
+                    }
+                }
+            }
+        }
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SmsTokenType type(int token) {
+        return types[token];
+    }
+
+    public int start(int token) {
+        return starts[token];
+    }
+
+    public int end(int token) {
+        return ends[token];
+    }
+
+    /**
+     * Index of the leftmost token of this type, or -1.
+     */
+    public int first(SmsTokenType type) {
+        return first[type.ordinal()];
+    }
+
+    public String value(int token) {
+        return text.subSequence(starts[token], ends[token]).toString();
+    }
+
+    /**
+     * Value of the leftmost token of this type, or null.
+     */
+    public String firstValue(SmsTokenType type) {
+        int token = first(type);
+        return token < 0 ? null : value(token);
+    }
+
+    public boolean containsAny(SmsKeyword[] keywords) {
+        for (SmsKeyword keyword : keywords) {
+            if ((keywordsSeen & (1L << keyword.ordinal())) != 0) return true;
+        }
+        return false;
+    }
+
+    // "upi" as a word, or any '@'
+    public boolean upiHint() {
+        return upiHint;
+    }
+
+    private void emit(SmsTokenType type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = end;
+        if (first[type.ordinal()] < 0) {
+            first[type.ordinal()] = size;
+        }
+        busyUntil[type.ordinal()] = end;
+        size++;
+    }
+
+    private boolean busy(SmsTokenType type, int i) {
+        return i < busyUntil[type.ordinal()];
+    }
+
+    private void keyword(int i, SmsKeyword keyword) {
+        if (!at(i, keyword.getWord())) return;
+        keywordsSeen |= 1L << keyword.ordinal();
+        emit(keyword.isCredit() ? SmsTokenType.CREDIT_KEYWORD : SmsTokenType.DEBIT_KEYWORD,
+                i, i + keyword.getWord().length());
+    }
+
+    // (rs\.?|inr|₹)\s?([\d,]+(?:\.\d{1,2})?)
+    private void amount(int i, int p, boolean optionalDot) {
+        if (busy(SmsTokenType.AMOUNT, i)) return;
+        if (optionalDot && p < n && text.charAt(p) == '.') p++;
+        if (p < n && isSpace(text.charAt(p))) p++;
+        if (p >= n || !isAmountChar(text.charAt(p))) return;
+
+        int end = p;
+        while (end < n && isAmountChar(text.charAt(end))) end++;
+        if (end + 1 < n && text.charAt(end) == '.' && isDigit(text.charAt(end + 1))) {
+            end += 2;
+            if (end < n && isDigit(text.charAt(end))) end++;
+        }
+        emit(SmsTokenType.AMOUNT, p, end);
+    }
+
+    // (utr|ref)[^a-z0-9]?[:#]?\s?([a-z0-9]+), optional parts tried greedily in regex order
+    private void reference(int i, int p) {
+        if (busy(SmsTokenType.REFERENCE, i)) return;
+        for (int other = 1; other >= 0; other--) {
+            int q = p;
+            if (other == 1) {
+                if (q >= n || isAlnum(text.charAt(q))) continue;
+                q++;
+            }
+            for (int mark = 1; mark >= 0; mark--) {
+                int r = q;
+                if (mark == 1) {
+                    if (r >= n || (text.charAt(r) != ':' && text.charAt(r) != '#')) continue;
+                    r++;
+                }
+                for (int space = 1; space >= 0; space--) {
+                    int s = r;
+                    if (space == 1) {
+                        if (s >= n || !isSpace(text.charAt(s))) continue;
+                        s++;
+                    }
+                    if (s < n && isAlnum(text.charAt(s))) {
+                        int end = s;
+                        while (end < n && isAlnum(text.charAt(end))) end++;
+                        emit(SmsTokenType.REFERENCE, s, end);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // (?:ac|a/c)\s*[Xx]?(\d{4})\b
+    private void accountMask(int i, int p) {
+        if (busy(SmsTokenType.ACCOUNT_MASK, i)) return;
+        while (p < n && isSpace(text.charAt(p))) p++;
+        if (p < n && lower(text.charAt(p)) == 'x') p++;
+        if (digitsAt(p, 4) && !isWordChar(p + 4)) {
+            emit(SmsTokenType.ACCOUNT_MASK, p, p + 4);
+        }
+    }
+
+    // (?:at|to)\s+([a-z0-9 &._-]{3,}), giving whitespace back to the name when it is too short
+    private void merchant(int i, int p) {
+        if (busy(SmsTokenType.MERCHANT, i)) return;
+        int spaceEnd = p;
+        while (spaceEnd < n && isSpace(text.charAt(spaceEnd))) spaceEnd++;
+
+        for (int start = spaceEnd; start > p; start--) {
+            int end = start;
+            while (end < n && isMerchantChar(text.charAt(end))) end++;
+            if (end - start >= 3) {
+                emit(SmsTokenType.MERCHANT, start, end);
+                return;
+            }
+        }
+    }
+
+    // ([a-z0-9._-]+@[a-z0-9._-]+) and, for the payee, (?:to|from)\s+([a-z0-9._-]{3,})@
+    private void vpa(int at) {
+        int start = at;
+        while (start > 0 && isHandleChar(text.charAt(start - 1))) start--;
+        if (start == at) return;
+
+        int end = at + 1;
+        while (end < n && isHandleChar(text.charAt(end))) end++;
+        if (end > at + 1 && !busy(SmsTokenType.VPA, start)) {
+            emit(SmsTokenType.VPA, start, end);
+        }
+
+        if (at - start >= 3 && start > 0 && isSpace(text.charAt(start - 1)) && !busy(SmsTokenType.PAYEE, start)) {
+            int spaceStart = start - 1;
+            while (spaceStart > 0 && isSpace(text.charAt(spaceStart - 1))) spaceStart--;
+            if (at(spaceStart - 2, "to") || at(spaceStart - 4, "from")) {
+                emit(SmsTokenType.PAYEE, start, at);
+            }
+        }
+    }
+
+    // (\d{1,2}[/-]\d{1,2}[/-]\d{2,4}), longest alternatives first
+    private void date(int i) {
+        if (busy(SmsTokenType.DATE, i)) return;
+        for (int day = 2; day >= 1; day--) {
+            int p = i + day;
+            if (!digitsAt(i, day) || !isDateSeparator(p)) continue;
+            p++;
+            for (int month = 2; month >= 1; month--) {
+                int q = p + month;
+                if (!digitsAt(p, month) || !isDateSeparator(q)) continue;
+                q++;
+                for (int year = 4; year >= 2; year--) {
+                    if (digitsAt(q, year)) {
+                        emit(SmsTokenType.DATE, i, q + year);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // hh:mm or hh:mm:ss, not part of a longer number
+    private void time(int i) {
+        if (busy(SmsTokenType.TIME, i) || (i > 0 && (isDigit(text.charAt(i - 1)) || text.charAt(i - 1) == ':'))) return;
+        if (!digitsAt(i, 2) || !charAt(i + 2, ':') || !digitsAt(i + 3, 2)) return;
+        int end = i + 5;
+        if (charAt(end, ':') && digitsAt(end + 1, 2)) end += 3;
+        if (end < n && (isDigit(text.charAt(end)) || text.charAt(end) == ':')) return;
+        emit(SmsTokenType.TIME, i, end);
+    }
+
+    // Case-insensitive (ASCII, as the regexes without UNICODE_CASE) comparison at i
+    private boolean at(int i, String keyword) {
+        if (i < 0 || i + keyword.length() > n) return false;
+        for (int k = 0; k < keyword.length(); k++) {
+            if (lower(text.charAt(i + k)) != keyword.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private boolean charAt(int i, char c) {
+        return i < n && text.charAt(i) == c;
+    }
+
+    private boolean digitsAt(int i, int count) {
+        if (i + count > n) return false;
+        for (int k = i; k < i + count; k++) {
+            if (!isDigit(text.charAt(k))) return false;
+        }
+        return true;
+    }
+
+    private boolean isDateSeparator(int i) {
+        return i < n && (text.charAt(i) == '/' || text.charAt(i) == '-');
+    }
+
+    // \b only considers ASCII word characters (Java 19+, without UNICODE_CHARACTER_CLASS)
+    private boolean isWordChar(int i) {
+        if (i < 0 || i >= n) return false;
+        char c = text.charAt(i);
+        return isAlnum(c) || c == '_';
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlnum(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // \s without UNICODE_CHARACTER_CLASS
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAmountChar(char c) {
+        return isDigit(c) || c == ',';
+    }
+
+    private static boolean isHandleChar(char c) {
+        return isAlnum(c) || c == '.' || c == '_' || c == '-';
+    }
+
+    private static boolean isMerchantChar(char c) {
+        return isAlnum(c) || c == ' ' || c == '&' || c == '.' || c == '_' || c == '-';
+    }
+}
@@ -3,48 +3,199 @@ package com.finance.tracker.transactions.utilities;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.finance.tracker.transactions.domain.BankTemplate;
+import com.finance.tracker.transactions.domain.BankTemplateSet;
+import com.finance.tracker.transactions.domain.TemplateSnapshot;
+import com.finance.tracker.transactions.domain.TemplatesReloadedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Holds the compiled templates of every bank as one immutable {@link TemplateSnapshot}.
+ * The snapshot is built eagerly at startup, one bank per worker. Files in the optional
+ * external directory override the bundled ones and are watched: on change a new
+ * snapshot is compiled off to the side and swapped in, while the previous one keeps
+ * serving parses. A snapshot that fails to build is discarded.
+ */
+@Slf4j
 @Component
 public class TemplateLoader {
 
+    private static final String FILE_SUFFIX = "_bank.json";
+
     private final ObjectMapper mapper = new ObjectMapper();
-    private final Map<String, List<BankTemplate>> cache = new ConcurrentHashMap<>();
+    private final AtomicReference<TemplateSnapshot> snapshot = new AtomicReference<>();
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Bundled templates on the classpath
+    private final String templateDir;
+    // Optional directory with extra / overriding templates, hot-reloaded when set
+    private final String externalDir;
+    private final boolean watch;
+    private final long reloadDebounceMs;
+
+    private WatchService watchService;
+
+    public TemplateLoader(@Value("${app.templates.directory:/bank_templates/}") String templateDir,
+                          @Value("${app.templates.external-dir:}") String externalDir,
+                          @Value("${app.templates.watch:true}") boolean watch,
+                          @Value("${app.templates.reload-debounce-ms:500}") long reloadDebounceMs,
+                          ApplicationEventPublisher eventPublisher) {
+        this.templateDir = templateDir.endsWith("/") ? templateDir : templateDir + "/";
+        this.externalDir = externalDir;
+        this.watch = watch;
+        this.reloadDebounceMs = reloadDebounceMs;
+        this.eventPublisher = eventPublisher;
+    }
 
-    // Configurable directory path
-    @Value("${app.templates.directory:/bank_templates/}")
-    private String templateDir;
+    @PostConstruct
+    void init() throws IOException {
+        // Fail fast: a broken bundled template should stop the application from starting
+        TemplateSnapshot initial = buildSnapshot(1);
+        snapshot.set(initial);
+        log.info("Loaded bank templates version={} banks={}", initial.version(), initial.banks().keySet());
+
+        if (watch && !externalDir.isBlank()) {
+            startWatcher(Path.of(externalDir));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
 
     public List<BankTemplate> load(String bankName) {
-        return cache.computeIfAbsent(bankName.toLowerCase(), this::loadFromFile);
+        return loadSet(bankName).templates();
+    }
+
+    public BankTemplateSet loadSet(String bankName) {
+        return snapshot.get().get(bankName);
+    }
+
+    public TemplateSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * Rebuilds all templates and swaps them in. The current snapshot stays active
+     * if the rebuild fails.
+     */
+    public synchronized void refreshCache() {
+        TemplateSnapshot previous = snapshot.get();
+        try {
+            TemplateSnapshot next = buildSnapshot(previous.version() + 1);
+            snapshot.set(next);
+            log.info("Reloaded bank templates version={} banks={}", next.version(), next.banks().keySet());
+            eventPublisher.publishEvent(new TemplatesReloadedEvent(this, next.version()));
+        } catch (Exception e) {
+            log.error("Template reload failed, keeping version={}", previous.version(), e);
+        }
     }
 
-    private List<BankTemplate> loadFromFile(String bankName) {
-        String fileName = templateDir + bankName + "_bank.json";
+    private TemplateSnapshot buildSnapshot(long version) throws IOException {
+        Map<String, Resource> sources = findSources();
 
-        try (InputStream is = getClass().getResourceAsStream(fileName)) {
-            if (is == null) {
-                // Instead of a RuntimeException, you could return an empty list
-                // and log a warning to keep the parser running.
-                return List.of();
+        Map<String, BankTemplateSet> banks = sources.entrySet().parallelStream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> compile(e.getKey(), e.getValue())));
+
+        return new TemplateSnapshot(version, banks);
+    }
+
+    // Bank name -> template file; external files replace bundled ones of the same bank
+    private Map<String, Resource> findSources() throws IOException {
+        Map<String, Resource> sources = new HashMap<>();
+
+        Resource[] bundled = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:" + templateDir + "*" + FILE_SUFFIX);
+        for (Resource resource : bundled) {
+            sources.put(bankName(resource.getFilename()), resource);
+        }
+
+        if (!externalDir.isBlank() && Files.isDirectory(Path.of(externalDir))) {
+            try (Stream<Path> files = Files.list(Path.of(externalDir))) {
+                files.filter(p -> p.getFileName().toString().endsWith(FILE_SUFFIX))
+                        .forEach(p -> sources.put(bankName(p.getFileName().toString()), new FileSystemResource(p)));
             }
+        }
+        return sources;
+    }
 
+    private BankTemplateSet compile(String bankName, Resource resource) {
+        try (InputStream is = resource.getInputStream()) {
             List<BankTemplate> templates = mapper.readValue(is, new TypeReference<>() {});
-            templates.forEach(BankTemplate::compile);
-            return templates;
+            for (int i = 0; i < templates.size(); i++) {
+                templates.get(i).compile();
+                templates.get(i).setId(bankName + "#" + i);
+            }
+            return new BankTemplateSet(templates);
         } catch (Exception e) {
-            throw new RuntimeException("Failed loading templates for " + bankName, e);
+            throw new IllegalStateException("Failed loading templates for " + bankName + " from " + resource, e);
         }
     }
 
-    // Optional: Method to clear cache if you update files without restarting
-    public void refreshCache() {
-        cache.clear();
+    private static String bankName(String fileName) {
+        return fileName.substring(0, fileName.length() - FILE_SUFFIX.length()).toLowerCase();
+    }
+
+    private void startWatcher(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            log.warn("Template directory {} does not exist, hot reload disabled", dir);
+            return;
+        }
+        watchService = dir.getFileSystem().newWatchService();
+        dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        Thread.ofPlatform().daemon().name("template-watcher").start(this::watch);
+        log.info("Watching {} for template changes", dir);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                key.reset();
+
+                // Editors write files in several steps: wait for the burst to settle
+                WatchKey more;
+                while ((more = watchService.poll(reloadDebounceMs, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                refreshCache();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+-- Applied on every startup before Hibernate validates the schema (ddl-auto=validate, so Hibernate never
+-- creates tables and the entity tables must already exist). Statements must be idempotent: they add the
+-- columns and indexes the entities cannot express, and create the tables that are not entities.
+
+-- SmsFingerprint of the source SMS (Transaction.fingerprint)
+ALTER TABLE IF EXISTS transactions ADD COLUMN IF NOT EXISTS fingerprint uuid;
+
+-- Dedup key and the bulk insert's conflict arbiter: one live (DRAFT or CONFIRMED) row per user and SMS,
+-- so a deleted draft can be imported again
+CREATE UNIQUE INDEX IF NOT EXISTS ux_transactions_user_fingerprint_live
+    ON transactions (user_id, fingerprint) WHERE status IN ('DRAFT', 'CONFIRMED');
+
+-- Superseded by ux_transactions_user_fingerprint_live: unique_identifier across all users, then fingerprint across all users
+DROP INDEX IF EXISTS ux_transactions_unique_identifier_live;
+ALTER TABLE IF EXISTS transactions DROP CONSTRAINT IF EXISTS transactions_fingerprint_key;
+
+-- Intermediate scan states (QUEUED, PROCESSING) and the size of an upload accepted for async processing.
+-- Hibernate 6 created a CHECK constraint listing the enum values it knew at the time.
+ALTER TABLE IF EXISTS scan_history DROP CONSTRAINT IF EXISTS scan_history_status_check;
+ALTER TABLE IF EXISTS scan_history ADD COLUMN IF NOT EXISTS sms_received integer NOT NULL DEFAULT 0;
+
+-- Durable queue of async uploads, see ScanJobRepository. Not an entity, so created here.
+CREATE TABLE IF NOT EXISTS scan_jobs (
+    scan_id      uuid PRIMARY KEY,
+    user_id      uuid NOT NULL,
+    payload      text NOT NULL,
+    status       varchar(16) NOT NULL,
+    attempts     integer NOT NULL DEFAULT 0,
+    run_after    timestamptz NOT NULL DEFAULT now(),
+    locked_until timestamptz,
+    last_error   text,
+    created_at   timestamptz NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS ix_scan_jobs_claim ON scan_jobs (status, created_at);
+-- Set by a cancel handled on another instance than the one processing the job
+ALTER TABLE IF EXISTS scan_jobs ADD COLUMN IF NOT EXISTS cancel_requested boolean NOT NULL DEFAULT false;
+
+-- Chunked uploads: per-chunk outcome for idempotent re-sends, and the checkpoint in scan_history
+ALTER TABLE IF EXISTS scan_history ADD COLUMN IF NOT EXISTS chunks_received integer NOT NULL DEFAULT 0;
+ALTER TABLE IF EXISTS scan_history ADD COLUMN IF NOT EXISTS next_chunk integer NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS scan_chunks (
+    scan_id              uuid NOT NULL,
+    chunk_index          integer NOT NULL,
+    total_sms_processed  integer NOT NULL,
+    transactions_created integer NOT NULL,
+    duplicates_skipped   integer NOT NULL,
+    failed_to_parse      integer NOT NULL,
+    latest_timestamp     bigint NOT NULL,
+    created_at           timestamptz NOT NULL DEFAULT now(),
+    PRIMARY KEY (scan_id, chunk_index)
+);
+
+-- Every uploaded SMS that became a transaction or matched a stored one; source of the sync digest (SyncDigestService)
+CREATE TABLE IF NOT EXISTS sync_known_sms (
+    user_id       uuid NOT NULL,
+    fingerprint   uuid NOT NULL,
+    sms_timestamp bigint NOT NULL,
+    PRIMARY KEY (user_id, fingerprint)
+);
+CREATE INDEX IF NOT EXISTS ix_sync_known_sms_window ON sync_known_sms (user_id, sms_timestamp) INCLUDE (fingerprint);
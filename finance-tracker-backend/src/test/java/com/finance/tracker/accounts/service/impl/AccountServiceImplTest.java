@@ -26,6 +26,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -140,6 +141,53 @@ class AccountServiceImplTest {
         assertThrows(AccountUpdateFailedException.class, () -> accountService.updateBalanceForTransaction(req, userId));
     }
 
+    @Test
+    void testUpdateBalancesForTransactions_OneUpdatePerAccount() {
+        UUID liabilityAccountId = liabilityAccount.getId();
+        List<BalanceUpdateRequest> requests = List.of(
+                new BalanceUpdateRequest(accountId, new BigDecimal("100.00"), TransactionType.EXPENSE, UUID.randomUUID()),
+                new BalanceUpdateRequest(liabilityAccountId, new BigDecimal("40.00"), TransactionType.EXPENSE, UUID.randomUUID()),
+                new BalanceUpdateRequest(accountId, new BigDecimal("30.00"), TransactionType.INCOME, UUID.randomUUID()));
+
+        when(accountRepository.updateAssetBalance(accountId, userId, new BigDecimal("-70.00"))).thenReturn(1);
+        when(accountRepository.updateLiabilityBalance(liabilityAccountId, userId, new BigDecimal("40.00"))).thenReturn(1);
+
+        accountService.updateBalancesForTransactions(requests,
+                Map.of(accountId, assetAccount, liabilityAccountId, liabilityAccount), userId);
+
+        // The caller already resolved the accounts
+        verify(accountRepository, never()).findAllByUserIdAndIdIn(any(), any());
+        verify(accountRepository, times(1)).updateAssetBalance(any(), any(), any());
+        ArgumentCaptor<ATSnapshotCreateEvent> events = ArgumentCaptor.forClass(ATSnapshotCreateEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        // The asset snapshots chain 1000 -> 900 -> 930
+        ATSnapshotCreateEvent second = events.getAllValues().stream()
+                .filter(e -> e.getAccountId().equals(accountId)).toList().get(1);
+        assertEquals(new BigDecimal("900.00"), second.getPreviousBalance());
+        assertEquals(new BigDecimal("930.00"), second.getNewBalance());
+    }
+
+    @Test
+    void testUpdateBalancesForTransactions_IntermediateOverdraftRejected() {
+        // Net +100 on a balance of 1000, but the first expense alone would overdraw it
+        List<BalanceUpdateRequest> requests = List.of(
+                new BalanceUpdateRequest(accountId, new BigDecimal("1200.00"), TransactionType.EXPENSE, UUID.randomUUID()),
+                new BalanceUpdateRequest(accountId, new BigDecimal("1300.00"), TransactionType.INCOME, UUID.randomUUID()));
+
+        assertThrows(AccountUpdateFailedException.class, () -> accountService.updateBalancesForTransactions(
+                requests, Map.of(accountId, assetAccount), userId));
+        verify(accountRepository, never()).updateAssetBalance(any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testGetAccountsByIdsAndUser_MissingAccountThrows() {
+        when(accountRepository.findAllByUserIdAndIdIn(eq(userId), any())).thenReturn(List.of(assetAccount));
+
+        assertThrows(AccountNotFoundException.class,
+                () -> accountService.getAccountsByIdsAndUser(List.of(accountId, UUID.randomUUID()), userId));
+    }
+
     @Test
     void testCreate_Success() {
         when(accountRepository.findByLastFourAndUserIdAndAccountType("1234", userId, AccountType.BANK))
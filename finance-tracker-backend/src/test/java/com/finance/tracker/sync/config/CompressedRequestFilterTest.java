@@ -0,0 +1,179 @@
+package com.finance.tracker.sync.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
+import com.finance.tracker.sync.exceptions.UploadTooLargeException;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedRequestFilterTest {
+
+    private static final String BODY = "{\"smsList\":[{\"sender\":\"HDFCBK\",\"body\":\"Rs 500 debited\"}]}";
+
+    private CompressedRequestFilter filter;
+    private final AtomicReference<String> received = new AtomicReference<>();
+    private final AtomicReference<String> receivedEncoding = new AtomicReference<>("unset");
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private final FilterChain readingChain = (request, response) -> {
+        received.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        receivedEncoding.set(((HttpServletRequest) request).getHeader("Content-Encoding"));
+        finished.set(request.getInputStream().isFinished());
+    };
+
+    @BeforeEach
+    void setUp() {
+        filter = new CompressedRequestFilter(DataSize.ofKilobytes(1), 23, new ObjectMapper());
+    }
+
+    @Test
+    void decodesGzipBody() throws Exception {
+        MockHttpServletRequest request = upload("gzip", gzip(BODY.getBytes(StandardCharsets.UTF_8)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain);
+
+        assertEquals(BODY, received.get());
+        assertNull(receivedEncoding.get());
+        assertTrue(finished.get());
+    }
+
+    @Test
+    void decodesZstdBody() throws Exception {
+        MockHttpServletRequest request = upload("zstd", Zstd.compress(BODY.getBytes(StandardCharsets.UTF_8)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain);
+
+        assertEquals(BODY, received.get());
+    }
+
+    @Test
+    void notifiesReadListenerThatDecodedBodyIsReady() throws Exception {
+        MockHttpServletRequest request = upload("gzip", gzip(BODY.getBytes(StandardCharsets.UTF_8)));
+        AtomicBoolean allRead = new AtomicBoolean();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ServletInputStream in = req.getInputStream();
+            in.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    received.set(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    allRead.set(in.isFinished());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+        });
+
+        assertEquals(BODY, received.get());
+        assertTrue(allRead.get());
+    }
+
+    @Test
+    void passesUncompressedBodyThrough() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sync/batch-upload");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain);
+
+        assertEquals(BODY, received.get());
+    }
+
+    @Test
+    void stopsReadingPastDecompressedLimit() throws Exception {
+        // 1 MB of zeros compresses to about 1 KB
+        MockHttpServletRequest request = upload("gzip", gzip(new byte[1024 * 1024]));
+
+        assertThrows(UploadTooLargeException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), readingChain));
+    }
+
+    @Test
+    void rejectsCorruptCompressedBody() throws Exception {
+        byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+        compressed[compressed.length / 2] ^= 0x5A;
+        MockHttpServletRequest request = upload("gzip", compressed);
+
+        assertThrows(InvalidSyncRequestException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), readingChain));
+    }
+
+    @Test
+    void rejectsZstdFrameWithWindowOverLimit() throws Exception {
+        // Streamed without a known size, so the frame header asks for the full 2^27 byte window
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstd = new ZstdOutputStream(out).setWindowLog(27)) {
+            zstd.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = upload("zstd", out.toByteArray());
+
+        assertThrows(InvalidSyncRequestException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), readingChain));
+    }
+
+    @Test
+    void rejectsBadGzipHeaderWith400() throws Exception {
+        MockHttpServletRequest request = upload("gzip", BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, readingChain);
+
+        assertEquals(400, response.getStatus());
+        assertNull(received.get());
+    }
+
+    @Test
+    void rejectsUnsupportedEncodingWith415() throws Exception {
+        MockHttpServletRequest request = upload("br", new byte[]{1, 2, 3});
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, readingChain);
+
+        assertEquals(415, response.getStatus());
+        assertEquals("gzip, zstd", response.getHeader("Accept-Encoding"));
+        assertTrue(response.getContentAsString().contains("br"));
+        assertNull(received.get());
+    }
+
+    private static MockHttpServletRequest upload(String encoding, byte[] content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sync/batch-upload");
+        request.addHeader("Content-Encoding", encoding);
+        request.setContent(content);
+        return request;
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,171 @@
+package com.finance.tracker.sync.service;
+
+import com.finance.tracker.sync.exceptions.IngestThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestAdmissionServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID heavyUser = UUID.randomUUID();
+    private final UUID lightUser = UUID.randomUUID();
+
+    @Test
+    void rejectsUploadOverUserRateWithRetryAfter() {
+        IngestAdmissionService service = service(10, 100, 4, 8);
+
+        service.admit(heavyUser, 100).close();
+        IngestThrottledException e = assertThrows(IngestThrottledException.class, () -> service.admit(heavyUser, 50));
+
+        // 50 messages at 10 per second
+        assertEquals(5, e.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("ingest.admission").tag("result", "rate_limited").counter().count());
+        // Other users have their own budget
+        service.admit(lightUser, 100).close();
+    }
+
+    @Test
+    void admitsUploadLargerThanBurstOnFullBucketAndBillsTheExcess() {
+        IngestAdmissionService service = service(10, 100, 4, 8);
+
+        service.admit(heavyUser, 1_000).close();
+
+        assertThrows(IngestThrottledException.class, () -> service.admit(heavyUser, 1));
+    }
+
+    @Test
+    void rejectsWhenSlotsAndQueueAreFullAndRefundsTokens() {
+        IngestAdmissionService service = service(0.001, 100, 1, 0);
+
+        IngestAdmissionService.Permit held = service.admit(heavyUser, 10);
+        assertThrows(IngestThrottledException.class, () -> service.admit(heavyUser, 50));
+        held.close();
+
+        // 100 - 10, the rejected 50 were given back
+        service.admit(heavyUser, 90).close();
+        assertEquals(1, meterRegistry.get("ingest.admission").tag("result", "queue_full").counter().count());
+    }
+
+    @Test
+    void servesSmallUploadsBeforeLargeBacklogWhenSlotFrees() throws Exception {
+        IngestAdmissionService service = service(1_000_000, 1_000_000, 1, 8);
+        List<UUID> admittedOrder = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            IngestAdmissionService.Permit held = service.admit(UUID.randomUUID(), 1);
+
+            Future<?> heavy = executor.submit(() -> {
+                try (IngestAdmissionService.Permit permit = service.admit(heavyUser, 50_000)) {
+                    admittedOrder.add(heavyUser);
+                }
+            });
+            awaitQueued(1);
+            Future<?> light = executor.submit(() -> {
+                try (IngestAdmissionService.Permit permit = service.admit(lightUser, 100)) {
+                    admittedOrder.add(lightUser);
+                }
+            });
+            awaitQueued(2);
+
+            held.close();
+            heavy.get(5, TimeUnit.SECONDS);
+            light.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(lightUser, heavyUser), admittedOrder);
+    }
+
+    @Test
+    void abandonedWaitDoesNotPushBackUsersNextUpload() throws Exception {
+        IngestAdmissionService service = service(1_000_000, 1_000_000, 1, 8);
+        List<UUID> admittedOrder = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            IngestAdmissionService.Permit held = service.admit(UUID.randomUUID(), 1);
+
+            // A large upload gives up while queued, its client having gone away
+            Future<?> abandoned = executor.submit(() -> service.admit(heavyUser, 50_000));
+            awaitQueued(1);
+            abandoned.cancel(true);
+            awaitQueued(0);
+
+            Future<?> light = executor.submit(() -> {
+                try (IngestAdmissionService.Permit permit = service.admit(lightUser, 100)) {
+                    admittedOrder.add(lightUser);
+                }
+            });
+            awaitQueued(1);
+            Future<?> heavy = executor.submit(() -> {
+                try (IngestAdmissionService.Permit permit = service.admit(heavyUser, 10)) {
+                    admittedOrder.add(heavyUser);
+                }
+            });
+            awaitQueued(2);
+
+            held.close();
+            light.get(5, TimeUnit.SECONDS);
+            heavy.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Ordered by the 10 messages just sent, not by the 50,000 that were never served
+        assertEquals(List.of(heavyUser, lightUser), admittedOrder);
+    }
+
+    @Test
+    void timesOutWaitingForSlot() {
+        IngestAdmissionService service = new IngestAdmissionService(1_000, 1_000, 1, 8,
+                Duration.ofMillis(50), Duration.ofMinutes(10), meterRegistry);
+
+        try (IngestAdmissionService.Permit held = service.admit(heavyUser, 1)) {
+            IngestThrottledException e = assertThrows(IngestThrottledException.class, () -> service.admit(lightUser, 1));
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+        assertEquals(0.0, meterRegistry.get("ingest.queued").gauge().value());
+        assertEquals(0.0, meterRegistry.get("ingest.active").gauge().value());
+    }
+
+    @Test
+    void tokenBucketRefillsOverTimeUpToCapacity() {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        IngestAdmissionService.TokenBucket bucket = new IngestAdmissionService.TokenBucket(10, 100, 0);
+
+        assertEquals(0, bucket.tryTake(100, 0));
+        assertEquals(second, bucket.tryTake(10, 0));
+        assertEquals(0, bucket.tryTake(10, second));
+        // Idle for a minute refills to the burst size, not beyond
+        assertEquals(0, bucket.tryTake(100, 61 * second));
+        assertTrue(bucket.tryTake(1, 61 * second) > 0);
+    }
+
+    private IngestAdmissionService service(double perSecond, long burst, int maxConcurrent, int maxQueued) {
+        return new IngestAdmissionService(perSecond, burst, maxConcurrent, maxQueued,
+                Duration.ofSeconds(5), Duration.ofMinutes(10), meterRegistry);
+    }
+
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("ingest.queued").gauge().value() != count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Uploads did not queue");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
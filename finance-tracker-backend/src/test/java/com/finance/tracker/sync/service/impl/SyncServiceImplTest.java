@@ -1,7 +1,10 @@
 package com.finance.tracker.sync.service.impl;
 
 import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import com.finance.tracker.sync.domain.ScanProgressEvent;
 import com.finance.tracker.sync.domain.ScanStatus;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
 import com.finance.tracker.sync.domain.dtos.ScanResponse;
 import com.finance.tracker.sync.domain.dtos.ScanStartResponse;
 import com.finance.tracker.sync.domain.dtos.SyncMetadataResponse;
@@ -11,24 +14,38 @@ import com.finance.tracker.sync.exceptions.InvalidScanStateException;
 import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
 import com.finance.tracker.sync.exceptions.ScanAccessDeniedException;
 import com.finance.tracker.sync.exceptions.ScanNotFoundException;
+import com.finance.tracker.sync.repository.ScanChunkRepository;
 import com.finance.tracker.sync.repository.ScanHistoryRepository;
 import com.finance.tracker.sync.repository.SyncMetadataRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -42,6 +59,12 @@ class SyncServiceImplTest {
     @Mock
     private ScanHistoryRepository scanHistoryRepository;
 
+    @Mock
+    private ScanChunkRepository scanChunkRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private SyncServiceImpl syncService;
 
@@ -86,11 +109,29 @@ class SyncServiceImplTest {
     }
 
     @Test
-    void finalizeScanRejectsAlreadyCompletedScan() {
+    void finalizeScanReturnsAlreadyCompletedScanUnchanged() {
         ScanHistory existing = new ScanHistory();
         existing.setId(scanId);
         existing.setUserId(userId);
         existing.setStatus(ScanStatus.COMPLETED);
+        existing.setTransactionsCreated(7);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+
+        ScanResponse response = syncService.finalizeScan(userId, scanId,
+                EndScanRequest.builder().transactionsCreated(99).build());
+
+        assertEquals(ScanStatus.COMPLETED, response.status());
+        assertEquals(7, response.transactionsCreated());
+        verify(scanHistoryRepository, never()).completeIfInStatus(any(), any(), any(), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void finalizeScanRejectsFailedScan() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.FAILED);
 
         when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
 
@@ -114,7 +155,8 @@ class SyncServiceImplTest {
                 .build();
 
         when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
-        when(scanHistoryRepository.save(existing)).thenReturn(existing);
+        when(scanHistoryRepository.completeIfInStatus(eq(scanId), eq(ScanStatus.STARTED), any(OffsetDateTime.class), eq(10), eq(7), eq(2), eq(1)))
+                .thenReturn(1);
 
         ScanResponse response = syncService.finalizeScan(userId, scanId, request);
 
@@ -126,6 +168,253 @@ class SyncServiceImplTest {
         assertNotNull(existing.getEndTime());
     }
 
+    @Test
+    void finalizeScanRejectsScanCompletedConcurrently() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.STARTED);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanHistoryRepository.completeIfInStatus(eq(scanId), eq(ScanStatus.STARTED), any(OffsetDateTime.class), eq(0), eq(0), eq(0), eq(0)))
+                .thenReturn(0);
+
+        assertThrows(InvalidScanStateException.class,
+                () -> syncService.finalizeScan(userId, scanId, EndScanRequest.builder().build()));
+    }
+
+    @Test
+    void finalizeScanCompletesScanProcessedByWorker() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.PROCESSING);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanHistoryRepository.completeIfInStatus(eq(scanId), eq(ScanStatus.PROCESSING), any(OffsetDateTime.class), eq(0), eq(0), eq(0), eq(0)))
+                .thenReturn(1);
+
+        ScanResponse response = syncService.finalizeScan(userId, scanId, EndScanRequest.builder().build());
+
+        assertEquals(ScanStatus.COMPLETED, response.status());
+        verify(eventPublisher).publishEvent(any(ScanProgressEvent.class));
+    }
+
+    @Test
+    void queueScanMovesStartedScanToQueued() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.STARTED);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanHistoryRepository.queueIfStarted(scanId, 42)).thenReturn(1);
+
+        ScanResponse response = syncService.queueScan(userId, scanId, 42);
+
+        assertEquals(ScanStatus.QUEUED, response.status());
+        assertEquals(42, response.smsReceived());
+    }
+
+    @Test
+    void queueScanRejectsScanAlreadyQueued() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.QUEUED);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+
+        assertThrows(InvalidScanStateException.class, () -> syncService.queueScan(userId, scanId, 42));
+        verify(scanHistoryRepository, never()).queueIfStarted(any(), anyInt());
+    }
+
+    @Test
+    void startProcessingAcceptsScanLeftProcessingByFailedAttempt() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setStatus(ScanStatus.PROCESSING);
+
+        when(scanHistoryRepository.transition(scanId, ScanStatus.QUEUED, ScanStatus.PROCESSING)).thenReturn(0);
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+
+        assertTrue(syncService.startProcessing(scanId));
+    }
+
+    @Test
+    void endScanRejectsScanStillProcessing() {
+        ScanHistory existing = new ScanHistory();
+        existing.setId(scanId);
+        existing.setUserId(userId);
+        existing.setStatus(ScanStatus.PROCESSING);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+
+        assertThrows(InvalidScanStateException.class, () -> syncService.endScan(userId, scanId));
+        verify(scanHistoryRepository, never()).save(any(ScanHistory.class));
+    }
+
+    @Test
+    void recordChunkAddsCountsAndAdvancesResumePointPastContiguousChunks() {
+        ScanHistory existing = startedScan();
+        existing.setChunksReceived(2);
+        existing.setNextChunk(1);
+        ScanChunk chunk = new ScanChunk(1, 10, 6, 3, 1, 5_000L);
+        // Chunk 2 arrived before chunk 1
+        ScanHistory updated = startedScan();
+        updated.setChunksReceived(3);
+        updated.setNextChunk(3);
+        updated.setTransactionsCreated(16);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing), Optional.of(updated));
+        when(scanChunkRepository.insert(scanId, chunk)).thenReturn(true);
+        when(scanChunkRepository.findChunkIndexes(scanId)).thenReturn(List.of(0, 1, 2));
+        when(scanHistoryRepository.addChunk(scanId, 10, 6, 3, 1)).thenReturn(1);
+
+        ScanChunkResponse response = syncService.recordChunk(userId, scanId, chunk);
+
+        assertFalse(response.replayed());
+        assertEquals(3, response.chunksReceived());
+        assertEquals(3, response.nextChunk());
+        verify(scanHistoryRepository).updateNextChunk(scanId, 3);
+    }
+
+    @Test
+    void recordChunkReportsTotalsIncludingConcurrentChunks() {
+        ScanChunk chunk = new ScanChunk(1, 10, 6, 3, 1, 5_000L);
+        // Chunk 2's upload committed while this one waited on the scan row lock
+        ScanHistory updated = startedScan();
+        updated.setChunksReceived(2);
+        updated.setNextChunk(0);
+        updated.setTotalSmsProcessed(20);
+        updated.setTransactionsCreated(12);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(startedScan()), Optional.of(updated));
+        when(scanChunkRepository.insert(scanId, chunk)).thenReturn(true);
+        when(scanChunkRepository.findChunkIndexes(scanId)).thenReturn(List.of(1, 2));
+        when(scanHistoryRepository.addChunk(scanId, 10, 6, 3, 1)).thenReturn(1);
+
+        ScanChunkResponse response = syncService.recordChunk(userId, scanId, chunk);
+
+        assertEquals(2, response.chunksReceived());
+        ArgumentCaptor<ScanProgressEvent> event = ArgumentCaptor.forClass(ScanProgressEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(20, event.getValue().getScan().totalSmsProcessed());
+        assertEquals(12, event.getValue().getScan().transactionsCreated());
+    }
+
+    @Test
+    void recordChunkReadsResumePointOnlyAfterLockingScan() {
+        ScanChunk first = new ScanChunk(0, 10, 10, 0, 0, 1_000L);
+        ScanChunk second = new ScanChunk(1, 10, 10, 0, 0, 2_000L);
+        // A record sees committed chunk rows plus its own, the innermost uncommitted one
+        List<Integer> committed = new ArrayList<>();
+        Deque<Integer> uncommitted = new ArrayDeque<>();
+        ScanHistory stored = startedScan();
+
+        when(scanHistoryRepository.findById(scanId)).thenAnswer(inv -> Optional.of(copy(stored)));
+        when(scanHistoryRepository.updateNextChunk(eq(scanId), anyInt())).thenAnswer(inv -> {
+            stored.setNextChunk(inv.getArgument(1));
+            return 1;
+        });
+        when(scanChunkRepository.insert(eq(scanId), any(ScanChunk.class))).thenAnswer(inv -> {
+            uncommitted.push(inv.<ScanChunk>getArgument(1).chunkIndex());
+            return true;
+        });
+        when(scanChunkRepository.findChunkIndexes(scanId)).thenAnswer(inv ->
+                Stream.concat(committed.stream(), Stream.of(uncommitted.peek())).sorted().toList());
+        // Chunk 1's upload stored its row, then waits on the scan row lock while chunk 0's upload
+        // records and commits; it only gets the lock once chunk 0 is visible
+        when(scanHistoryRepository.addChunk(scanId, 10, 10, 0, 0))
+                .thenAnswer(inv -> {
+                    syncService.recordChunk(userId, scanId, first);
+                    committed.add(uncommitted.pop());
+                    return 1;
+                })
+                .thenReturn(1);
+
+        ScanChunkResponse response = syncService.recordChunk(userId, scanId, second);
+
+        InOrder order = inOrder(scanHistoryRepository);
+        order.verify(scanHistoryRepository).updateNextChunk(scanId, 1);
+        order.verify(scanHistoryRepository).updateNextChunk(scanId, 2);
+        assertEquals(2, response.nextChunk());
+    }
+
+    @Test
+    void recordChunkReturnsStoredOutcomeForChunkAlreadyRecorded() {
+        ScanHistory existing = startedScan();
+        ScanChunk stored = new ScanChunk(0, 10, 10, 0, 0, 5_000L);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanChunkRepository.insert(eq(scanId), any(ScanChunk.class))).thenReturn(false);
+        when(scanChunkRepository.find(scanId, 0)).thenReturn(Optional.of(stored));
+
+        ScanChunkResponse response = syncService.recordChunk(userId, scanId, new ScanChunk(0, 10, 0, 10, 0, 5_000L));
+
+        assertTrue(response.replayed());
+        assertEquals(10, response.transactionsCreated());
+        verify(scanHistoryRepository, never()).addChunk(any(), anyInt(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void commitChunkedScanRejectsMissingChunk() {
+        ScanHistory existing = startedScan();
+        existing.setChunksReceived(2);
+        existing.setNextChunk(1);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+
+        InvalidScanStateException ex = assertThrows(InvalidScanStateException.class,
+                () -> syncService.commitChunkedScan(userId, scanId, 3));
+        assertEquals("Chunk 1 has not been received", ex.getMessage());
+    }
+
+    @Test
+    void commitChunkedScanCompletesWithAccumulatedCounts() {
+        ScanHistory existing = startedScan();
+        existing.setChunksReceived(2);
+        existing.setNextChunk(2);
+        existing.setTotalSmsProcessed(20);
+        existing.setTransactionsCreated(15);
+        existing.setDuplicatesSkipped(5);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanChunkRepository.findLatestTimestamp(scanId, 2)).thenReturn(9_000L);
+        when(scanHistoryRepository.completeIfInStatus(eq(scanId), eq(ScanStatus.STARTED), any(OffsetDateTime.class), eq(20), eq(15), eq(5), eq(0)))
+                .thenReturn(1);
+        when(syncMetadataRepository.advanceBookmark(userId, 9_000L)).thenReturn(9_000L);
+
+        ScanResponse response = syncService.commitChunkedScan(userId, scanId, 2);
+
+        assertEquals(ScanStatus.COMPLETED, response.status());
+        assertEquals(15, response.transactionsCreated());
+        verify(syncMetadataRepository).advanceBookmark(userId, 9_000L);
+        verify(scanChunkRepository).deleteAll(scanId);
+    }
+
+    @Test
+    void commitChunkedScanLeavesOutChunksPastDeclaredCount() {
+        ScanHistory existing = startedScan();
+        // Chunks 0 and 1, plus a stray chunk 7
+        existing.setChunksReceived(3);
+        existing.setNextChunk(2);
+        existing.setTotalSmsProcessed(30);
+        existing.setTransactionsCreated(25);
+
+        when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.of(existing));
+        when(scanChunkRepository.sumChunks(scanId, 2)).thenReturn(EndScanRequest.builder()
+                .totalSmsProcessed(20).transactionsCreated(15).duplicatesSkipped(5).failedToParse(0).build());
+        when(scanHistoryRepository.completeIfInStatus(eq(scanId), eq(ScanStatus.STARTED), any(OffsetDateTime.class), eq(20), eq(15), eq(5), eq(0)))
+                .thenReturn(1);
+
+        ScanResponse response = syncService.commitChunkedScan(userId, scanId, 2);
+
+        assertEquals(ScanStatus.COMPLETED, response.status());
+        assertEquals(20, response.totalSmsProcessed());
+        verify(scanChunkRepository).deleteAll(scanId);
+    }
+
     @Test
     void finalizeScanThrowsWhenScanDoesNotExist() {
         when(scanHistoryRepository.findById(scanId)).thenReturn(Optional.empty());
@@ -135,30 +424,59 @@ class SyncServiceImplTest {
     }
 
     @Test
-    void updateMetadataInitializesMissingRecord() {
-        ArgumentCaptor<SyncMetadata> captor = ArgumentCaptor.forClass(SyncMetadata.class);
-
-        when(syncMetadataRepository.findById(userId)).thenReturn(Optional.empty());
-        when(syncMetadataRepository.save(any(SyncMetadata.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    void updateMetadataUpsertsBookmarkInOneStatement() {
+        when(syncMetadataRepository.advanceBookmark(userId, 12345L)).thenReturn(12345L);
 
         SyncMetadataResponse response = syncService.updateMetadata(userId, 12345L);
 
         assertEquals(userId, response.userId());
         assertEquals(12345L, response.latestScannedTimestamp());
-        verify(syncMetadataRepository).save(captor.capture());
-        assertEquals(userId, captor.getValue().getUserId());
-        assertEquals(12345L, captor.getValue().getLastScannedSmsDate());
+        assertEquals("UPDATED", response.status());
+        verify(syncMetadataRepository, never()).findById(any());
+        verify(syncMetadataRepository, never()).save(any(SyncMetadata.class));
     }
 
     @Test
-    void updateMetadataRejectsBackwardTimestamp() {
-        SyncMetadata metadata = new SyncMetadata();
-        metadata.setUserId(userId);
-        metadata.setLastScannedSmsDate(500L);
+    void getMetadataDoesNotCreateMissingRecord() {
+        when(syncMetadataRepository.findById(userId)).thenReturn(Optional.empty());
 
-        when(syncMetadataRepository.findById(userId)).thenReturn(Optional.of(metadata));
+        SyncMetadataResponse response = syncService.getMetadata(userId);
 
-        assertThrows(InvalidSyncRequestException.class, () -> syncService.updateMetadata(userId, 499L));
+        assertEquals(0L, response.latestScannedTimestamp());
         verify(syncMetadataRepository, never()).save(any(SyncMetadata.class));
     }
+
+    private static ScanHistory copy(ScanHistory history) {
+        ScanHistory copy = new ScanHistory();
+        copy.setId(history.getId());
+        copy.setUserId(history.getUserId());
+        copy.setStatus(history.getStatus());
+        copy.setNextChunk(history.getNextChunk());
+        return copy;
+    }
+
+    private ScanHistory startedScan() {
+        ScanHistory history = new ScanHistory();
+        history.setId(scanId);
+        history.setUserId(userId);
+        history.setStatus(ScanStatus.STARTED);
+        return history;
+    }
+
+    @Test
+    void updateMetadataKeepsLaterBookmarkForOutOfOrderTimestamp() {
+        // Another scan already moved the bookmark past this one
+        when(syncMetadataRepository.advanceBookmark(userId, 499L)).thenReturn(500L);
+
+        SyncMetadataResponse response = syncService.updateMetadata(userId, 499L);
+
+        assertEquals(500L, response.latestScannedTimestamp());
+        assertEquals("UNCHANGED", response.status());
+    }
+
+    @Test
+    void updateMetadataRejectsNegativeTimestamp() {
+        assertThrows(InvalidSyncRequestException.class, () -> syncService.updateMetadata(userId, -1L));
+        verify(syncMetadataRepository, never()).advanceBookmark(any(), anyLong());
+    }
 }
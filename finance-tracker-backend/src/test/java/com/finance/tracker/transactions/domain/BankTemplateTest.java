@@ -0,0 +1,53 @@
+package com.finance.tracker.transactions.domain;
+
+import com.finance.tracker.transactions.exceptions.RegexBudgetExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BankTemplateTest {
+
+    @Test
+    void guardedMatcherAbortsCatastrophicBacktracking() {
+        BankTemplate template = template("(.*?,){11}P");
+        String body = "a,".repeat(30);
+
+        Matcher matcher = template.guardedMatcher(body, 100_000);
+
+        assertThrows(RegexBudgetExceededException.class, matcher::find);
+    }
+
+    @Test
+    void guardedMatcherReturnsGroupsWithinBudget() {
+        BankTemplate template = template("Spent INR (?<Amount>[\\d,.]+)");
+
+        Matcher matcher = template.guardedMatcher("Spent INR 1,250.00 at CAFE", 10_000);
+
+        assertTrue(matcher.find());
+        assertEquals("1,250.00", matcher.group("Amount"));
+    }
+
+    @Test
+    void quarantinesOnceAfterRepeatedOverruns() {
+        BankTemplate template = template("x");
+
+        assertFalse(template.recordOverrun(2));
+        assertTrue(template.recordOverrun(2));
+        assertFalse(template.recordOverrun(2));
+        assertTrue(template.isQuarantined());
+    }
+
+    private BankTemplate template(String pattern) {
+        BankTemplate template = new BankTemplate();
+        template.setPattern(pattern);
+        template.setFields(List.of("Amount"));
+        template.compile();
+        return template;
+    }
+}
@@ -0,0 +1,105 @@
+package com.finance.tracker.transactions.service;
+
+import com.finance.tracker.sync.domain.ScanJob;
+import com.finance.tracker.sync.repository.ScanJobRepository;
+import com.finance.tracker.sync.service.SyncService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScanJobWorkerTest {
+
+    @Mock
+    private ScanJobRepository scanJobRepository;
+
+    @Mock
+    private SyncService syncService;
+
+    @Mock
+    private TransactionBatchService batchService;
+
+    private ScanJobWorker worker;
+
+    private final UUID scanId = UUID.randomUUID();
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        worker = new ScanJobWorker(scanJobRepository, syncService, batchService,
+                1, Duration.ofSeconds(1), 3, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void reportsEmptyQueue() {
+        when(scanJobRepository.claimNext()).thenReturn(Optional.empty());
+
+        assertFalse(worker.runOnce());
+    }
+
+    @Test
+    void processesClaimedJob() {
+        ScanJob job = new ScanJob(scanId, userId, "[]", 1);
+        when(scanJobRepository.claimNext()).thenReturn(Optional.of(job));
+        when(syncService.startProcessing(scanId)).thenReturn(true);
+
+        assertTrue(worker.runOnce());
+
+        verify(batchService).processQueuedScan(job);
+        verify(scanJobRepository, never()).retry(any(), any(Integer.class), any());
+    }
+
+    @Test
+    void dropsJobWhoseScanIsNoLongerQueued() {
+        when(scanJobRepository.claimNext()).thenReturn(Optional.of(new ScanJob(scanId, userId, "[]", 1)));
+        when(syncService.startProcessing(scanId)).thenReturn(false);
+
+        worker.runOnce();
+
+        verify(scanJobRepository).delete(scanId);
+        verify(batchService, never()).processQueuedScan(any());
+    }
+
+    @Test
+    void retriesFailedAttemptWhileAttemptsRemain() {
+        ScanJob job = new ScanJob(scanId, userId, "[]", 2);
+        when(scanJobRepository.claimNext()).thenReturn(Optional.of(job));
+        when(syncService.startProcessing(scanId)).thenReturn(true);
+        doThrow(new IllegalStateException("db down")).when(batchService).processQueuedScan(job);
+
+        worker.runOnce();
+
+        verify(scanJobRepository).retry(eq(scanId), eq(2), anyString());
+        verify(syncService, never()).failScan(scanId);
+    }
+
+    @Test
+    void failsScanOnLastAttempt() {
+        ScanJob job = new ScanJob(scanId, userId, "[]", 3);
+        when(scanJobRepository.claimNext()).thenReturn(Optional.of(job));
+        when(syncService.startProcessing(scanId)).thenReturn(true);
+        doThrow(new IllegalStateException("db down")).when(batchService).processQueuedScan(job);
+
+        worker.runOnce();
+
+        verify(scanJobRepository).fail(eq(scanId), anyString());
+        verify(syncService).failScan(scanId);
+    }
+}
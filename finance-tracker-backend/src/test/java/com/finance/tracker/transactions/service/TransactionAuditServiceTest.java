@@ -0,0 +1,118 @@
+package com.finance.tracker.transactions.service;
+
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.entities.UnparsedSmsLog;
+import com.finance.tracker.transactions.repository.UnparsedSmsLogBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionAuditServiceTest {
+
+    private static final Duration NEVER = Duration.ofHours(1);
+
+    @Mock
+    private UnparsedSmsLogBatchRepository logsRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TransactionAuditService auditService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        auditService.shutdown();
+    }
+
+    @Test
+    void writesOneBatchOnceFlushSizeIsReached() {
+        auditService = new TransactionAuditService(logsRepository, 100, 3, NEVER, meterRegistry);
+
+        auditService.logFailedParsing(sms("one"), "NO_REGEX_MATCH");
+        auditService.logFailedParsing(sms("two"), "NO_REGEX_MATCH");
+        verify(logsRepository, never()).insertAll(anyList());
+
+        auditService.logFailedParsing(sms("three"), "NO_REGEX_MATCH");
+
+        ArgumentCaptor<List<UnparsedSmsLog>> batch = listCaptor();
+        verify(logsRepository, timeout(1_000)).insertAll(batch.capture());
+        assertEquals(List.of("one", "two", "three"),
+                batch.getValue().stream().map(UnparsedSmsLog::getSmsRawBody).toList());
+        assertEquals("NO_REGEX_MATCH", batch.getValue().get(0).getErrorReason());
+    }
+
+    @Test
+    void writesPartialBatchWhenIntervalElapses() {
+        auditService = new TransactionAuditService(logsRepository, 100, 50, Duration.ofMillis(20), meterRegistry);
+
+        auditService.logFailedParsing(sms("one"), "NO_REGEX_MATCH");
+
+        verify(logsRepository, timeout(1_000)).insertAll(List.of(entry("one")));
+    }
+
+    @Test
+    void dropsAndCountsEntriesWhenBufferIsFull() {
+        auditService = new TransactionAuditService(logsRepository, 2, 50, NEVER, meterRegistry);
+
+        auditService.logFailedParsing(sms("one"), "NO_REGEX_MATCH");
+        auditService.logFailedParsing(sms("two"), "NO_REGEX_MATCH");
+        auditService.logFailedParsing(sms("three"), "NO_REGEX_MATCH");
+
+        assertEquals(1.0, meterRegistry.counter("sms.audit.dropped").count());
+    }
+
+    @Test
+    void drainsBufferOnShutdown() throws InterruptedException {
+        auditService = new TransactionAuditService(logsRepository, 100, 50, NEVER, meterRegistry);
+        auditService.logFailedParsing(sms("one"), "NO_REGEX_MATCH");
+        auditService.logFailedParsing(sms("two"), "NO_REGEX_MATCH");
+
+        auditService.shutdown();
+
+        verify(logsRepository).insertAll(List.of(entry("one"), entry("two")));
+        assertEquals(2.0, meterRegistry.counter("sms.audit.written").count());
+    }
+
+    @Test
+    void failedWriteIsCountedAndDoesNotReachTheCaller() throws InterruptedException {
+        auditService = new TransactionAuditService(logsRepository, 100, 50, NEVER, meterRegistry);
+        doThrow(new IllegalStateException("db down")).when(logsRepository).insertAll(anyList());
+        auditService.logFailedParsing(sms("one"), "NO_REGEX_MATCH");
+
+        auditService.shutdown();
+
+        assertEquals(1.0, meterRegistry.counter("sms.audit.failed").count());
+    }
+
+    private static SmsRequest sms(String body) {
+        return new SmsRequest(null, "AX-PROMO", body, 1_000L);
+    }
+
+    private static UnparsedSmsLog entry(String body) {
+        UnparsedSmsLog log = new UnparsedSmsLog();
+        log.setSender("AX-PROMO");
+        log.setSmsRawBody(body);
+        log.setTimestamp(1_000L);
+        log.setErrorReason("NO_REGEX_MATCH");
+        return log;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<UnparsedSmsLog>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
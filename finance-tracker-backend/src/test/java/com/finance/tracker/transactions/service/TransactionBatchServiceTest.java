@@ -0,0 +1,440 @@
+package com.finance.tracker.transactions.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.finance.tracker.accounts.domain.BalanceUpdateRequest;
+import com.finance.tracker.accounts.domain.entities.Account;
+import com.finance.tracker.accounts.service.AccountService;
+import com.finance.tracker.category.domain.CategoryType;
+import com.finance.tracker.category.domain.entities.Category;
+import com.finance.tracker.category.exceptions.CategoryNotFoundException;
+import com.finance.tracker.category.service.CategoryService;
+import com.finance.tracker.sync.domain.EndScanRequest;
+import com.finance.tracker.sync.domain.ScanChunk;
+import com.finance.tracker.sync.domain.ScanJob;
+import com.finance.tracker.sync.domain.ScanProgressEvent;
+import com.finance.tracker.sync.domain.ScanStatus;
+import com.finance.tracker.sync.domain.dtos.ScanChunkResponse;
+import com.finance.tracker.sync.domain.dtos.ScanResponse;
+import com.finance.tracker.sync.exceptions.InvalidSyncRequestException;
+import com.finance.tracker.sync.repository.KnownSmsRepository;
+import com.finance.tracker.sync.repository.ScanJobRepository;
+import com.finance.tracker.sync.service.SyncService;
+import com.finance.tracker.transactions.domain.BatchSyncRequest;
+import com.finance.tracker.transactions.domain.BatchSyncResponse;
+import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ScanChunkRequest;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.TransactionType;
+import com.finance.tracker.transactions.domain.dtos.BatchUpdateTransactionRequestDto;
+import com.finance.tracker.transactions.repository.TransactionBatchRepository;
+import com.finance.tracker.transactions.utilities.SmsFingerprint;
+import com.finance.tracker.transactions.utilities.SmsParseScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionBatchRepository batchRepository;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private TransactionSmsService smsService;
+
+    @Mock
+    private TransactionAuditService auditService;
+
+    @Mock
+    private SyncService syncService;
+
+    @Mock
+    private FingerprintFilterService fingerprintFilter;
+
+    @Mock
+    private ScanJobRepository scanJobRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private KnownSmsRepository knownSmsRepository;
+
+    private TransactionBatchService batchService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID scanId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        batchService = new TransactionBatchService(batchRepository, transactionManager,
+                accountService, categoryService, smsService, auditService, syncService, new ObjectMapper(),
+                new SmsParseScheduler(2, 2, new SimpleMeterRegistry()), fingerprintFilter,
+                scanJobRepository, eventPublisher, knownSmsRepository);
+        // Filter cannot rule anything out unless a test says otherwise
+        lenient().when(fingerprintFilter.mayExist(any(), anyCollection()))
+                .thenAnswer(inv -> Set.copyOf(inv.<Collection<UUID>>getArgument(1)));
+        ReflectionTestUtils.setField(batchService, "streamWindowSize", 2);
+        ReflectionTestUtils.setField(batchService, "writeBatchSize", 2);
+        ReflectionTestUtils.setField(batchService, "maxChunkSize", 100);
+        ReflectionTestUtils.setField(batchService, "confirmChunkSize", 500);
+    }
+
+    @Test
+    void rejectsSizePropertiesBelowOneAtStartup() {
+        batchService.validateSizes();
+
+        ReflectionTestUtils.setField(batchService, "confirmChunkSize", 0);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, batchService::validateSizes);
+        assertEquals("app.transactions.confirm.chunk-size must be at least 1, was 0", e.getMessage());
+
+        ReflectionTestUtils.setField(batchService, "confirmChunkSize", 500);
+        ReflectionTestUtils.setField(batchService, "writeBatchSize", -1);
+        assertThrows(IllegalArgumentException.class, batchService::validateSizes);
+    }
+
+    @Test
+    void processStreamHandlesUploadInBoundedWindows() {
+        when(batchRepository.findExistingFingerprints(eq(userId), anyCollection())).thenReturn(Set.of());
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.empty()));
+
+        BatchSyncResponse response = batchService.processStream(userId, scanId, ndjson(
+                sms("one", 1_000L),
+                sms("two", 3_000L),
+                sms("three", 2_000L),
+                sms("four", 4_000L),
+                sms("five", 5_000L)));
+
+        // 5 messages with a window of 2: 2 + 2 + 1
+        verify(smsService, times(3)).parseAll(anyList(), any());
+        verify(auditService, times(5)).logFailedParsing(any(), eq("NO_REGEX_MATCH"));
+        assertEquals(new BatchSyncResponse(0, 0, 5), response);
+
+        ArgumentCaptor<EndScanRequest> summary = ArgumentCaptor.forClass(EndScanRequest.class);
+        verify(syncService).finalizeScan(eq(userId), eq(scanId), summary.capture());
+        assertEquals(5, summary.getValue().getTotalSmsProcessed());
+        verify(syncService).updateMetadata(userId, 5_000L);
+    }
+
+    @Test
+    void processBatchInsertsDraftsInBoundedStatements() {
+        when(batchRepository.findExistingFingerprints(eq(userId), anyCollection())).thenReturn(Set.of());
+        ParsedTransaction parsed = ParsedTransaction.builder().amountMinor(10_000).confidence(0.9).build();
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.of(parsed)));
+        // The second statement loses one row to a concurrent upload of the same SMS
+        when(batchRepository.insertDrafts(anyList())).thenReturn(2, 0);
+
+        List<SmsRequest> messages = List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 2_000L),
+                new SmsRequest(null, "AX-AXISBK", "three", 3_000L));
+        BatchSyncResponse response = batchService.processBatch(userId, new BatchSyncRequest(scanId, messages));
+
+        assertEquals(new BatchSyncResponse(2, 1, 0), response);
+        // 3 drafts with a write batch of 2
+        verify(batchRepository, times(2)).insertDrafts(anyList());
+        verify(syncService).finalizeScan(eq(userId), eq(scanId), any(EndScanRequest.class));
+    }
+
+    @Test
+    void processStreamSkipsMessagesAlreadyStored() {
+        when(batchRepository.findExistingFingerprints(eq(userId), anyCollection()))
+                .thenAnswer(inv -> Set.copyOf(inv.<Collection<UUID>>getArgument(1)));
+        when(smsService.parseAll(anyList(), any())).thenReturn(List.of());
+
+        BatchSyncResponse response = batchService.processStream(userId, scanId, ndjson(
+                sms("one", 1_000L),
+                sms("two", 2_000L),
+                sms("three", 3_000L)));
+
+        assertEquals(new BatchSyncResponse(0, 3, 0), response);
+        verify(batchRepository, never()).insertDrafts(anyList());
+        // Duplicates are still known messages for the digest
+        verify(knownSmsRepository, times(2)).recordAll(eq(userId), any());
+    }
+
+    @Test
+    void processBatchRecordsOnlyMessagesBackedByTransactionsAsKnown() {
+        SmsRequest stored = new SmsRequest(null, "AX-AXISBK", "stored", 1_000L);
+        SmsRequest parsed = new SmsRequest(null, "AX-AXISBK", "parsed", 2_000L);
+        SmsRequest unparsed = new SmsRequest(null, "AX-AXISBK", "unparsed", 3_000L);
+        when(batchRepository.findExistingFingerprints(eq(userId), anyCollection()))
+                .thenReturn(Set.of(SmsFingerprint.of(stored)));
+        when(smsService.parseAll(anyList(), any())).thenReturn(List.of(
+                Optional.of(ParsedTransaction.builder().amountMinor(10_000).confidence(0.9).build()),
+                Optional.empty()));
+        when(batchRepository.insertDrafts(anyList())).thenReturn(1);
+        ReflectionTestUtils.setField(batchService, "streamWindowSize", 3);
+
+        batchService.processBatch(userId, new BatchSyncRequest(scanId, List.of(stored, parsed, unparsed)));
+
+        // The unparsed message is sent again on the next sync
+        verify(knownSmsRepository).recordAll(userId, Map.of(
+                SmsFingerprint.of(stored), 1_000L,
+                SmsFingerprint.of(parsed), 2_000L));
+    }
+
+    @Test
+    void processBatchSkipsDatabaseProbeWhenFilterRulesOutEveryMessage() {
+        when(fingerprintFilter.mayExist(any(), anyCollection())).thenReturn(Set.of());
+        ParsedTransaction parsed = ParsedTransaction.builder().amountMinor(10_000).confidence(0.9).build();
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.of(parsed)));
+        when(batchRepository.insertDrafts(anyList())).thenReturn(2);
+
+        List<SmsRequest> messages = List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 2_000L));
+        BatchSyncResponse response = batchService.processBatch(userId, new BatchSyncRequest(scanId, messages));
+
+        assertEquals(new BatchSyncResponse(2, 0, 0), response);
+        verify(batchRepository, never()).findExistingFingerprints(eq(userId), anyCollection());
+        verify(fingerprintFilter).added(eq(userId), argThat(added -> added.size() == 2));
+    }
+
+    @Test
+    void enqueueBatchQueuesScanAndStoresUploadInOneTransaction() {
+        ScanResponse queued = new ScanResponse(scanId, ScanStatus.QUEUED, null, null, 2, 0, 0, 0, 0, 0, 0);
+        when(syncService.queueScan(userId, scanId, 2)).thenReturn(queued);
+        when(scanJobRepository.enqueue(eq(scanId), eq(userId), any())).thenReturn(true);
+
+        ScanResponse response = batchService.enqueueBatch(userId, new BatchSyncRequest(scanId, List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 2_000L))));
+
+        assertEquals(queued, response);
+        verify(transactionManager).commit(any());
+        verify(eventPublisher).publishEvent(any(ScanProgressEvent.class));
+        verify(smsService, never()).parseAll(anyList(), any());
+    }
+
+    @Test
+    void processQueuedScanRecordsProgressPerWindowAndRemovesJob() throws Exception {
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.empty()));
+        String payload = new ObjectMapper().writeValueAsString(List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 2_000L),
+                new SmsRequest(null, "AX-AXISBK", "three", 3_000L)));
+
+        batchService.processQueuedScan(new ScanJob(scanId, userId, payload, 1));
+
+        // 3 messages with a window of 2
+        ArgumentCaptor<EndScanRequest> progress = ArgumentCaptor.forClass(EndScanRequest.class);
+        verify(syncService, times(2)).recordProgress(eq(scanId), progress.capture());
+        assertEquals(List.of(2, 3), progress.getAllValues().stream().map(EndScanRequest::getTotalSmsProcessed).toList());
+        verify(scanJobRepository, times(2)).extendLease(scanId);
+        verify(syncService).finalizeScan(eq(userId), eq(scanId), any(EndScanRequest.class));
+        verify(scanJobRepository).delete(scanId);
+    }
+
+    @Test
+    void retriedQueuedScanResumesAfterRecordedProgress() throws Exception {
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.empty()));
+        // The failed attempt saved its first window, whose message became a draft
+        when(syncService.getScan(userId, scanId))
+                .thenReturn(new ScanResponse(scanId, ScanStatus.PROCESSING, null, null, 3, 2, 1, 0, 1, 0, 0));
+        String payload = new ObjectMapper().writeValueAsString(List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 5_000L),
+                new SmsRequest(null, "AX-AXISBK", "three", 3_000L)));
+
+        batchService.processQueuedScan(new ScanJob(scanId, userId, payload, 2));
+
+        verify(smsService).parseAll(argThat(batch -> batch.size() == 1), any());
+        ArgumentCaptor<EndScanRequest> summary = ArgumentCaptor.forClass(EndScanRequest.class);
+        verify(syncService).finalizeScan(eq(userId), eq(scanId), summary.capture());
+        assertEquals(3, summary.getValue().getTotalSmsProcessed());
+        assertEquals(1, summary.getValue().getTransactionsCreated());
+        assertEquals(0, summary.getValue().getDuplicatesSkipped());
+        assertEquals(2, summary.getValue().getFailedToParse());
+        // The bookmark still covers the messages the failed attempt handled
+        verify(syncService).updateMetadata(userId, 5_000L);
+    }
+
+    @Test
+    void queuedScanStopsWhenCancelIsRequestedThroughJobRow() throws Exception {
+        when(scanJobRepository.isCancelRequested(scanId)).thenReturn(true);
+        String payload = new ObjectMapper().writeValueAsString(List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L)));
+
+        batchService.processQueuedScan(new ScanJob(scanId, userId, payload, 1));
+
+        verify(smsService, never()).parseAll(anyList(), any());
+        verify(scanJobRepository).delete(scanId);
+        verify(syncService).reopenScan(scanId);
+        verify(syncService, never()).finalizeScan(any(), any(), any());
+    }
+
+    @Test
+    void cancelScanFlagsUploadRunningOnAnotherInstance() {
+        when(scanJobRepository.requestCancel(scanId, userId)).thenReturn(true);
+
+        batchService.cancelScan(userId, scanId);
+
+        verify(syncService, never()).reopenScan(any());
+    }
+
+    @Test
+    void uploadChunkRecordsOutcomeOfNewChunk() {
+        when(smsService.parseAll(anyList(), any()))
+                .thenAnswer(inv -> Collections.nCopies(inv.<List<SmsRequest>>getArgument(0).size(), Optional.empty()));
+        when(syncService.findChunk(scanId, 4)).thenReturn(Optional.empty());
+        ScanChunkResponse recorded = new ScanChunkResponse(scanId, 4, false, 3, 0, 0, 3, 5, 5);
+        when(syncService.recordChunk(userId, scanId, new ScanChunk(4, 3, 0, 0, 3, 3_000L))).thenReturn(recorded);
+
+        ScanChunkResponse response = batchService.uploadChunk(userId, scanId, 4, new ScanChunkRequest(List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 3_000L),
+                new SmsRequest(null, "AX-AXISBK", "three", 2_000L))));
+
+        assertEquals(recorded, response);
+        verify(syncService, never()).finalizeScan(any(), any(), any());
+    }
+
+    @Test
+    void uploadChunkSkipsChunkAlreadyRecorded() {
+        when(syncService.findChunk(scanId, 0)).thenReturn(Optional.of(new ScanChunk(0, 2, 2, 0, 0, 2_000L)));
+        when(syncService.getScan(userId, scanId))
+                .thenReturn(new ScanResponse(scanId, ScanStatus.STARTED, null, null, 0, 2, 2, 0, 0, 1, 1));
+
+        ScanChunkResponse response = batchService.uploadChunk(userId, scanId, 0, new ScanChunkRequest(List.of(
+                new SmsRequest(null, "AX-AXISBK", "one", 1_000L),
+                new SmsRequest(null, "AX-AXISBK", "two", 2_000L))));
+
+        assertTrue(response.replayed());
+        assertEquals(2, response.transactionsCreated());
+        assertEquals(1, response.nextChunk());
+        verify(smsService, never()).parseAll(anyList(), any());
+        verify(syncService, never()).recordChunk(any(), any(), any());
+    }
+
+    @Test
+    void cancelScanWithdrawsUploadStillInQueue() {
+        when(scanJobRepository.deleteIfQueued(scanId, userId)).thenReturn(true);
+
+        batchService.cancelScan(userId, scanId);
+
+        verify(syncService).reopenScan(scanId);
+    }
+
+    @Test
+    void readBatchBindsUploadAndRejectsMalformedBody() {
+        BatchSyncRequest request = batchService.readBatch(new ByteArrayInputStream(
+                ("{\"scanId\":\"" + scanId + "\",\"smsList\":[" + sms("one", 1_000L) + "]}").getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(scanId, request.scanId());
+        assertEquals(1, request.smsList().size());
+        assertThrows(InvalidSyncRequestException.class, () -> batchService.readBatch(
+                new ByteArrayInputStream("{\"smsList\":[".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void processStreamRejectsMalformedLineWithoutFinalizing() {
+        InputStream body = new ByteArrayInputStream(
+                (sms("one", 1_000L) + "\n[1, 2]\n").getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(InvalidSyncRequestException.class, () -> batchService.processStream(userId, scanId, body));
+        verify(syncService, never()).finalizeScan(any(), any(), any());
+    }
+
+    @Test
+    void batchConfirmResolvesReferencesOnceAndMovesBalancesOncePerChunk() {
+        UUID categoryId = UUID.randomUUID();
+        UUID savingsId = UUID.randomUUID();
+        UUID cardId = UUID.randomUUID();
+        when(categoryService.validateAndGetAll(eq(userId), anyCollection())).thenReturn(Map.of(
+                categoryId, Category.builder().id(categoryId).type(CategoryType.EXPENSE).build()));
+        when(accountService.getAccountsByIdsAndUser(anyCollection(), eq(userId))).thenReturn(Map.of(
+                savingsId, Account.builder().id(savingsId).build(),
+                cardId, Account.builder().id(cardId).build()));
+        List<BalanceUpdateRequest> confirmed = List.of(
+                new BalanceUpdateRequest(savingsId, new BigDecimal("10.00"), TransactionType.EXPENSE, UUID.randomUUID()));
+        when(batchRepository.confirmDrafts(eq(userId), anyList())).thenReturn(confirmed);
+
+        batchService.batchConfirmAndUpdate(userId, List.of(
+                confirmRequest(categoryId, savingsId),
+                confirmRequest(categoryId, cardId),
+                confirmRequest(categoryId, savingsId)));
+
+        verify(categoryService).validateAndGetAll(eq(userId), argThat(ids -> ids.size() == 3));
+        verify(accountService).getAccountsByIdsAndUser(anyCollection(), eq(userId));
+        verify(batchRepository).confirmDrafts(eq(userId), argThat(transactions -> transactions.size() == 3));
+        // Only rows the UPDATE actually confirmed move balances
+        verify(accountService).updateBalancesForTransactions(eq(confirmed), argThat(accounts -> accounts.size() == 2), eq(userId));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void batchConfirmRejectsCategoryOfOtherTypeBeforeWriting() {
+        UUID categoryId = UUID.randomUUID();
+        UUID accountId = UUID.randomUUID();
+        when(categoryService.validateAndGetAll(eq(userId), anyCollection())).thenReturn(Map.of(
+                categoryId, Category.builder().id(categoryId).type(CategoryType.INCOME).build()));
+        when(accountService.getAccountsByIdsAndUser(anyCollection(), eq(userId))).thenReturn(Map.of(
+                accountId, Account.builder().id(accountId).build()));
+
+        assertThrows(CategoryNotFoundException.class,
+                () -> batchService.batchConfirmAndUpdate(userId, List.of(confirmRequest(categoryId, accountId))));
+        verify(batchRepository, never()).confirmDrafts(any(), anyList());
+    }
+
+    private static BatchUpdateTransactionRequestDto confirmRequest(UUID categoryId, UUID accountId) {
+        return new BatchUpdateTransactionRequestDto(UUID.randomUUID(), "Groceries", new BigDecimal("10.00"), "expense",
+                categoryId, accountId, LocalDateTime.of(2026, 1, 5, 10, 0), null, "Store", null, List.of(), "INR");
+    }
+
+    private static String sms(String body, long timestamp) {
+        return "{\"sender\":\"AX-AXISBK\",\"body\":\"" + body + "\",\"timestamp\":" + timestamp + "}";
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
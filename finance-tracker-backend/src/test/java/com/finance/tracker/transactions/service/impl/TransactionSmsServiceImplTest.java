@@ -0,0 +1,136 @@
+package com.finance.tracker.transactions.service.impl;
+
+import com.finance.tracker.transactions.domain.ParsedTransaction;
+import com.finance.tracker.transactions.domain.ShapeHint;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.service.MessageProducer;
+import com.finance.tracker.transactions.service.SmsParserService;
+import com.finance.tracker.transactions.utilities.BankSenderRegistry;
+import com.finance.tracker.transactions.utilities.SmsClassifier;
+import com.finance.tracker.transactions.utilities.SmsParseScheduler;
+import com.finance.tracker.transactions.utilities.SmsShapeCache;
+import com.finance.tracker.transactions.utilities.TemplateLoader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TransactionSmsServiceImplTest {
+
+    private static final List<SmsRequest> SAMPLES = List.of(
+            sms("AX-AXISBK", "Spent Card no. XX1234 INR 100 10-01-26 08:50:53 IST CAFE Avl Limit INR 900"),
+            sms("VM-PAYTMB", "Rs.250.00 paid to swiggy@ybl from A/c XX1234 on 12-01-26. UPI Ref 401234567890"),
+            sms("VM-NOBANK", "INR 3,499.00 spent on card XX9876 at FLIPKART on 03-01-26"),
+            sms("AD-SWIGGY", "Your OTP for login is 482913. Do not share it with anyone."),
+            sms("VM-NOBANK", "You have received INR 1,200 from rahul.k@okaxis. UTR: 998877")
+    );
+
+    private TransactionSmsServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BankSenderRegistry senderRegistry = new BankSenderRegistry("/bank_senders.json");
+        TemplateLoader templateLoader = new TemplateLoader("/bank_templates/", "", false, 500, event -> {});
+        ReflectionTestUtils.invokeMethod(templateLoader, "init");
+
+        BankSmsParserServiceImpl bankParser =
+                new BankSmsParserServiceImpl(senderRegistry, templateLoader, meterRegistry, event -> {});
+        ReflectionTestUtils.setField(bankParser, "matchBudget", 1_000_000L);
+        ReflectionTestUtils.setField(bankParser, "quarantineAfter", 3);
+
+        Map<String, SmsParserService> parsers = Map.of(
+                "upiSmsParser", new UpiSmsParserServiceImpl(),
+                "bankSmsParser", bankParser,
+                "genericSmsParser", new GenericBankSmsParserServiceImpl());
+
+        service = new TransactionSmsServiceImpl(parsers, mock(MessageProducer.class),
+                new SmsClassifier(senderRegistry, templateLoader), new SmsShapeCache(1000, meterRegistry),
+                new SmsParseScheduler(4, 2, meterRegistry));
+        ReflectionTestUtils.setField(service, "minChunkSize", 8);
+        ReflectionTestUtils.setField(service, "maxChunkSize", 32);
+    }
+
+    @Test
+    void parseAllMatchesSingleParsesInInputOrder() {
+        List<SmsRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.addAll(SAMPLES);
+        }
+
+        List<Optional<ParsedTransaction>> results = service.parseAll(batch);
+
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(service.parseTransactionFromSms(batch.get(i)), results.get(i), batch.get(i).getBody());
+        }
+    }
+
+    @Test
+    void parseAllRoutesEachMessageToItsParser() {
+        List<Optional<ParsedTransaction>> results = service.parseAll(SAMPLES);
+
+        assertEquals("AXIS", results.get(0).orElseThrow().getBank());
+        assertEquals("axis#0", results.get(0).orElseThrow().getTemplateId());
+        assertEquals("UPI", results.get(1).orElseThrow().getBank());
+        assertEquals("UNKNOWN", results.get(2).orElseThrow().getBank());
+        assertFalse(results.get(3).isPresent());
+        assertTrue(results.get(4).isPresent());
+    }
+
+    @Test
+    void budgetOverrunDoesNotMarkShapeUnparseable() {
+        AtomicInteger bankCalls = new AtomicInteger();
+        // First message aborts over its match budget, the next one of the same shape matches
+        SmsParserService bankParser = new SmsParserService() {
+            @Override
+            public Optional<ParsedTransaction> parse(SmsRequest sms) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public List<Optional<ParsedTransaction>> parseAll(List<SmsRequest> messages, List<ShapeHint> hints,
+                                                              BitSet inconclusive) {
+                if (bankCalls.getAndIncrement() == 0) {
+                    inconclusive.set(0);
+                    return List.of(Optional.empty());
+                }
+                return List.of(Optional.of(ParsedTransaction.builder().bank("AXIS").templateId("axis#0")
+                        .confidence(1.0).amountMinor(10_000).build()));
+            }
+        };
+        SmsParserService noMatch = sms -> Optional.empty();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BankSenderRegistry senderRegistry = new BankSenderRegistry("/bank_senders.json");
+        TemplateLoader templateLoader = new TemplateLoader("/bank_templates/", "", false, 500, event -> {});
+        ReflectionTestUtils.invokeMethod(templateLoader, "init");
+        TransactionSmsServiceImpl stubbed = new TransactionSmsServiceImpl(
+                Map.of("upiSmsParser", noMatch, "bankSmsParser", bankParser, "genericSmsParser", noMatch),
+                mock(MessageProducer.class), new SmsClassifier(senderRegistry, templateLoader),
+                new SmsShapeCache(1000, meterRegistry), new SmsParseScheduler(1, 1, meterRegistry));
+
+        assertFalse(stubbed.parseTransactionFromSms(sms("AX-AXISBK", SAMPLES.get(0).getBody())).isPresent());
+        // Only the digits differ, so the shape is the same
+        Optional<ParsedTransaction> next = stubbed.parseTransactionFromSms(
+                sms("AX-AXISBK", SAMPLES.get(0).getBody().replace("INR 100", "INR 250")));
+
+        assertEquals("axis#0", next.orElseThrow().getTemplateId());
+        assertEquals(2, bankCalls.get());
+    }
+
+    private static SmsRequest sms(String sender, String body) {
+        return new SmsRequest(null, sender, body, 1736500000000L);
+    }
+}
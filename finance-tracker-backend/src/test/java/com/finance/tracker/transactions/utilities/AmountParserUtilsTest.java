@@ -0,0 +1,33 @@
+package com.finance.tracker.transactions.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AmountParserUtilsTest {
+
+    @Test
+    void readsIndianGroupedAmountsIntoPaise() {
+        assertEquals(10_499_950L, AmountParserUtils.toMinorUnits("1,04,999.50"));
+        assertEquals(25_000L, AmountParserUtils.toMinorUnits("250"));
+        assertEquals(150L, AmountParserUtils.toMinorUnits("1.5"));
+        assertEquals(10_000L, AmountParserUtils.toMinorUnits("100."));
+    }
+
+    @Test
+    void readsRangeInPlace() {
+        String sms = "Rs.1,200.75 debited";
+
+        assertEquals(120_075L, AmountParserUtils.toMinorUnits(sms, 3, 11));
+    }
+
+    @Test
+    void rejectsWhatIsNotAnAmount() {
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits(","));
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits("1.2.3"));
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits("12.345"));
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits("12a"));
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits("99999999999999999999"));
+        assertEquals(AmountParserUtils.INVALID, AmountParserUtils.toMinorUnits(null));
+    }
+}
@@ -0,0 +1,38 @@
+package com.finance.tracker.transactions.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BankSenderRegistryTest {
+
+    private final BankSenderRegistry registry = new BankSenderRegistry("/bank_senders.json");
+
+    @Test
+    void resolvesDltHeadersWithOperatorPrefixAndCategorySuffix() {
+        assertEquals(Optional.of("HDFC"), registry.resolveBank("AX-HDFCBK"));
+        assertEquals(Optional.of("ICICI"), registry.resolveBank("vm-icicib-s"));
+        assertEquals(Optional.of("AXIS"), registry.resolveBank("JD-AXISBK-T"));
+    }
+
+    @Test
+    void returnsEmptyForUnknownOrMissingSender() {
+        assertEquals(Optional.empty(), registry.resolveBank("AD-SWIGGY"));
+        assertEquals(Optional.empty(), registry.resolveBank(null));
+    }
+
+    @Test
+    void prefersLongestMatchRegardlessOfInsertionOrder() {
+        AhoCorasick<String> matcher = AhoCorasick.build(Map.of(
+                "SBI", "short",
+                "SBIINB", "long",
+                "INB", "suffix"));
+
+        assertEquals("long", matcher.findLongest("XSBIINBX"));
+        assertEquals("short", matcher.findLongest("SBIPAY"));
+        assertEquals(null, matcher.findLongest("HDFCBK"));
+    }
+}
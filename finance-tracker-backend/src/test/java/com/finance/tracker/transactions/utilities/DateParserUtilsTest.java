@@ -0,0 +1,59 @@
+package com.finance.tracker.transactions.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DateParserUtilsTest {
+
+    @Test
+    void readsCommonIndianDateFormats() {
+        long expected = millis(LocalDateTime.of(2026, 1, 10, 0, 0));
+
+        assertEquals(expected, DateParserUtils.toEpochMillis("10-01-26", null));
+        assertEquals(expected, DateParserUtils.toEpochMillis("10/01/2026", null));
+        assertEquals(expected, DateParserUtils.toEpochMillis("10-Jan-26", null));
+        assertEquals(expected, DateParserUtils.toEpochMillis("10-JAN-2026", null));
+        assertEquals(expected, DateParserUtils.toEpochMillis("10/1/26", null));
+    }
+
+    @Test
+    void addsTimeOfDay() {
+        assertEquals(millis(LocalDateTime.of(2026, 1, 10, 8, 50, 53)), DateParserUtils.toEpochMillis("10-01-26", "08:50:53"));
+        assertEquals(millis(LocalDateTime.of(2026, 1, 10, 8, 50)), DateParserUtils.toEpochMillis("10-01-26", "8:50"));
+    }
+
+    @Test
+    void readsRangesInPlace() {
+        String sms = "Spent on 29-02-24 at 23:59:59 IST";
+
+        assertEquals(millis(LocalDateTime.of(2024, 2, 29, 23, 59, 59)),
+                DateParserUtils.toEpochMillis(sms, 9, 17, sms, 21, 29));
+    }
+
+    @Test
+    void agreesWithJavaTimeAcrossYears() {
+        for (LocalDate date = LocalDate.of(1999, 12, 25); date.getYear() < 2101; date = date.plusDays(7)) {
+            String text = String.format("%02d/%02d/%04d", date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+            assertEquals(millis(date.atStartOfDay()), DateParserUtils.toEpochMillis(text, null), text);
+        }
+    }
+
+    @Test
+    void rejectsInvalidDatesWithoutThrowing() {
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("29-02-25", null));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("31-04-26", null));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("10-Foo-26", null));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("10-01-226", null));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("10-01-26", "24:00"));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis("10-01-26", "08:5"));
+        assertEquals(DateParserUtils.INVALID, DateParserUtils.toEpochMillis(null, null));
+    }
+
+    private static long millis(LocalDateTime local) {
+        return local.toInstant(DateParserUtils.SMS_ZONE_OFFSET).toEpochMilli();
+    }
+}
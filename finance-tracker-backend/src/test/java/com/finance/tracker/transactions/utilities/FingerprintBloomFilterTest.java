@@ -0,0 +1,55 @@
+package com.finance.tracker.transactions.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FingerprintBloomFilterTest {
+
+    @Test
+    void neverReportsStoredFingerprintAsAbsent() {
+        FingerprintBloomFilter filter = FingerprintBloomFilter.create(10_000, 0.01);
+        List<UUID> stored = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID fingerprint = SmsFingerprint.of("VM-HDFCBK", "Rs." + i + " debited", 1_767_400_000_000L + i * 1000L);
+            stored.add(fingerprint);
+            filter.put(fingerprint);
+        }
+
+        stored.forEach(fingerprint -> assertTrue(filter.mightContain(fingerprint)));
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtCapacity() {
+        FingerprintBloomFilter filter = FingerprintBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(SmsFingerprint.of("VM-HDFCBK", "stored " + i, 1_767_400_000_000L));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(SmsFingerprint.of("VM-HDFCBK", "incoming " + i, 1_767_400_000_000L))) {
+                falsePositives++;
+            }
+        }
+        // 1% target, with room for sampling noise
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void reportsSaturationPastCapacity() {
+        FingerprintBloomFilter filter = FingerprintBloomFilter.create(2, 0.01);
+        filter.put(UUID.randomUUID());
+        filter.put(UUID.randomUUID());
+        assertFalse(filter.isSaturated());
+
+        filter.put(UUID.randomUUID());
+        assertTrue(filter.isSaturated());
+    }
+}
@@ -0,0 +1,84 @@
+package com.finance.tracker.transactions.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FingerprintRangeDigestTest {
+
+    @Test
+    void sameFingerprintsInAnyOrderGiveSameDigest() {
+        List<UUID> fingerprints = fingerprints(0, 1_000);
+        FingerprintRangeDigest server = new FingerprintRangeDigest(8);
+        FingerprintRangeDigest client = new FingerprintRangeDigest(8);
+        fingerprints.forEach(server::add);
+        fingerprints.reversed().forEach(client::add);
+
+        assertArrayEquals(server.counts(), client.counts());
+        assertArrayEquals(server.hashes(), client.hashes());
+        assertEquals(1_000, server.size());
+    }
+
+    @Test
+    void onlyRangesHoldingMissingMessagesDiffer() {
+        FingerprintRangeDigest server = new FingerprintRangeDigest(8);
+        FingerprintRangeDigest client = new FingerprintRangeDigest(8);
+        fingerprints(0, 1_000).forEach(server::add);
+        fingerprints(0, 1_000).forEach(client::add);
+        List<UUID> missing = fingerprints(1_000, 1_003);
+        missing.forEach(client::add);
+
+        // Compared the way a client does, from the exported arrays
+        int[] serverCounts = server.counts();
+        long[] serverHashes = server.hashes();
+        int[] clientCounts = client.counts();
+        long[] clientHashes = client.hashes();
+        Set<Integer> differing = new HashSet<>();
+        for (int bucket = 0; bucket < 256; bucket++) {
+            if (serverCounts[bucket] != clientCounts[bucket] || serverHashes[bucket] != clientHashes[bucket]) {
+                differing.add(bucket);
+            }
+        }
+        assertEquals(missing.stream().map(client::bucketOf).collect(Collectors.toSet()), differing);
+    }
+
+    @Test
+    void sizesRangesToTargetBucketSize() {
+        assertEquals(0, FingerprintRangeDigest.bucketBitsFor(0, 4, 16));
+        assertEquals(0, FingerprintRangeDigest.bucketBitsFor(4, 4, 16));
+        assertEquals(5, FingerprintRangeDigest.bucketBitsFor(100, 4, 16));
+        assertEquals(16, FingerprintRangeDigest.bucketBitsFor(10_000_000, 4, 16));
+    }
+
+    @Test
+    void singleRangeCoversEverything() {
+        FingerprintRangeDigest digest = new FingerprintRangeDigest(0);
+        fingerprints(0, 10).forEach(digest::add);
+
+        assertArrayEquals(new int[]{10}, digest.counts());
+    }
+
+    @Test
+    void rejectsBucketBitsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new FingerprintRangeDigest(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FingerprintRangeDigest(FingerprintRangeDigest.MAX_BUCKET_BITS + 1));
+    }
+
+    private static List<UUID> fingerprints(int from, int to) {
+        List<UUID> fingerprints = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            fingerprints.add(SmsFingerprint.of("VM-HDFCBK", "Rs." + i + " debited", 1_767_400_000_000L + i * 1000L));
+        }
+        return fingerprints;
+    }
+}
@@ -0,0 +1,50 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.BankTemplate;
+import com.finance.tracker.transactions.domain.BankTemplateSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegexLiteralsTest {
+
+    @Test
+    void extractsTopLevelLiteralRuns() {
+        assertEquals(List.of("spent", "card no.", "avl", "lim", "inr"),
+                RegexLiterals.extract("(?s)Spent\\s.*?Card no\\.\\s*XX(?<LastFour>\\d{4})\\s*Avl\\s*Lim(?:it|t)[:\\s]*INR\\s*(?<Amount>[\\d,.]+)"));
+    }
+
+    @Test
+    void dropsOptionalCharactersAndSplitsOnRepetition() {
+        assertEquals(List.of("debi", "inr"), RegexLiterals.extract("^Debit?\\s+INR+"));
+        assertEquals(List.of("abc"), RegexLiterals.extract("abcx*yz"));
+    }
+
+    @Test
+    void requiresNothingForTopLevelAlternation() {
+        assertTrue(RegexLiterals.extract("Spent INR|Debit INR").isEmpty());
+    }
+
+    @Test
+    void templateSetFlagsOnlyTemplatesWhoseLiteralsArePresent() {
+        BankTemplate spend = template("Spent\\s+INR\\s*(?<Amount>[\\d,.]+)");
+        BankTemplate debit = template("^Debit\\s+INR\\s+(?<Amount>[\\d,.]+)");
+
+        BankTemplateSet set = new BankTemplateSet(List.of(spend, debit));
+
+        assertArrayEquals(new boolean[]{true, false}, set.candidates("SPENT INR 250.00 at CAFE"));
+        assertArrayEquals(new boolean[]{false, true}, set.candidates("Debit INR 99.00 Axis Bank A/c XX12"));
+    }
+
+    private BankTemplate template(String pattern) {
+        BankTemplate template = new BankTemplate();
+        template.setPattern(pattern);
+        template.setFields(List.of("Amount"));
+        template.compile();
+        return template;
+    }
+}
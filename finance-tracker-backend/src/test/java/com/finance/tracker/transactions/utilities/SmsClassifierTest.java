@@ -0,0 +1,105 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.BankTemplate;
+import com.finance.tracker.transactions.domain.SmsFeatures;
+import com.finance.tracker.transactions.domain.SmsRequest;
+import com.finance.tracker.transactions.domain.SmsRoute;
+import com.finance.tracker.transactions.service.impl.GenericBankSmsParserServiceImpl;
+import com.finance.tracker.transactions.service.impl.UpiSmsParserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SmsClassifierTest {
+
+    private static final List<String> BODIES = List.of(
+            "Rs.250.00 paid to swiggy@ybl from A/c XX1234 on 12-01-26. UPI Ref 401234567890",
+            "You have received INR 1,200 from rahul.k@okaxis. UTR: 998877",
+            "Rs 500 debited from a/c **4321 on 05/01/2026 at AMAZON PAY. Avl bal Rs 10,000",
+            "INR 3,499.00 spent on card XX9876 at FLIPKART on 03-01-26",
+            "Your OTP for login is 482913. Do not share it with anyone.",
+            "Get 50% off on your next order! Use code SAVE50 @ checkout",
+            "Refund of Rs.99 processed"
+    );
+
+    @Mock
+    private TemplateLoader templateLoader;
+
+    private SmsClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        when(templateLoader.load(anyString())).thenReturn(List.of());
+        classifier = new SmsClassifier(new BankSenderRegistry("/bank_senders.json"), templateLoader);
+    }
+
+    @Test
+    void routesUpiAlertToUpiThenGeneric() {
+        SmsFeatures features = classifier.classify(sms("VM-PAYTMB", BODIES.get(0)));
+
+        assertEquals(List.of(SmsRoute.UPI, SmsRoute.GENERIC), features.routes());
+    }
+
+    @Test
+    void routesBankSenderWithTemplatesToBankParser() {
+        when(templateLoader.load("AXIS")).thenReturn(List.of(new BankTemplate()));
+
+        SmsFeatures features = classifier.classify(sms("AX-AXISBK", "Spent Card no. XX1234 INR 100 10-01-26 08:50:53 CAFE Avl Lmt INR 900"));
+
+        assertEquals("AXIS", features.bank());
+        assertEquals(SmsRoute.BANK, features.routes().get(0));
+    }
+
+    @Test
+    void routesNonTransactionalMessagesNowhere() {
+        assertTrue(classifier.classify(sms("AD-SWIGGY", BODIES.get(4))).routes().isEmpty());
+        assertTrue(classifier.classify(sms("AD-SWIGGY", BODIES.get(5))).routes().isEmpty());
+    }
+
+    @Test
+    void predictionsAgreeWithParserOutcomes() {
+        UpiSmsParserServiceImpl upiParser = new UpiSmsParserServiceImpl();
+        GenericBankSmsParserServiceImpl genericParser = new GenericBankSmsParserServiceImpl();
+
+        for (String body : BODIES) {
+            SmsRequest sms = sms("VM-NOBANK", body);
+            List<SmsRoute> routes = classifier.classify(sms).routes();
+
+            boolean upiSatisfied = upiParser.parse(sms).filter(p -> p.getConfidence() >= 0.7).isPresent();
+            boolean genericSatisfied = genericParser.parse(sms).filter(p -> p.getConfidence() >= 0.7).isPresent();
+
+            assertEquals(upiSatisfied, routes.contains(SmsRoute.UPI), body);
+            assertEquals(genericSatisfied, routes.contains(SmsRoute.GENERIC), body);
+            assertFalse(routes.contains(SmsRoute.BANK), body);
+        }
+    }
+
+    @Test
+    void sameTemplateWithDifferentValuesSharesShape() {
+        long first = classifier.classify(sms("VM-NOBANK", "Rs 250.00 debited from A/c XX1234 on 10-01-26. Ref 9876543")).shape();
+        long second = classifier.classify(sms("VM-NOBANK", "Rs 1,04,999.50 debited from A/c XX9876 on 31-12-25. Ref 11")).shape();
+        long other = classifier.classify(sms("VM-NOBANK", "Rs 250.00 credited to A/c XX1234 on 10-01-26. Ref 9876543")).shape();
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    private SmsRequest sms(String sender, String body) {
+        return new SmsRequest(null, sender, body, 1736500000000L);
+    }
+}
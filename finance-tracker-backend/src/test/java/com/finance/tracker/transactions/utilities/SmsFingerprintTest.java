@@ -0,0 +1,53 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.SmsRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SmsFingerprintTest {
+
+    private static final String BODY = "INR 3,499.00 spent on card XX9876 at FLIPKART on 03-01-26";
+
+    @Test
+    void fingerprintIsStableAcrossReleases() {
+        // Stored in transactions.fingerprint: if this changes, existing rows no longer dedup
+        assertEquals(UUID.fromString("e7b733b7-29b2-fcf4-fe7f-2524ddcf600b"),
+                SmsFingerprint.of("VM-HDFCBK", BODY, 1_767_400_000_123L));
+    }
+
+    @Test
+    void sameMessageFromDifferentUploadsHasOneFingerprint() {
+        UUID reference = SmsFingerprint.of("VM-HDFCBK", BODY, 1_767_400_000_123L);
+
+        assertEquals(reference, SmsFingerprint.of(" vm-hdfcbk ", BODY, 1_767_400_000_123L));
+        assertEquals(reference, SmsFingerprint.of("VM-HDFCBK", "  " + BODY.replace(" on ", " \n on  ") + "\n", 1_767_400_000_123L));
+        assertEquals(reference, SmsFingerprint.of("VM-HDFCBK", BODY, 1_767_400_000_999L));
+        assertEquals(reference, SmsFingerprint.of(new SmsRequest("client-id", "VM-HDFCBK", BODY, 1_767_400_000_000L)));
+    }
+
+    @Test
+    void anyMeaningfulDifferenceChangesFingerprint() {
+        UUID reference = SmsFingerprint.of("VM-HDFCBK", BODY, 1_767_400_000_123L);
+
+        assertNotEquals(reference, SmsFingerprint.of("VM-ICICIB", BODY, 1_767_400_000_123L));
+        assertNotEquals(reference, SmsFingerprint.of("VM-HDFCBK", BODY.replace("3,499", "3,498"), 1_767_400_000_123L));
+        assertNotEquals(reference, SmsFingerprint.of("VM-HDFCBK", BODY, 1_767_400_001_123L));
+        // Field boundaries are length-prefixed
+        assertNotEquals(SmsFingerprint.of("AB", "C", 0L), SmsFingerprint.of("A", "BC", 0L));
+    }
+
+    @Test
+    void composedAndDecomposedAccentsMatch() {
+        assertEquals(SmsFingerprint.of("AD-CAFE", "Caf\u00e9 INR 10", 0L),
+                SmsFingerprint.of("AD-CAFE", "Cafe\u0301 INR 10", 0L));
+    }
+
+    @Test
+    void missingFieldsDoNotFail() {
+        assertEquals(SmsFingerprint.of("", "", 0L), SmsFingerprint.of(null, null, null));
+    }
+}
@@ -0,0 +1,149 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.sync.exceptions.InvalidScanStateException;
+import com.finance.tracker.sync.exceptions.ScanAccessDeniedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmsParseSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SmsParseScheduler scheduler = new SmsParseScheduler(4, 2, meterRegistry);
+    private final UUID userId = UUID.randomUUID();
+    private final UUID scanId = UUID.randomUUID();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void mapKeepsInputOrderAndCapsChunksPerScan() {
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Integer> doubled;
+        try (ParseScope scope = scheduler.open(userId, scanId)) {
+            doubled = scheduler.map(scope, items, 7, chunk -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(5);
+                running.decrementAndGet();
+                return chunk.stream().map(i -> i * 2).toList();
+            });
+        }
+
+        assertEquals(items.stream().map(i -> i * 2).toList(), doubled);
+        assertTrue(maxRunning.get() <= 2, "a scan must not exceed its parallelism");
+    }
+
+    @Test
+    void cancelStopsScanWaitingForWorkers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<List<Integer>> upload = CompletableFuture.supplyAsync(() -> {
+            try (ParseScope scope = scheduler.open(userId, scanId)) {
+                return scheduler.map(scope, List.of(1, 2, 3, 4, 5), 1, chunk -> {
+                    started.countDown();
+                    await(release);
+                    return chunk;
+                });
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(scheduler.cancel(userId, scanId));
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> upload.get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof InvalidScanStateException);
+        assertEquals(1.0, meterRegistry.get("sms.parse.cancelled").counter().count());
+        // The scan can be uploaded again once the cancelled request is gone
+        scheduler.open(userId, scanId).close();
+    }
+
+    @Test
+    void cancelReturnsPermitsOfChunksStillQueuedOnThePool() throws Exception {
+        // Two slots but one thread, so the second chunk holds a slot while queued behind the first
+        SimpleMeterRegistry narrowMeters = new SimpleMeterRegistry();
+        SmsParseScheduler narrow = new SmsParseScheduler(2, 2, Executors.newSingleThreadExecutor(), narrowMeters);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<List<Integer>> upload = CompletableFuture.supplyAsync(() -> {
+                try (ParseScope scope = narrow.open(userId, scanId)) {
+                    return narrow.map(scope, List.of(1, 2, 3, 4), 1, chunk -> {
+                        started.countDown();
+                        await(release);
+                        return chunk;
+                    });
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            awaitInFlight(narrowMeters, 2);
+
+            assertTrue(narrow.cancel(userId, scanId));
+            Exception failure = assertThrows(Exception.class, () -> upload.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof InvalidScanStateException);
+            release.countDown();
+
+            awaitInFlight(narrowMeters, 0);
+        } finally {
+            release.countDown();
+            narrow.shutdown();
+        }
+    }
+
+    @Test
+    void scanCanOnlyBeParsedByOneRequestAndCancelledByItsOwner() {
+        try (ParseScope ignored = scheduler.open(userId, scanId)) {
+            assertThrows(InvalidScanStateException.class, () -> scheduler.open(userId, scanId));
+            assertThrows(ScanAccessDeniedException.class, () -> scheduler.cancel(UUID.randomUUID(), scanId));
+        }
+        assertFalse(scheduler.cancel(userId, scanId));
+    }
+
+    // sms.parse.in.flight is workers minus the free slots, so 0 means every permit came back
+    private static void awaitInFlight(SimpleMeterRegistry meters, double count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meters.get("sms.parse.in.flight").gauge().value() != count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + count + " chunks in flight but saw "
+                        + meters.get("sms.parse.in.flight").gauge().value());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
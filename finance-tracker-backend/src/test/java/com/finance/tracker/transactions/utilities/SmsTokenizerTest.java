@@ -0,0 +1,115 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.SmsKeyword;
+import com.finance.tracker.transactions.domain.SmsTokenType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmsTokenizerTest {
+
+    // The regexes the fallback parsers ran before the tokenizer, kept as the reference behaviour
+    private static final Pattern AMOUNT = Pattern.compile("(?i)(rs\\.?|inr|₹)\\s?([\\d,]+(?:\\.\\d{1,2})?)");
+    private static final Pattern UPI_HINT = Pattern.compile("(?i)\\bupi\\b|@");
+    private static final Pattern UPI_ID = Pattern.compile("(?i)([a-z0-9._-]+@[a-z0-9._-]+)");
+    private static final Pattern PAYEE = Pattern.compile("(?i)(?:to|from)\\s+([a-z0-9._-]{3,})@");
+    private static final Pattern UTR = Pattern.compile("(?i)(utr|ref)[^a-z0-9]?[:#]?\\s?([a-z0-9]+)");
+    private static final Pattern DATE = Pattern.compile("(\\d{1,2}[/-]\\d{1,2}[/-]\\d{2,4})");
+    private static final Pattern LAST_FOUR = Pattern.compile("(?i)(?:AC|A/C|A/c|a/c|ac)\\s*[Xx]?(\\d{4})\\b");
+    private static final Pattern MERCHANT = Pattern.compile("(?i)(?:at|to)\\s+([a-z0-9 &._-]{3,})");
+    private static final Pattern DEBIT = Pattern.compile("(?i)(debited|spent|paid|withdrawn|purchase|sent)");
+    private static final Pattern CREDIT = Pattern.compile("(?i)(credited|received|refund|deposited)");
+
+    private static final List<String> BODIES = List.of(
+            "Rs.250.00 paid to swiggy@ybl from A/c XX1234 on 12-01-26. UPI Ref 401234567890",
+            "You have received INR 1,200 from rahul.k@okaxis. UTR: 998877",
+            "Rs 500 debited from a/c **4321 on 05/01/2026 at AMAZON PAY. Avl bal Rs 10,000",
+            "INR 3,499.00 spent on card XX9876 at FLIPKART on 03-01-26",
+            "Your OTP for login is 482913. Do not share it with anyone.",
+            "Get 50% off on your next order! Use code SAVE50 @ checkout",
+            "Refund of Rs.99 processed",
+            "Sent Rs.1.5 to  ab@x via UPI-Ref#:A1 on 123/04/2026 at\t  xy",
+            "Acct ac 1234x ac X5678 a/c\n9999 to a@ b@c from   abcd@ok",
+            "₹ 12,34,567.891 withdrawn, ref no. 77 at 10:45:30 deposited at 9:05",
+            "",
+            "A@b@c Rs. ,5 inr.7 rs .3"
+    );
+
+    private final SmsTokenizer tokenizer = new SmsTokenizer();
+
+    @Test
+    void firstTokenOfEachTypeMatchesReferenceRegexes() {
+        for (String body : BODIES) {
+            assertAgreesWithRegexes(body);
+        }
+    }
+
+    @Test
+    void agreesWithReferenceRegexesOnRandomBodies() {
+        String[] pieces = {"rs", "Rs.", "INR", "₹", " ", "  ", "\t", "\n", "1", "23", "4,5", ".", "/", "-", ":", "#",
+                "@", "ab", "X", "x", "ac", "A/c", "to", "from", "at", "utr", "Ref", "upi", "UPI", "_", "&", "paid",
+                "refund", "credited", "é"};
+        Random random = new Random(42);
+
+        for (int run = 0; run < 20_000; run++) {
+            StringBuilder body = new StringBuilder();
+            int length = 1 + random.nextInt(14);
+            for (int k = 0; k < length; k++) {
+                body.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertAgreesWithRegexes(body.toString());
+        }
+    }
+
+    @Test
+    void emitsTimesAndKeywordTokens() {
+        SmsTokenizer tokens = tokenizer.tokenize("Spent INR 10 on 10-01-26 08:50:53, credited 123:45:67");
+
+        assertEquals("08:50:53", tokens.firstValue(SmsTokenType.TIME));
+        assertEquals("Spent", tokens.firstValue(SmsTokenType.DEBIT_KEYWORD));
+        assertEquals("credited", tokens.firstValue(SmsTokenType.CREDIT_KEYWORD));
+        assertTrue(tokens.containsAny(new SmsKeyword[]{SmsKeyword.SPENT}));
+
+        List<String> times = new ArrayList<>();
+        for (int t = 0; t < tokens.size(); t++) {
+            if (tokens.type(t) == SmsTokenType.TIME) times.add(tokens.value(t));
+        }
+        assertEquals(List.of("08:50:53"), times);
+    }
+
+    @Test
+    void treatsMissingBodyAsEmpty() {
+        SmsTokenizer tokens = tokenizer.tokenize(null);
+
+        assertEquals(0, tokens.size());
+        assertNull(tokens.firstValue(SmsTokenType.AMOUNT));
+    }
+
+    private void assertAgreesWithRegexes(String body) {
+        SmsTokenizer tokens = tokenizer.tokenize(body);
+
+        assertEquals(find(AMOUNT, body, 2), tokens.firstValue(SmsTokenType.AMOUNT), body);
+        assertEquals(UPI_HINT.matcher(body).find(), tokens.upiHint(), body);
+        assertEquals(find(UPI_ID, body, 1), tokens.firstValue(SmsTokenType.VPA), body);
+        assertEquals(find(PAYEE, body, 1), tokens.firstValue(SmsTokenType.PAYEE), body);
+        assertEquals(find(UTR, body, 2), tokens.firstValue(SmsTokenType.REFERENCE), body);
+        assertEquals(find(DATE, body, 1), tokens.firstValue(SmsTokenType.DATE), body);
+        assertEquals(find(LAST_FOUR, body, 1), tokens.firstValue(SmsTokenType.ACCOUNT_MASK), body);
+        assertEquals(find(MERCHANT, body, 1), tokens.firstValue(SmsTokenType.MERCHANT), body);
+        assertEquals(DEBIT.matcher(body).find(), tokens.first(SmsTokenType.DEBIT_KEYWORD) >= 0, body);
+        assertEquals(CREDIT.matcher(body).find(), tokens.first(SmsTokenType.CREDIT_KEYWORD) >= 0, body);
+    }
+
+    private static String find(Pattern pattern, String text, int group) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(group) : null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.finance.tracker.transactions.utilities;
+
+import com.finance.tracker.transactions.domain.BankTemplateSet;
+import com.finance.tracker.transactions.domain.TemplatesReloadedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TemplateLoaderTest {
+
+    private static final String HDFC_TEMPLATES = """
+            [{"name": "HDFC_DEBIT", "pattern": "Rs\\\\.(?<Amount>[\\\\d,.]+) debited", "fields": ["Amount"]}]
+            """;
+
+    @TempDir
+    Path externalDir;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private TemplateLoader loader;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (loader != null) loader.shutdown();
+    }
+
+    @Test
+    void compilesBundledTemplatesAtStartup() throws Exception {
+        loader = new TemplateLoader("/bank_templates/", "", false, 10, eventPublisher);
+        loader.init();
+
+        BankTemplateSet axis = loader.loadSet("AXIS");
+
+        assertEquals(1, loader.current().version());
+        assertFalse(axis.isEmpty());
+        assertTrue(axis.templates().stream().allMatch(t -> t.getCompiledPattern() != null));
+        assertEquals("axis#0", axis.templates().get(0).getId());
+        assertTrue(loader.load("unknown").isEmpty());
+    }
+
+    @Test
+    void refreshSwapsInExternalTemplates() throws Exception {
+        loader = new TemplateLoader("/bank_templates/", externalDir.toString(), false, 10, eventPublisher);
+        loader.init();
+        assertTrue(loader.load("hdfc").isEmpty());
+
+        Files.writeString(externalDir.resolve("hdfc_bank.json"), HDFC_TEMPLATES);
+        loader.refreshCache();
+
+        assertEquals(2, loader.current().version());
+        assertEquals("HDFC_DEBIT", loader.load("HDFC").get(0).getName());
+        assertFalse(loader.load("axis").isEmpty());
+        verify(eventPublisher).publishEvent(any(TemplatesReloadedEvent.class));
+    }
+
+    @Test
+    void keepsServingPreviousSnapshotWhenReloadFails() throws Exception {
+        Files.writeString(externalDir.resolve("hdfc_bank.json"), HDFC_TEMPLATES);
+        loader = new TemplateLoader("/bank_templates/", externalDir.toString(), false, 10, eventPublisher);
+        loader.init();
+        BankTemplateSet before = loader.loadSet("hdfc");
+
+        Files.writeString(externalDir.resolve("hdfc_bank.json"), "[{\"name\": \"BROKEN\", \"pattern\": \"(unclosed\"}]");
+        loader.refreshCache();
+
+        assertEquals(1, loader.current().version());
+        assertSame(before, loader.loadSet("hdfc"));
+        verify(eventPublisher, never()).publishEvent(any(TemplatesReloadedEvent.class));
+    }
+}